@@ -0,0 +1,130 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.core.geometry.Envelope2D;
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.MultiVertexGeometry;
+
+/**
+ * Holds a polygon layer of about 4M vertices as a ColumnarGeometryStore and as a list of Geometry: time to load the
+ * shapefile into each, and to scan all the envelopes against a window of 1% of the layer, returning the matching
+ * features or their point count. -prof gc gives the heap allocated by each load.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColumnarStoreBenchmark {
+
+	static final int TOTAL_VERTICES = 4 * 1000 * 1000;
+
+	@Param({ "8", "128" })
+	public int verticesPerRecord;
+
+	File shpFile;
+	ColumnarGeometryStore store;
+	List<Geometry> geometries;
+	Envelope2D window;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		shpFile = DataGenerator.writeShapefile(DataGenerator.temporaryShapefile("columnar"), Geometry.Type.Polygon,
+				TOTAL_VERTICES / verticesPerRecord, verticesPerRecord, DataGenerator.SEED);
+		store = loadStore();
+		geometries = loadGeometries();
+		Envelope2D extent = new ShapefileGeometryCursor(shpFile).getEnvelope2D();
+		window = new Envelope2D(extent.xmin, extent.ymin, extent.xmin + extent.getWidth() / 10,
+				extent.ymin + extent.getHeight() / 10);
+	}
+
+	@Benchmark
+	public ColumnarGeometryStore loadStore() throws IOException {
+		return ColumnarGeometryStore.load(new ShapefileGeometryCursor(shpFile));
+	}
+
+	@Benchmark
+	public List<Geometry> loadGeometries() throws IOException {
+		List<Geometry> list = new ArrayList<Geometry>();
+		ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(shpFile);
+		Geometry geometry;
+		while ((geometry = cursor.next()) != null) {
+			list.add(geometry);
+		}
+		return list;
+	}
+
+	@Benchmark
+	public int[] searchStore() {
+		return store.search(window);
+	}
+
+	@Benchmark
+	public int[] searchGeometries() {
+		int[] found = new int[16];
+		int count = 0;
+		Envelope2D envelope = new Envelope2D();
+		for (int i = 0; i < geometries.size(); i++) {
+			geometries.get(i).queryEnvelope2D(envelope);
+			if (envelope.isIntersecting(window)) {
+				if (count == found.length) {
+					found = Arrays.copyOf(found, 2 * count);
+				}
+				found[count++] = i;
+			}
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	@Benchmark
+	public long pointCountStore() {
+		return store.getPointCount(window);
+	}
+
+	@Benchmark
+	public long pointCountGeometries() {
+		long count = 0;
+		Envelope2D envelope = new Envelope2D();
+		for (Geometry geometry : geometries) {
+			geometry.queryEnvelope2D(envelope);
+			if (envelope.isIntersecting(window)) {
+				count += ((MultiVertexGeometry) geometry).getPointCount();
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.OperatorExportToGeoJson;
+import com.esri.core.geometry.Point;
+import com.esri.core.geometry.Polygon;
+import com.esri.core.geometry.Polyline;
+
+/**
+ * Generates the benchmark data from a seed, so that runs are reproducible without any download.
+ */
+public final class DataGenerator {
+
+	public static final long SEED = 20160101L;
+
+	private DataGenerator() {
+	}
+
+	/**
+	 * Returns a simple polygon: a ring around the center whose vertices have increasing angles
+	 * and random radii between 0.5 and 1 times the given radius.
+	 */
+	public static Polygon starPolygon(Random random, double cx, double cy, double radius, int vertices) {
+		Polygon polygon = new Polygon();
+		for (int i = 0; i < vertices; i++) {
+			double angle = -2 * Math.PI * i / vertices; // clockwise, the orientation of outer rings
+			double r = radius * (0.5 + 0.5 * random.nextDouble());
+			double x = cx + r * Math.cos(angle);
+			double y = cy + r * Math.sin(angle);
+			if (i == 0) {
+				polygon.startPath(x, y);
+			} else {
+				polygon.lineTo(x, y);
+			}
+		}
+		return polygon;
+	}
+
+	/**
+	 * Returns a star polygon in which a few pairs of consecutive vertices are swapped,
+	 * so that the ring crosses itself and is not simple in the OGC sense.
+	 */
+	public static Polygon selfIntersectingPolygon(Random random, double cx, double cy, double radius, int vertices) {
+		Polygon polygon = starPolygon(random, cx, cy, radius, vertices);
+		Point a = new Point();
+		Point b = new Point();
+		int swaps = Math.max(1, vertices / 1000);
+		for (int s = 0; s < swaps; s++) {
+			int i = 1 + random.nextInt(vertices - 3);
+			polygon.getPointByVal(i, a);
+			polygon.getPointByVal(i + 1, b);
+			polygon.setPointByVal(i, b);
+			polygon.setPointByVal(i + 1, a);
+		}
+		return polygon;
+	}
+
+	/**
+	 * Returns a polyline of random steps, with the given number of vertices.
+	 */
+	public static Polyline randomWalk(Random random, double x, double y, double step, int vertices) {
+		Polyline polyline = new Polyline();
+		polyline.startPath(x, y);
+		for (int i = 1; i < vertices; i++) {
+			x += step * (random.nextDouble() - 0.5);
+			y += step * (random.nextDouble() - 0.5);
+			polyline.lineTo(x, y);
+		}
+		return polyline;
+	}
+
+	/**
+	 * Returns a multipart polygon of the given number of disjoint star shaped parts, laid out on a grid like the islands
+	 * of an archipelago, in which the given fraction of the parts cross themselves.
+	 */
+	public static Polygon archipelago(Random random, int parts, int verticesPerPart, double selfIntersectingFraction) {
+		Polygon multiPolygon = new Polygon();
+		int columns = (int) Math.ceil(Math.sqrt(parts));
+		for (int part = 0; part < parts; part++) {
+			double cx = (part % columns) * 10;
+			double cy = (part / columns) * 10;
+			multiPolygon.add(random.nextDouble() < selfIntersectingFraction
+					? selfIntersectingPolygon(random, cx, cy, 4, verticesPerPart)
+					: starPolygon(random, cx, cy, 4, verticesPerPart), false);
+		}
+		return multiPolygon;
+	}
+
+	/**
+	 * Returns the parcels of a columns by rows grid of unit cells whose corners are moved at random, so that the
+	 * parcels are irregular quadrilaterals which share their edges with their neighbours, like a cadastre.
+	 * Dissolving them gives the rectangle of the grid, with ragged sides.
+	 */
+	public static Polygon[] parcels(Random random, int columns, int rows) {
+		double[] xs = new double[(columns + 1) * (rows + 1)];
+		double[] ys = new double[xs.length];
+		for (int row = 0; row <= rows; row++) {
+			for (int column = 0; column <= columns; column++) {
+				int corner = row * (columns + 1) + column;
+				xs[corner] = column + 0.25 * (random.nextDouble() - 0.5);
+				ys[corner] = row + 0.25 * (random.nextDouble() - 0.5);
+			}
+		}
+
+		Polygon[] parcels = new Polygon[columns * rows];
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				int corner = row * (columns + 1) + column;
+				Polygon parcel = new Polygon();
+				parcel.startPath(xs[corner], ys[corner]); // clockwise, the orientation of outer rings
+				parcel.lineTo(xs[corner + columns + 1], ys[corner + columns + 1]);
+				parcel.lineTo(xs[corner + columns + 2], ys[corner + columns + 2]);
+				parcel.lineTo(xs[corner + 1], ys[corner + 1]);
+				parcels[row * columns + column] = parcel;
+			}
+		}
+		return parcels;
+	}
+
+	/**
+	 * Returns a GeoJSON MultiPolygon with the given total number of vertices, split among disjoint parts.
+	 */
+	public static String geoJsonMultiPolygon(long seed, int vertices) {
+		Random random = new Random(seed);
+		int verticesPerPart = Math.min(vertices, 1000);
+		int parts = Math.max(1, vertices / verticesPerPart);
+		Polygon multiPolygon = new Polygon();
+		for (int part = 0; part < parts; part++) {
+			double cx = (part % 100) * 10;
+			double cy = (part / 100) * 10;
+			multiPolygon.add(starPolygon(random, cx, cy, 4, verticesPerPart), false);
+		}
+		return OperatorExportToGeoJson.local().execute(multiPolygon);
+	}
+
+	/**
+	 * Writes a shapefile of Polygon, Polyline or Point records, each polygon or polyline with
+	 * verticesPerRecord vertices, laid out on a grid.
+	 */
+	public static File writeShapefile(File shpFile, Geometry.Type type, int records, int verticesPerRecord, long seed)
+			throws IOException {
+		Random random = new Random(seed);
+		ShapefileWriter writer = new ShapefileWriter(shpFile, type);
+		try {
+			int columns = (int) Math.ceil(Math.sqrt(records));
+			for (int i = 0; i < records; i++) {
+				double cx = (i % columns) * 10;
+				double cy = (i / columns) * 10;
+				switch (type) {
+				case Point:
+					writer.write(new Point(cx + random.nextDouble(), cy + random.nextDouble()));
+					break;
+				case Polyline:
+					writer.write(randomWalk(random, cx, cy, 1, verticesPerRecord));
+					break;
+				case Polygon:
+					writer.write(starPolygon(random, cx, cy, 4, verticesPerRecord));
+					break;
+				default:
+					throw new IllegalArgumentException(type.toString());
+				}
+			}
+		} finally {
+			writer.close();
+		}
+		return shpFile;
+	}
+
+	/**
+	 * @return a temporary .shp path; the file and its .shx are deleted when the JVM exits
+	 */
+	public static File temporaryShapefile(String prefix) throws IOException {
+		File shpFile = File.createTempFile(prefix, ".shp");
+		shpFile.deleteOnExit();
+		ShapefileIndex.companionFile(shpFile, "shx").deleteOnExit();
+		return shpFile;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.MapGeometry;
+import com.esri.core.geometry.OperatorImportFromGeoJson;
+
+/**
+ * Import of one GeoJSON MultiPolygon through the library's string path, through JsonObjectReader
+ * (with and without the cost of building the JSONObject), through the JsonObjectReader it replaced, kept here as
+ * {@link LegacyJsonObjectReader}, and through StreamingJsonReader.
+ * <p>
+ * A JsonObjectReader allocates a few hundred bytes for the whole traversal; nearly all the bytes of its imports are the
+ * polygon being built. The importer appends the coordinates to a stream of doubles that grows by a quarter at a time,
+ * so its successive buffers add up to about four times the final one, and then copies the positions once more to drop
+ * the closing vertex of each ring: 8.1 and 1.6 MB for 100k vertices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class JsonImportBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int vertices;
+
+	String json;
+	byte[] bytes;
+	JSONObject jsonObject;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		json = DataGenerator.geoJsonMultiPolygon(DataGenerator.SEED, vertices);
+		bytes = json.getBytes(StandardCharsets.UTF_8);
+		jsonObject = new JSONObject(json);
+	}
+
+	@Benchmark
+	public MapGeometry stringPath() {
+		return OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown, json, null);
+	}
+
+	/**
+	 * The JSONObject is already built, as when it comes from elsewhere in an application.
+	 */
+	@Benchmark
+	public MapGeometry jsonObjectReader() {
+		return OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown, new JsonObjectReader(jsonObject), null);
+	}
+
+	@Benchmark
+	public MapGeometry legacyJsonObjectReader() {
+		return OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown,
+				new LegacyJsonObjectReader(jsonObject), null);
+	}
+
+	@Benchmark
+	public MapGeometry jsonObjectReaderWithParse() {
+		return OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown,
+				new JsonObjectReader(new JSONObject(json)), null);
+	}
+
+	@Benchmark
+	public MapGeometry streamingJsonReader() {
+		return OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown, new StreamingJsonReader(bytes), null);
+	}
+}
@@ -0,0 +1,229 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.util.Arrays;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.esri.core.geometry.GeometryException;
+import com.esri.core.geometry.JsonGeometryException;
+import com.esri.core.geometry.JsonReader;
+
+/**
+ * JsonObjectReader as it was before it kept a key buffer per depth and dispatched values on their exact class: the
+ * keys of every object entered are listed with JSONObject.getNames, and every value goes through a chain of instanceof
+ * tests. Kept for {@link JsonImportBenchmark}.
+ */
+final class LegacyJsonObjectReader implements JsonReader {
+
+	private static final byte OBJECT = 1;
+	private static final byte ARRAY = 2;
+	private static final String[] NO_KEYS = new String[0];
+
+	private Object m_object;
+	private JsonReader.Token m_currentToken;
+	private Object m_currentValue; // value of the current token, or the container of a START token
+	private String m_currentKey;
+
+	// Frame stack, indexed by depth. A frame is only pushed when the reader moves past the START token
+	// of a container, so skipping a container is O(1) and never enumerates it.
+	private byte[] m_kinds = new byte[8];
+	private Object[] m_containers = new Object[8];
+	private String[][] m_keys = new String[8][]; // keys of an object frame, listed on first use
+	private int[] m_indices = new int[8];
+	private int m_depth;
+
+	LegacyJsonObjectReader(Object object) {
+		m_object = object;
+
+		if (m_object instanceof JSONObject) {
+			m_currentToken = JsonReader.Token.START_OBJECT;
+		} else if (m_object instanceof JSONArray) {
+			m_currentToken = JsonReader.Token.START_ARRAY;
+		} else {
+			throw new IllegalArgumentException();
+		}
+
+		m_currentValue = m_object;
+	}
+
+	private void setCurrentToken_(Object obj) {
+		m_currentValue = obj;
+
+		if (obj instanceof String) {
+			m_currentToken = JsonReader.Token.VALUE_STRING;
+		} else if (obj instanceof Double || obj instanceof Float) {
+			m_currentToken = JsonReader.Token.VALUE_NUMBER_FLOAT;
+		} else if (obj instanceof Integer || obj instanceof Long || obj instanceof Short) {
+			m_currentToken = JsonReader.Token.VALUE_NUMBER_INT;
+		} else if (obj instanceof Boolean) {
+			Boolean bObj = (Boolean) obj;
+			boolean b = bObj.booleanValue();
+			if (b) {
+				m_currentToken = JsonReader.Token.VALUE_TRUE;
+			} else {
+				m_currentToken = JsonReader.Token.VALUE_FALSE;
+			}
+		} else if (obj instanceof JSONObject) {
+			m_currentToken = JsonReader.Token.START_OBJECT;
+		} else if (obj instanceof JSONArray) {
+			m_currentToken = JsonReader.Token.START_ARRAY;
+		} else {
+			m_currentToken = JsonReader.Token.VALUE_NULL;
+		}
+	}
+
+	private void push_(byte kind, Object container) {
+		if (m_depth == m_kinds.length) {
+			int capacity = m_depth * 2;
+			m_kinds = Arrays.copyOf(m_kinds, capacity);
+			m_containers = Arrays.copyOf(m_containers, capacity);
+			m_keys = Arrays.copyOf(m_keys, capacity);
+			m_indices = Arrays.copyOf(m_indices, capacity);
+		}
+
+		m_kinds[m_depth] = kind;
+		m_containers[m_depth] = container;
+		m_keys[m_depth] = null;
+		m_indices[m_depth] = -1;
+		m_depth++;
+	}
+
+	private void pop_() {
+		m_depth--;
+		m_containers[m_depth] = null;
+		m_keys[m_depth] = null;
+	}
+
+	@Override
+	public JsonReader.Token nextToken() throws JsonGeometryException {
+		if (m_currentToken == JsonReader.Token.START_OBJECT) {
+			push_(OBJECT, m_currentValue);
+		} else if (m_currentToken == JsonReader.Token.START_ARRAY) {
+			push_(ARRAY, m_currentValue);
+		}
+
+		if (m_depth == 0) {
+			m_currentToken = null;
+			m_currentValue = null;
+			return m_currentToken;
+		}
+
+		int top = m_depth - 1;
+
+		if (m_kinds[top] == OBJECT) {
+			JSONObject jsonObject = (JSONObject) m_containers[top];
+
+			if (m_currentToken == JsonReader.Token.FIELD_NAME) {
+				setCurrentToken_(jsonObject.opt(m_currentKey));
+			} else {
+				String[] keys = m_keys[top];
+				if (keys == null) {
+					keys = JSONObject.getNames(jsonObject);
+					if (keys == null) {
+						keys = NO_KEYS;
+					}
+					m_keys[top] = keys;
+				}
+
+				int index = ++m_indices[top];
+				if (index < keys.length) {
+					m_currentKey = keys[index];
+					m_currentValue = null;
+					m_currentToken = JsonReader.Token.FIELD_NAME;
+				} else {
+					pop_();
+					m_currentValue = null;
+					m_currentToken = JsonReader.Token.END_OBJECT;
+				}
+			}
+		} else {
+			JSONArray jsonArray = (JSONArray) m_containers[top];
+
+			int index = ++m_indices[top];
+			if (index < jsonArray.length()) {
+				setCurrentToken_(jsonArray.opt(index));
+			} else {
+				pop_();
+				m_currentValue = null;
+				m_currentToken = JsonReader.Token.END_ARRAY;
+			}
+		}
+
+		return m_currentToken;
+	}
+
+	@Override
+	public JsonReader.Token currentToken() throws JsonGeometryException {
+		return m_currentToken;
+	}
+
+	@Override
+	public void skipChildren() throws JsonGeometryException {
+		// The container of the current START token has no frame yet, so there is nothing to pop.
+		if (m_currentToken == JsonReader.Token.START_OBJECT) {
+			m_currentToken = JsonReader.Token.END_OBJECT;
+			m_currentValue = null;
+		} else if (m_currentToken == JsonReader.Token.START_ARRAY) {
+			m_currentToken = JsonReader.Token.END_ARRAY;
+			m_currentValue = null;
+		}
+	}
+
+	@Override
+	public String currentString() throws JsonGeometryException {
+		if (m_currentToken == JsonReader.Token.FIELD_NAME) {
+			return m_currentKey;
+		}
+
+		if (m_currentToken != JsonReader.Token.VALUE_STRING) {
+			throw new GeometryException("invalid call");
+		}
+
+		return (String) m_currentValue;
+	}
+
+	@Override
+	public double currentDoubleValue() throws JsonGeometryException {
+		if (m_currentToken != JsonReader.Token.VALUE_NUMBER_FLOAT && m_currentToken != JsonReader.Token.VALUE_NUMBER_INT) {
+			throw new GeometryException("invalid call");
+		}
+
+		return ((Number) m_currentValue).doubleValue();
+	}
+
+	@Override
+	public int currentIntValue() throws JsonGeometryException {
+		if (m_currentToken != JsonReader.Token.VALUE_NUMBER_INT) {
+			throw new GeometryException("invalid call");
+		}
+
+		return ((Number) m_currentValue).intValue();
+	}
+
+	@Override
+	public boolean currentBooleanValue() throws JsonGeometryException {
+		JsonReader.Token toc = currentToken();
+		if (toc == JsonReader.Token.VALUE_TRUE) {
+			return true;
+		}
+		else if (toc == JsonReader.Token.VALUE_FALSE) {
+			return false;
+		}
+		throw new GeometryException("invalid call");
+	}
+}
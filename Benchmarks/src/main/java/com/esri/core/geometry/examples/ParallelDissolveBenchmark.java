@@ -0,0 +1,85 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.OperatorUnion;
+import com.esri.core.geometry.Polygon;
+import com.esri.core.geometry.SimpleGeometryCursor;
+
+/**
+ * Dissolves a layer of 40k parcels sharing their edges, with ParallelDissolve on a ForkJoinPool of 1 to 8 threads and
+ * with OperatorUnion on the cursor. Time per dissolve.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelDissolveBenchmark {
+
+	static final int COLUMNS = 200;
+	static final int ROWS = 200;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	@Param({ "1024" })
+	public int partitionSize;
+
+	Polygon[] parcels;
+	ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		parcels = DataGenerator.parcels(new Random(DataGenerator.SEED), COLUMNS, ROWS);
+		executor = new ForkJoinPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public Geometry parallelDissolve() {
+		return new ParallelDissolve(executor, null, partitionSize).execute(new SimpleGeometryCursor(parcels));
+	}
+
+	@Benchmark
+	public Geometry sequentialUnion() {
+		return OperatorUnion.local().execute(new SimpleGeometryCursor(parcels), null, null).next();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.GeometryCursor;
+
+/**
+ * Scaling of ParallelShapefileReader with the number of threads, against the sequential cursor
+ * on the same file. Time per full pass over the file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelShapefileBenchmark {
+
+	static final int RECORDS = 50000;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	@Param({ "true", "false" })
+	public boolean preserveOrder;
+
+	File shpFile;
+	ExecutorService executor;
+	ParallelShapefileReader reader;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		shpFile = DataGenerator.writeShapefile(DataGenerator.temporaryShapefile("parallel"), Geometry.Type.Polygon,
+				RECORDS, 64, DataGenerator.SEED);
+		executor = Executors.newFixedThreadPool(threads);
+		// 1MB splits, so that even 8 threads get several splits each
+		reader = new ParallelShapefileReader(shpFile, ShapefileIndex.read(ShapefileIndex.companionFile(shpFile, "shx")),
+				executor, 1 << 20, 2 * threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		reader.close();
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public void sequential(Blackhole blackhole) throws IOException {
+		ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(shpFile);
+		Geometry geometry;
+		while ((geometry = cursor.next()) != null) {
+			blackhole.consume(geometry);
+		}
+	}
+
+	@Benchmark
+	public void parallel(Blackhole blackhole) {
+		GeometryCursor cursor = reader.cursor(preserveOrder);
+		Geometry geometry;
+		while ((geometry = cursor.next()) != null) {
+			blackhole.consume(geometry);
+		}
+	}
+}
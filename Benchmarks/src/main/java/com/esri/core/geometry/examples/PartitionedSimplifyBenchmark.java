@@ -0,0 +1,88 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.OperatorSimplifyOGC;
+import com.esri.core.geometry.Polygon;
+
+/**
+ * Scaling of PartitionedSimplify with the number of threads, against OperatorSimplifyOGC on the whole polygon,
+ * on a multipart polygon of 1000 vertex parts of which 20% cross themselves. Time per polygon.
+ * whole does not depend on threads; run it once with -p threads=1.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionedSimplifyBenchmark {
+
+	@Param({ "400" })
+	public int parts;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	@Param({ "true", "false" })
+	public boolean verify;
+
+	Polygon polygon;
+	ExecutorService executor;
+	PartitionedSimplify partitionedSimplify;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		polygon = DataGenerator.archipelago(new Random(DataGenerator.SEED), parts, 1000, 0.2);
+		executor = Executors.newFixedThreadPool(threads);
+		partitionedSimplify = new PartitionedSimplify(executor, threads, null, 0);
+		partitionedSimplify.setVerify(verify);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public Geometry whole() {
+		return OperatorSimplifyOGC.local().execute(polygon, null, true, null);
+	}
+
+	@Benchmark
+	public Geometry partitioned() {
+		return partitionedSimplify.execute(polygon);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.esri.core.geometry.Geometry;
+
+/**
+ * Decodes a polygon shapefile of about 4M vertices, 68MB, with ShapefileGeometryCursor, reading straight from the
+ * file or ahead of the decoding through {@link ReadAheadChannel}. Network storage is simulated by a latency on every
+ * read of the file; with a latency, the read-ahead cursor overlaps the waits with the decoding.
+ * The score is the time to decode the whole file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadAheadBenchmark {
+
+	static final int VERTICES_PER_RECORD = 128;
+
+	/**
+	 * The wait per read of chunkSize bytes, in microseconds.
+	 */
+	@Param({ "0", "2000" })
+	public int latencyMicros;
+
+	@Param({ "2", "4" })
+	public int depth;
+
+	@Param({ "1048576" })
+	public int chunkSize;
+
+	File shpFile;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		int records = ShapefileDecodeBenchmark.TOTAL_VERTICES / VERTICES_PER_RECORD;
+		shpFile = DataGenerator.writeShapefile(DataGenerator.temporaryShapefile("readahead"), Geometry.Type.Polygon,
+				records, VERTICES_PER_RECORD, DataGenerator.SEED);
+	}
+
+	@Benchmark
+	public void direct(Blackhole blackhole) throws IOException {
+		ShapefileInput input = new ShapefileInput(new SlowChannel(shpFile, latencyMicros), chunkSize);
+		decode(new ShapefileGeometryCursor(input, null), blackhole);
+	}
+
+	@Benchmark
+	public void readAhead(Blackhole blackhole) throws IOException {
+		ReadAheadChannel channel = new ReadAheadChannel(new SlowChannel(shpFile, latencyMicros), depth, chunkSize);
+		decode(new ShapefileGeometryCursor(new ShapefileInput(channel, chunkSize), null), blackhole);
+	}
+
+	private static void decode(ShapefileGeometryCursor cursor, Blackhole blackhole) throws IOException {
+		try {
+			Geometry geometry;
+			while ((geometry = cursor.next()) != null) {
+				blackhole.consume(geometry);
+			}
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * A file channel that waits before every read, as a read from network storage does.
+	 */
+	static final class SlowChannel implements ReadableByteChannel {
+		private final ReadableByteChannel channel;
+		private final long latencyNanos;
+
+		SlowChannel(File file, int latencyMicros) throws IOException {
+			channel = new FileInputStream(file).getChannel();
+			latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (latencyNanos > 0) {
+				LockSupport.parkNanos(latencyNanos);
+			}
+			return channel.read(dst);
+		}
+
+		@Override
+		public boolean isOpen() {
+			return channel.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.esri.core.geometry.Polygon;
+
+/**
+ * RepairStage on a batch of polygons of which a given fraction self intersect, in its three modes:
+ * alwaysRun validates, simplifies and revalidates every polygon, revalidate simplifies only the invalid ones
+ * and validates them again, and adaptive trusts the output of the simplify. Time per batch.
+ * The batch has the given fraction of duplicates, equal copies of other polygons. One stage is shared by all the
+ * benchmark threads, as by the workers of a SimplifyBatch; run with -t to check that they do not contend.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class RepairStageBenchmark {
+
+	static final int POLYGONS = 100;
+
+	@Param({ "0.1", "0.5" })
+	public double invalidFraction;
+
+	@Param({ "0", "0.2" })
+	public double duplicateFraction;
+
+	@Param({ "1000" })
+	public int vertices;
+
+	@Param({ "alwaysRun", "revalidate", "adaptive" })
+	public String mode;
+
+	Polygon[] polygons;
+	RepairStage stage;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		Random random = new Random(DataGenerator.SEED);
+		polygons = new Polygon[POLYGONS];
+		for (int i = 0; i < POLYGONS; i++) {
+			if (i > 0 && random.nextDouble() < duplicateFraction) {
+				// an equal copy, as when the same boundary is stored twice
+				polygons[i] = (Polygon) polygons[random.nextInt(i)].copy();
+			} else if (random.nextDouble() < invalidFraction) {
+				polygons[i] = DataGenerator.selfIntersectingPolygon(random, 0, 0, 1000, vertices);
+			} else {
+				polygons[i] = DataGenerator.starPolygon(random, 0, 0, 1000, vertices);
+			}
+		}
+		stage = new RepairStage(null);
+		stage.setAlwaysRun(mode.equals("alwaysRun"));
+		stage.setRevalidate(mode.equals("revalidate"));
+	}
+
+	@Benchmark
+	public void process(Blackhole blackhole) {
+		for (int i = 0; i < polygons.length; i++) {
+			blackhole.consume(stage.process(i, polygons[i]));
+		}
+	}
+}
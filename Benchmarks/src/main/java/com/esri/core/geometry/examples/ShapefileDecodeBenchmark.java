@@ -0,0 +1,129 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.esri.core.geometry.Geometry;
+
+/**
+ * Decodes a whole generated shapefile per operation. The records and bytes counters are reported
+ * as rates next to the score, giving records/s and bytes/s; -prof gc divided by the record count gives
+ * the bytes allocated per record.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShapefileDecodeBenchmark {
+
+	/**
+	 * The number of records is chosen so that every file holds about 4M vertices, 64MB of coordinates.
+	 */
+	static final int TOTAL_VERTICES = 4 * 1000 * 1000;
+
+	@Param({ "Point", "Polygon" })
+	public String type;
+
+	@Param({ "8", "128", "2048" })
+	public int verticesPerRecord;
+
+	File shpFile;
+	int records;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		Geometry.Type geometryType = Geometry.Type.valueOf(type);
+		int vertices = geometryType == Geometry.Type.Point ? 1 : verticesPerRecord;
+		records = TOTAL_VERTICES / vertices;
+		shpFile = DataGenerator.writeShapefile(DataGenerator.temporaryShapefile("decode"), geometryType, records,
+				vertices, DataGenerator.SEED);
+	}
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long records;
+		public long bytes;
+	}
+
+	@Benchmark
+	public void streamCursor(Counters counters, Blackhole blackhole) throws IOException {
+		ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(shpFile);
+		Geometry geometry;
+		while ((geometry = cursor.next()) != null) {
+			blackhole.consume(geometry);
+		}
+		count(counters);
+	}
+
+	@Benchmark
+	public void mappedCursor(Counters counters, Blackhole blackhole) throws IOException {
+		MappedShapefileGeometryCursor cursor = new MappedShapefileGeometryCursor(shpFile);
+		try {
+			Geometry geometry;
+			while ((geometry = cursor.next()) != null) {
+				blackhole.consume(geometry);
+			}
+		} finally {
+			cursor.close();
+		}
+		count(counters);
+	}
+
+	/**
+	 * The flyweight path: no Geometry is created, the area is computed from the record buffer.
+	 * The allocation per record reported by -prof gc should be close to zero.
+	 */
+	@Benchmark
+	public double flyweightArea(Counters counters) throws IOException {
+		MappedShapefileGeometryCursor cursor = new MappedShapefileGeometryCursor(shpFile);
+		ShapefileRecord record = new ShapefileRecord();
+		double area = 0;
+		try {
+			while (cursor.nextRecord(record)) {
+				area += record.calculateArea2D();
+			}
+		} finally {
+			cursor.close();
+		}
+		count(counters);
+		return area;
+	}
+
+	private void count(Counters counters) {
+		counters.records += records;
+		counters.bytes += shpFile.length();
+	}
+}
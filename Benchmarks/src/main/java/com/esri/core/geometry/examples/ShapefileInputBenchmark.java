@@ -0,0 +1,178 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.core.geometry.Geometry;
+
+/**
+ * Reads every record header, part index and coordinate of a generated polygon shapefile of about 4M vertices, with
+ * the buffered {@link ShapefileInput} and with the per-byte stream it replaced, kept here as {@link LegacyStream}.
+ * The legacy stream is run over the bare FileInputStream, as ShapefileGeometryCursor(File) used it, and over a
+ * BufferedInputStream, which separates the cost of the system calls from the cost of the per-byte decoding.
+ * The score is the time to read the whole file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShapefileInputBenchmark {
+
+	@Param({ "8", "128" })
+	public int verticesPerRecord;
+
+	File shpFile;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		int records = ShapefileDecodeBenchmark.TOTAL_VERTICES / verticesPerRecord;
+		shpFile = DataGenerator.writeShapefile(DataGenerator.temporaryShapefile("input"), Geometry.Type.Polygon,
+				records, verticesPerRecord, DataGenerator.SEED);
+	}
+
+	@Benchmark
+	public double legacyStream() throws IOException {
+		LegacyStream in = new LegacyStream(new FileInputStream(shpFile));
+		try {
+			return readLegacy(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Benchmark
+	public double legacyBufferedStream() throws IOException {
+		LegacyStream in = new LegacyStream(new BufferedInputStream(new FileInputStream(shpFile), 1 << 16));
+		try {
+			return readLegacy(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Benchmark
+	public double shapefileInput() throws IOException {
+		ShapefileInput in = new ShapefileInput(new FileInputStream(shpFile).getChannel());
+		try {
+			in.skipFully(ShapefileHeader.LENGTH);
+			long remaining = shpFile.length() - ShapefileHeader.LENGTH;
+			double sum = 0;
+			int[] parts = new int[16];
+			double[] xy = new double[256];
+			while (remaining > 0) {
+				in.readBigEndianInt(); //record number
+				remaining -= 8 + 2L * in.readBigEndianInt();
+				in.readLittleEndianInt(); //shape type
+				in.skipFully(32); //box
+				int partCount = in.readLittleEndianInt();
+				int pointCount = in.readLittleEndianInt();
+				if (parts.length < partCount) {
+					parts = new int[partCount];
+				}
+				for (int i = 0; i < partCount; i++) {
+					parts[i] = in.readLittleEndianInt();
+				}
+				if (xy.length < 2 * pointCount) {
+					xy = new double[2 * pointCount];
+				}
+				in.readLittleEndianDoubles(xy, 0, 2 * pointCount);
+				for (int i = 0; i < 2 * pointCount; i++) {
+					sum += xy[i];
+				}
+			}
+			return sum;
+		} finally {
+			in.close();
+		}
+	}
+
+	private double readLegacy(LegacyStream in) throws IOException {
+		in.skipBytes(ShapefileHeader.LENGTH);
+		long remaining = shpFile.length() - ShapefileHeader.LENGTH;
+		double sum = 0;
+		int[] parts = new int[16];
+		while (remaining > 0) {
+			in.readInt(); //record number
+			remaining -= 8 + 2L * in.readInt();
+			in.readLittleEndianInt(); //shape type
+			in.skipBytes(32); //box
+			int partCount = in.readLittleEndianInt();
+			int pointCount = in.readLittleEndianInt();
+			if (parts.length < partCount) {
+				parts = new int[partCount];
+			}
+			for (int i = 0; i < partCount; i++) {
+				parts[i] = in.readLittleEndianInt();
+			}
+			for (int i = 0; i < 2 * pointCount; i++) {
+				sum += in.readLittleEndianDouble();
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * The reader of ShapefileGeometryCursor before ShapefileInput, which decoded little-endian values byte by byte.
+	 */
+	static final class LegacyStream extends DataInputStream {
+		private final byte[] readBuffer = new byte[8];
+
+		LegacyStream(InputStream in) {
+			super(in);
+		}
+
+		int readLittleEndianInt() throws IOException {
+			int ch4 = in.read();
+			int ch3 = in.read();
+			int ch2 = in.read();
+			int ch1 = in.read();
+			if ((ch1 | ch2 | ch3 | ch4) < 0) {
+				throw new EOFException();
+			}
+			return ((ch1 << 24) + (ch2 << 16) + (ch3 << 8) + (ch4));
+		}
+
+		double readLittleEndianDouble() throws IOException {
+			readFully(readBuffer, 0, 8);
+			return Double.longBitsToDouble(((long) readBuffer[7] << 56) + ((long) (readBuffer[6] & 255) << 48)
+					+ ((long) (readBuffer[5] & 255) << 40) + ((long) (readBuffer[4] & 255) << 32)
+					+ ((long) (readBuffer[3] & 255) << 24) + ((readBuffer[2] & 255) << 16)
+					+ ((readBuffer[1] & 255) << 8) + ((readBuffer[0] & 255)));
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.OperatorSimplifyOGC;
+import com.esri.core.geometry.Polygon;
+
+/**
+ * OperatorSimplifyOGC on one generated polygon, simple or self intersecting, as done by OperatorSimplifyOGCTest.
+ * The 1M vertex runs take seconds per call; restrict them with -p vertices=1000,10000 for a quick run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimplifyOGCBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int vertices;
+
+	@Param({ "true", "false" })
+	public boolean simple;
+
+	Polygon polygon;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		Random random = new Random(DataGenerator.SEED);
+		polygon = simple ? DataGenerator.starPolygon(random, 0, 0, 1000, vertices)
+				: DataGenerator.selfIntersectingPolygon(random, 0, 0, 1000, vertices);
+	}
+
+	@Benchmark
+	public boolean isSimpleOGC() {
+		return OperatorSimplifyOGC.local().isSimpleOGC(polygon, null, true, null, null);
+	}
+
+	@Benchmark
+	public Geometry execute() {
+		return OperatorSimplifyOGC.local().execute(polygon, null, true, null);
+	}
+}
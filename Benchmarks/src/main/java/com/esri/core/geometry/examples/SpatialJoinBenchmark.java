@@ -0,0 +1,124 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.OperatorContains;
+import com.esri.core.geometry.Point;
+import com.esri.core.geometry.Polygon;
+import com.esri.core.geometry.SimpleGeometryCursor;
+
+/**
+ * Point in polygon join of random points with 1000 polygons of 256 vertices on a grid: SpatialJoin with each
+ * acceleration degree, applied to every polygon (testsBeforeAcceleration = 0) or to the polygons tested 64 times,
+ * against the nested loop over OperatorContains. Each polygon is tested against about 26 points per 20k points.
+ * Time per join.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpatialJoinBenchmark {
+
+	static final int POLYGONS = 1000;
+	static final int VERTICES = 256;
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	@Param({ "20000", "200000" })
+	public int points;
+
+	@Param({ "none", "enumMild", "enumMedium" })
+	public String acceleration;
+
+	@Param({ "0", "64" })
+	public int testsBeforeAcceleration;
+
+	Polygon[] polygons;
+	Point[] pointArray;
+	ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(DataGenerator.SEED);
+		int columns = (int) Math.ceil(Math.sqrt(POLYGONS));
+		polygons = new Polygon[POLYGONS];
+		for (int i = 0; i < POLYGONS; i++) {
+			polygons[i] = DataGenerator.starPolygon(random, (i % columns) * 10, (i / columns) * 10, 6, VERTICES);
+		}
+		pointArray = new Point[points];
+		for (int i = 0; i < points; i++) {
+			pointArray[i] = new Point(10 * columns * random.nextDouble() - 5, 10 * columns * random.nextDouble() - 5);
+		}
+		executor = Executors.newFixedThreadPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Joins copies of the polygons, as acceleration is part of the cost of the join.
+	 */
+	@Benchmark
+	public IntPairBuffer spatialJoin() {
+		Geometry[] left = new Geometry[POLYGONS];
+		for (int i = 0; i < POLYGONS; i++) {
+			left[i] = polygons[i].copy();
+		}
+		SpatialJoin join = new SpatialJoin(executor, null, SpatialJoin.Predicate.CONTAINS);
+		join.setAcceleration(
+				acceleration.equals("none") ? null : Geometry.GeometryAccelerationDegree.valueOf(acceleration),
+				testsBeforeAcceleration);
+		return join.execute(new SimpleGeometryCursor(left), new SimpleGeometryCursor(pointArray));
+	}
+
+	@Benchmark
+	public IntPairBuffer nestedLoop() {
+		IntPairBuffer pairs = new IntPairBuffer();
+		OperatorContains contains = OperatorContains.local();
+		for (int r = 0; r < points; r++) {
+			for (int l = 0; l < POLYGONS; l++) {
+				if (contains.execute(polygons[l], pointArray[r], null, null)) {
+					pairs.add(l, r);
+				}
+			}
+		}
+		return pairs;
+	}
+}
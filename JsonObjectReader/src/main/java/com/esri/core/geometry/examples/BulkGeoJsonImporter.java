@@ -0,0 +1,234 @@
+/*
+    Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import org.json.JSONObject;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.GeometryCursor;
+import com.esri.core.geometry.JsonReader;
+import com.esri.core.geometry.MapGeometry;
+import com.esri.core.geometry.OperatorImportFromGeoJson;
+
+/**
+ * Sample that imports a batch of GeoJSON geometries in parallel.
+ * The items, JSONObject instances or raw JSON strings, are split into chunks that run as tasks on the
+ * given Executor, for instance a fixed thread pool, a ForkJoinPool or, on Java 21, a virtual thread per task executor.
+ * Each item is imported with its own JsonReader: a JsonObjectReader for a JSONObject, and a StreamingJsonReader
+ * for a string, so that no JSONObject tree has to be built for it.
+ *
+ * The result keeps the input order. An item that fails to import does not fail the batch: its geometry is null
+ * and the exception or error is kept for that item.
+ */
+public final class BulkGeoJsonImporter {
+
+	static final int DEFAULT_CHUNK_SIZE = 64;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final Executor m_executor;
+	private final int m_importFlags;
+	private final Geometry.Type m_type;
+	private final int m_chunkSize;
+
+	/**
+	 * @param executor runs the import tasks. It is not shut down by the importer.
+	 */
+	public BulkGeoJsonImporter(Executor executor) {
+		this(executor, 0, Geometry.Type.Unknown, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param importFlags GeoJsonImportFlags passed to OperatorImportFromGeoJson
+	 * @param type the expected geometry type, or Unknown
+	 * @param chunkSize the number of items imported by one task
+	 */
+	public BulkGeoJsonImporter(Executor executor, int importFlags, Geometry.Type type, int chunkSize) {
+		if (executor == null || type == null || chunkSize < 1) {
+			throw new IllegalArgumentException();
+		}
+
+		m_executor = executor;
+		m_importFlags = importFlags;
+		m_type = type;
+		m_chunkSize = chunkSize;
+	}
+
+	public Result importAll(Iterable<?> items) throws InterruptedException {
+		return importAll(items.iterator());
+	}
+
+	/**
+	 * Imports every item and waits for all of them to complete.
+	 *
+	 * @param items JSONObject instances or JSON strings
+	 */
+	public Result importAll(Iterator<?> items) throws InterruptedException {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		Semaphore completed = new Semaphore(0);
+
+		int count = 0;
+		while (items.hasNext()) {
+			Chunk chunk = new Chunk(count, m_chunkSize, completed);
+			while (chunk.m_size < m_chunkSize && items.hasNext()) {
+				chunk.m_items[chunk.m_size++] = items.next();
+			}
+			count += chunk.m_size;
+			chunks.add(chunk);
+			m_executor.execute(chunk);
+		}
+
+		// the release of each chunk makes its results visible to this thread
+		completed.acquire(chunks.size());
+
+		MapGeometry[] geometries = new MapGeometry[count];
+		Throwable[] errors = new Throwable[count];
+		int errorCount = 0;
+		for (Chunk chunk : chunks) {
+			System.arraycopy(chunk.m_geometries, 0, geometries, chunk.m_start, chunk.m_size);
+			System.arraycopy(chunk.m_errors, 0, errors, chunk.m_start, chunk.m_size);
+			errorCount += chunk.m_errorCount;
+		}
+
+		return new Result(geometries, errors, errorCount);
+	}
+
+	MapGeometry importItem(Object item) {
+		JsonReader reader;
+		if (item instanceof JSONObject) {
+			reader = new JsonObjectReader(item);
+		} else if (item instanceof String) {
+			reader = new StreamingJsonReader(((String) item).getBytes(UTF8));
+		} else {
+			throw new IllegalArgumentException("JSONObject or String expected");
+		}
+
+		return OperatorImportFromGeoJson.local().execute(m_importFlags, m_type, reader, null);
+	}
+
+	private final class Chunk implements Runnable {
+
+		final int m_start;
+		final Object[] m_items;
+		final MapGeometry[] m_geometries;
+		final Throwable[] m_errors;
+		final Semaphore m_completed;
+		int m_size;
+		int m_errorCount;
+
+		Chunk(int start, int capacity, Semaphore completed) {
+			m_start = start;
+			m_items = new Object[capacity];
+			m_geometries = new MapGeometry[capacity];
+			m_errors = new Throwable[capacity];
+			m_completed = completed;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < m_size; i++) {
+					try {
+						m_geometries[i] = importItem(m_items[i]);
+					} catch (Throwable e) {
+						// errors too, such as the StackOverflowError of a deeply nested item, belong to the item
+						m_errors[i] = e;
+						m_errorCount++;
+					}
+					m_items[i] = null;
+				}
+			} finally {
+				m_completed.release();
+			}
+		}
+	}
+
+	/**
+	 * The geometries of a batch, in input order.
+	 */
+	public static final class Result {
+
+		private final MapGeometry[] m_geometries;
+		private final Throwable[] m_errors;
+		private final int m_errorCount;
+
+		Result(MapGeometry[] geometries, Throwable[] errors, int errorCount) {
+			m_geometries = geometries;
+			m_errors = errors;
+			m_errorCount = errorCount;
+		}
+
+		public int size() {
+			return m_geometries.length;
+		}
+
+		/**
+		 * @return the geometry of each item, with null for the items that failed
+		 */
+		public MapGeometry[] getGeometries() {
+			return Arrays.copyOf(m_geometries, m_geometries.length);
+		}
+
+		public MapGeometry getGeometry(int index) {
+			return m_geometries[index];
+		}
+
+		/**
+		 * @return the exception or error thrown by the import of the item, or null if it succeeded
+		 */
+		public Throwable getError(int index) {
+			return m_errors[index];
+		}
+
+		public int getErrorCount() {
+			return m_errorCount;
+		}
+
+		/**
+		 * @return a cursor over the imported geometries. The ID of a geometry is the index of its item,
+		 *         so the items that failed show up as gaps.
+		 */
+		public GeometryCursor cursor() {
+			return new GeometryCursor() {
+				private int m_index = -1;
+
+				@Override
+				public Geometry next() {
+					while (++m_index < m_geometries.length) {
+						if (m_geometries[m_index] != null) {
+							return m_geometries[m_index].getGeometry();
+						}
+					}
+
+					m_index = m_geometries.length;
+					return null;
+				}
+
+				@Override
+				public int getGeometryID() {
+					return m_index;
+				}
+			};
+		}
+	}
+}
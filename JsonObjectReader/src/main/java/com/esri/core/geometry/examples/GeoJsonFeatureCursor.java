@@ -0,0 +1,225 @@
+/*
+    Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.esri.core.geometry.GeoJsonImportFlags;
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.GeometryCursor;
+import com.esri.core.geometry.GeometryException;
+import com.esri.core.geometry.JsonGeometryException;
+import com.esri.core.geometry.JsonReader;
+import com.esri.core.geometry.OperatorImportFromGeoJson;
+
+/**
+ * Sample GeometryCursor over a GeoJSON FeatureCollection read from an InputStream.
+ * The features are tokenized one at a time with a StreamingJsonReader and each geometry is
+ * imported with OperatorImportFromGeoJson, so only the current feature is ever held in memory,
+ * however large the collection is.
+ *
+ * The properties of a feature are skipped with skipChildren() unless the cursor was created to read them,
+ * in which case they are available as a JSONObject from getProperties() after next().
+ * Features with a null geometry are skipped; getGeometryID() returns the 0 based index of the
+ * feature in the collection, so skipped features show up as gaps.
+ */
+public final class GeoJsonFeatureCursor extends GeometryCursor implements Closeable {
+
+	private final StreamingJsonReader m_reader;
+	private final boolean m_readProperties;
+	private final OperatorImportFromGeoJson m_importer = OperatorImportFromGeoJson.local();
+
+	private boolean m_inFeatures; // positioned inside the features array
+	private boolean m_done;
+	private int m_featureIndex = -1;
+	private JSONObject m_properties;
+
+	public GeoJsonFeatureCursor(InputStream inputStream) {
+		this(inputStream, false);
+	}
+
+	/**
+	 * @param readProperties if true, the properties of each feature are parsed and returned by getProperties()
+	 */
+	public GeoJsonFeatureCursor(InputStream inputStream, boolean readProperties) {
+		m_reader = new StreamingJsonReader(inputStream);
+		m_readProperties = readProperties;
+		if (m_reader.currentToken() != JsonReader.Token.START_OBJECT) {
+			throw new JsonGeometryException("FeatureCollection expected");
+		}
+	}
+
+	@Override
+	public Geometry next() {
+		if (m_done) {
+			return null;
+		}
+
+		if (!m_inFeatures && !seekFeatures()) {
+			m_done = true;
+			return null;
+		}
+
+		JsonReader.Token token;
+		while ((token = m_reader.nextToken()) != JsonReader.Token.END_ARRAY) {
+			if (token != JsonReader.Token.START_OBJECT) {
+				throw new JsonGeometryException("feature expected");
+			}
+			m_featureIndex++;
+			Geometry geometry = readFeature();
+			if (geometry != null) {
+				return geometry;
+			}
+		}
+
+		m_done = true;
+		m_properties = null;
+		return null;
+	}
+
+	@Override
+	public int getGeometryID() {
+		return m_featureIndex;
+	}
+
+	/**
+	 * @return the properties of the current feature, or null if the feature has none or the cursor
+	 *         was created without readProperties
+	 */
+	public JSONObject getProperties() {
+		if (m_featureIndex < 0) {
+			throw new GeometryException("invalid call");
+		}
+
+		return m_properties;
+	}
+
+	@Override
+	public void close() throws IOException {
+		m_done = true;
+		m_reader.close();
+	}
+
+	/**
+	 * Advances to the first element of the top level "features" array, skipping any other member.
+	 */
+	private boolean seekFeatures() {
+		JsonReader.Token token;
+		while ((token = m_reader.nextToken()) == JsonReader.Token.FIELD_NAME) {
+			String fieldName = m_reader.currentString();
+			token = m_reader.nextToken();
+			if (fieldName.equals("features")) {
+				if (token == JsonReader.Token.VALUE_NULL) {
+					return false;
+				}
+				if (token != JsonReader.Token.START_ARRAY) {
+					throw new JsonGeometryException("features must be an array");
+				}
+				m_inFeatures = true;
+				return true;
+			}
+			m_reader.skipChildren();
+		}
+
+		if (token != JsonReader.Token.END_OBJECT) {
+			throw new JsonGeometryException("parsing error");
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the feature the reader is positioned on, leaving the reader on its END_OBJECT.
+	 *
+	 * @return the geometry of the feature, or null for a null geometry
+	 */
+	private Geometry readFeature() {
+		Geometry geometry = null;
+		m_properties = null;
+
+		while (m_reader.nextToken() != JsonReader.Token.END_OBJECT) {
+			String fieldName = m_reader.currentString();
+			JsonReader.Token token = m_reader.nextToken();
+			if (fieldName.equals("geometry")) {
+				if (token == JsonReader.Token.START_OBJECT) {
+					// a crs on each geometry is not part of the spec, and the geometry carries no spatial reference
+					geometry = m_importer.execute(GeoJsonImportFlags.geoJsonImportSkipCRS, Geometry.Type.Unknown,
+							m_reader, null).getGeometry();
+				} else if (token != JsonReader.Token.VALUE_NULL) {
+					throw new JsonGeometryException("geometry must be an object");
+				}
+			} else if (fieldName.equals("properties") && m_readProperties) {
+				if (token == JsonReader.Token.START_OBJECT) {
+					m_properties = readObject();
+				} else if (token != JsonReader.Token.VALUE_NULL) {
+					throw new JsonGeometryException("properties must be an object");
+				}
+			} else {
+				m_reader.skipChildren();
+			}
+		}
+
+		return geometry;
+	}
+
+	private JSONObject readObject() {
+		JSONObject object = new JSONObject();
+		while (m_reader.nextToken() != JsonReader.Token.END_OBJECT) {
+			String key = m_reader.currentString();
+			object.put(key, readValue(m_reader.nextToken()));
+		}
+		return object;
+	}
+
+	private JSONArray readArray() {
+		JSONArray array = new JSONArray();
+		JsonReader.Token token;
+		while ((token = m_reader.nextToken()) != JsonReader.Token.END_ARRAY) {
+			array.put(readValue(token));
+		}
+		return array;
+	}
+
+	private Object readValue(JsonReader.Token token) {
+		switch (token) {
+		case START_OBJECT:
+			return readObject();
+		case START_ARRAY:
+			return readArray();
+		case VALUE_STRING:
+			return m_reader.currentString();
+		case VALUE_NUMBER_INT:
+			try {
+				return m_reader.currentLongValue();
+			} catch (JsonGeometryException e) {
+				return m_reader.currentDoubleValue(); // beyond the range of a long
+			}
+		case VALUE_NUMBER_FLOAT:
+			return m_reader.currentDoubleValue();
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_NULL:
+			return JSONObject.NULL;
+		default:
+			throw new JsonGeometryException("unexpected token");
+		}
+	}
+}
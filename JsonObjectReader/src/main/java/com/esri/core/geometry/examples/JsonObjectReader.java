@@ -14,7 +14,8 @@
  
 package com.esri.core.geometry.examples;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 
 import org.json.*;
 
@@ -31,130 +32,58 @@ import com.esri.core.geometry.JsonReader;
 
 public final class JsonObjectReader implements JsonReader {
 
-	final static class JSONObjectEnumerator {
+	private static final byte OBJECT = 1;
+	private static final byte ARRAY = 2;
 
-		private JSONObject m_jsonObject;
-		private boolean m_bStarted;
-		private int m_currentIndex;
-		private String[] m_keys;
-
-		JSONObjectEnumerator(JSONObject jsonObject) {
-			m_bStarted = false;
-			m_currentIndex = -1;
-			m_jsonObject = jsonObject;
-		}
-
-		String getCurrentKey() {
-			if (!m_bStarted) {
-				throw new GeometryException("invalid call");
-			}
-
-			if (m_currentIndex == m_jsonObject.length()) {
-				throw new GeometryException("invalid call");
-			}
-
-			return m_keys[m_currentIndex];
-		}
-
-		Object getCurrentObject() {
-			if (!m_bStarted) {
-				throw new GeometryException("invalid call");
-			}
-
-			if (m_currentIndex == m_jsonObject.length()) {
-				throw new GeometryException("invalid call");
-			}
-
-			return m_jsonObject.opt(m_keys[m_currentIndex]);
-		}
-
-		boolean next() {
-			if (!m_bStarted) {
-				m_currentIndex = 0;
-				m_keys = JSONObject.getNames(m_jsonObject);
-				m_bStarted = true;
-			} else if (m_currentIndex != m_jsonObject.length()) {
-				m_currentIndex++;
-			}
-
-			return m_currentIndex != m_jsonObject.length();
-		}
-	}
-
-	final static class JSONArrayEnumerator {
-
-		private JSONArray m_jsonArray;
-		private boolean m_bStarted;
-		private int m_currentIndex;
-
-		JSONArrayEnumerator(JSONArray jsonArray) {
-			m_bStarted = false;
-			m_currentIndex = -1;
-			m_jsonArray = jsonArray;
-		}
-
-		Object getCurrentObject() {
-			if (!m_bStarted) {
-				throw new GeometryException("invalid call");
-			}
-
-			if (m_currentIndex == m_jsonArray.length()) {
-				throw new GeometryException("invalid call");
-			}
-
-			return m_jsonArray.opt(m_currentIndex);
-		}
-
-		boolean next() {
-			if (!m_bStarted) {
-				m_currentIndex = 0;
-				m_bStarted = true;
-			} else if (m_currentIndex != m_jsonArray.length()) {
-				m_currentIndex++;
-			}
-
-			return m_currentIndex != m_jsonArray.length();
-		}
-	}
-	
 	private Object m_object;
 	private JsonReader.Token m_currentToken;
-	private ArrayList<JsonReader.Token> m_parentStack;
-	private ArrayList<JSONObjectEnumerator> m_objIters;
-	private ArrayList<JSONArrayEnumerator> m_arrIters;
+	private Object m_currentValue; // value of the current token, or the container of a START token
+	private String m_currentKey;
+
+	// Frame stack, indexed by depth. A frame is only pushed when the reader moves past the START token
+	// of a container, so skipping a container is O(1) and never enumerates it.
+	// The arrays are reused as frames are pushed and popped, so traversal does not allocate per container.
+	private byte[] m_kinds = new byte[8];
+	private Object[] m_containers = new Object[8];
+	private String[][] m_keys = new String[8][]; // key buffer of each depth, reused by the objects at that depth
+	private int[] m_keyCounts = new int[8]; // -1 until the keys of the object frame are listed
+	private int[] m_indices = new int[8];
+	private int m_depth;
 
 	public JsonObjectReader(Object object) {
 		m_object = object;
 
-		boolean bJSONObject = (m_object instanceof JSONObject);
-		boolean bJSONArray = (m_object instanceof JSONArray);
-
-		if (!bJSONObject && !bJSONArray) {
+		if (m_object instanceof JSONObject) {
+			m_currentToken = JsonReader.Token.START_OBJECT;
+		} else if (m_object instanceof JSONArray) {
+			m_currentToken = JsonReader.Token.START_ARRAY;
+		} else {
 			throw new IllegalArgumentException();
 		}
 
-		m_parentStack = new ArrayList<JsonReader.Token>(0);
-		m_objIters = new ArrayList<JSONObjectEnumerator>(0);
-		m_arrIters = new ArrayList<JSONArrayEnumerator>(0);
+		m_currentValue = m_object;
+	}
 
-		m_parentStack.ensureCapacity(4);
-		m_objIters.ensureCapacity(4);
-		m_arrIters.ensureCapacity(4);
+	private void setCurrentToken_(Object obj) {
+		m_currentValue = obj;
 
-		if (bJSONObject) {
-			JSONObjectEnumerator objIter = new JSONObjectEnumerator((JSONObject) m_object);
-			m_parentStack.add(JsonReader.Token.START_OBJECT);
-			m_objIters.add(objIter);
-			m_currentToken = JsonReader.Token.START_OBJECT;
-		} else {
-			JSONArrayEnumerator arrIter = new JSONArrayEnumerator((JSONArray) m_object);
-			m_parentStack.add(JsonReader.Token.START_ARRAY);
-			m_arrIters.add(arrIter);
+		// JSONObject stores numbers as Integer, Long or Double, which are final classes:
+		// one class comparison settles the common cases, notably coordinates.
+		Class<?> type = obj == null ? null : obj.getClass();
+		if (type == Double.class) {
+			m_currentToken = JsonReader.Token.VALUE_NUMBER_FLOAT;
+		} else if (type == Integer.class || type == Long.class) {
+			m_currentToken = JsonReader.Token.VALUE_NUMBER_INT;
+		} else if (type == JSONArray.class) {
 			m_currentToken = JsonReader.Token.START_ARRAY;
+		} else if (type == String.class) {
+			m_currentToken = JsonReader.Token.VALUE_STRING;
+		} else {
+			setOtherToken_(obj);
 		}
 	}
 
-	private void setCurrentToken_(Object obj) {
+	private void setOtherToken_(Object obj) {
 		if (obj instanceof String) {
 			m_currentToken = JsonReader.Token.VALUE_STRING;
 		} else if (obj instanceof Double || obj instanceof Float) {
@@ -178,75 +107,93 @@ public final class JsonObjectReader implements JsonReader {
 		}
 	}
 
-	Object currentObject_() {
-		assert (!m_parentStack.isEmpty());
+	private void push_(byte kind, Object container) {
+		if (m_depth == m_kinds.length) {
+			int capacity = m_depth * 2;
+			m_kinds = Arrays.copyOf(m_kinds, capacity);
+			m_containers = Arrays.copyOf(m_containers, capacity);
+			m_keys = Arrays.copyOf(m_keys, capacity);
+			m_keyCounts = Arrays.copyOf(m_keyCounts, capacity);
+			m_indices = Arrays.copyOf(m_indices, capacity);
+		}
+
+		m_kinds[m_depth] = kind;
+		m_containers[m_depth] = container;
+		m_keyCounts[m_depth] = -1;
+		m_indices[m_depth] = -1;
+		m_depth++;
+	}
 
-		JsonReader.Token parentType = m_parentStack.get(m_parentStack.size() - 1);
+	private void pop_() {
+		m_depth--;
+		m_containers[m_depth] = null;
+	}
 
-		if (parentType == JsonReader.Token.START_OBJECT) {
-			JSONObjectEnumerator objIter = m_objIters.get(m_objIters.size() - 1);
-			return objIter.getCurrentObject();
+	/**
+	 * Lists the keys of the object at the top of the stack into the key buffer of its depth.
+	 */
+	private void listKeys_(int top, JSONObject jsonObject) {
+		int count = jsonObject.length();
+		String[] keys = m_keys[top];
+		if (keys == null || keys.length < count) {
+			keys = new String[Math.max(count, 4)];
+			m_keys[top] = keys;
 		}
 
-		JSONArrayEnumerator arrIter = m_arrIters.get(m_arrIters.size() - 1);
-		return arrIter.getCurrentObject();
+		Iterator<?> iterator = jsonObject.keys();
+		for (int i = 0; i < count; i++) {
+			keys[i] = (String) iterator.next();
+		}
+
+		m_keyCounts[top] = count;
 	}
 
 	@Override
 	public JsonReader.Token nextToken() throws JsonGeometryException {
-		if (m_parentStack.isEmpty()) {
+		if (m_currentToken == JsonReader.Token.START_OBJECT) {
+			push_(OBJECT, m_currentValue);
+		} else if (m_currentToken == JsonReader.Token.START_ARRAY) {
+			push_(ARRAY, m_currentValue);
+		}
+
+		if (m_depth == 0) {
 			m_currentToken = null;
+			m_currentValue = null;
 			return m_currentToken;
 		}
 
-		JsonReader.Token parentType = m_parentStack.get(m_parentStack.size() - 1);
+		int top = m_depth - 1;
 
-		if (parentType == JsonReader.Token.START_OBJECT) {
-			JSONObjectEnumerator iterator = m_objIters.get(m_objIters.size() - 1);
+		if (m_kinds[top] == OBJECT) {
+			JSONObject jsonObject = (JSONObject) m_containers[top];
 
 			if (m_currentToken == JsonReader.Token.FIELD_NAME) {
-				Object nextJSONValue = iterator.getCurrentObject();
-
-				if (nextJSONValue instanceof JSONObject) {
-					m_parentStack.add(JsonReader.Token.START_OBJECT);
-					m_objIters.add(new JSONObjectEnumerator((JSONObject) nextJSONValue));
-					m_currentToken = JsonReader.Token.START_OBJECT;
-				} else if (nextJSONValue instanceof JSONArray) {
-					m_parentStack.add(JsonReader.Token.START_ARRAY);
-					m_arrIters.add(new JSONArrayEnumerator((JSONArray) nextJSONValue));
-					m_currentToken = JsonReader.Token.START_ARRAY;
-				} else {
-					setCurrentToken_(nextJSONValue);
-				}
+				setCurrentToken_(jsonObject.opt(m_currentKey));
 			} else {
-				if (iterator.next()) {
+				if (m_keyCounts[top] < 0) {
+					listKeys_(top, jsonObject);
+				}
+
+				int index = ++m_indices[top];
+				if (index < m_keyCounts[top]) {
+					m_currentKey = m_keys[top][index];
+					m_currentValue = null;
 					m_currentToken = JsonReader.Token.FIELD_NAME;
 				} else {
-					m_objIters.remove(m_objIters.size() - 1);
-					m_parentStack.remove(m_parentStack.size() - 1);
+					pop_();
+					m_currentValue = null;
 					m_currentToken = JsonReader.Token.END_OBJECT;
 				}
 			}
 		} else {
-			assert (parentType == JsonReader.Token.START_ARRAY);
-			JSONArrayEnumerator iterator = m_arrIters.get(m_arrIters.size() - 1);
-			if (iterator.next()) {
-				Object nextJSONValue = iterator.getCurrentObject();
-
-				if (nextJSONValue instanceof JSONObject) {
-					m_parentStack.add(JsonReader.Token.START_OBJECT);
-					m_objIters.add(new JSONObjectEnumerator((JSONObject) nextJSONValue));
-					m_currentToken = JsonReader.Token.START_OBJECT;
-				} else if (nextJSONValue instanceof JSONArray) {
-					m_parentStack.add(JsonReader.Token.START_ARRAY);
-					m_arrIters.add(new JSONArrayEnumerator((JSONArray) nextJSONValue));
-					m_currentToken = JsonReader.Token.START_ARRAY;
-				} else {
-					setCurrentToken_(nextJSONValue);
-				}
+			JSONArray jsonArray = (JSONArray) m_containers[top];
+
+			int index = ++m_indices[top];
+			if (index < jsonArray.length()) {
+				setCurrentToken_(jsonArray.opt(index));
 			} else {
-				m_arrIters.remove(m_arrIters.size() - 1);
-				m_parentStack.remove(m_parentStack.size() - 1);
+				pop_();
+				m_currentValue = null;
 				m_currentToken = JsonReader.Token.END_ARRAY;
 			}
 		}
@@ -261,36 +208,27 @@ public final class JsonObjectReader implements JsonReader {
 
 	@Override
 	public void skipChildren() throws JsonGeometryException {
-		assert (!m_parentStack.isEmpty());
-
-		if (m_currentToken != JsonReader.Token.START_OBJECT && m_currentToken != JsonReader.Token.START_ARRAY) {
-			return;
-		}
-
-		JsonReader.Token parentType = m_parentStack.get(m_parentStack.size() - 1);
-
-		if (parentType == JsonReader.Token.START_OBJECT) {
-			m_objIters.remove(m_objIters.size() - 1);
-			m_parentStack.remove(m_parentStack.size() - 1);
+		// The container of the current START token has no frame yet, so there is nothing to pop.
+		if (m_currentToken == JsonReader.Token.START_OBJECT) {
 			m_currentToken = JsonReader.Token.END_OBJECT;
-		} else {
-			m_arrIters.remove(m_arrIters.size() - 1);
-			m_parentStack.remove(m_parentStack.size() - 1);
+			m_currentValue = null;
+		} else if (m_currentToken == JsonReader.Token.START_ARRAY) {
 			m_currentToken = JsonReader.Token.END_ARRAY;
+			m_currentValue = null;
 		}
 	}
 
 	@Override
 	public String currentString() throws JsonGeometryException {
 		if (m_currentToken == JsonReader.Token.FIELD_NAME) {
-			return m_objIters.get(m_objIters.size() - 1).getCurrentKey();
+			return m_currentKey;
 		}
 
 		if (m_currentToken != JsonReader.Token.VALUE_STRING) {
 			throw new GeometryException("invalid call");
 		}
 
-		return ((String) currentObject_()).toString();
+		return (String) m_currentValue;
 	}
 
 	@Override
@@ -299,7 +237,7 @@ public final class JsonObjectReader implements JsonReader {
 			throw new GeometryException("invalid call");
 		}
 
-		return ((Number) currentObject_()).doubleValue();
+		return ((Number) m_currentValue).doubleValue();
 	}
 
 	@Override
@@ -308,7 +246,7 @@ public final class JsonObjectReader implements JsonReader {
 			throw new GeometryException("invalid call");
 		}
 
-		return ((Number) currentObject_()).intValue();
+		return ((Number) m_currentValue).intValue();
 	}
 
 	@Override
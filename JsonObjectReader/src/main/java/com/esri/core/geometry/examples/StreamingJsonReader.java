@@ -0,0 +1,629 @@
+/*
+    Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import com.esri.core.geometry.GeometryException;
+import com.esri.core.geometry.JsonGeometryException;
+import com.esri.core.geometry.JsonReader;
+
+/**
+ * Sample implementation of a JsonReader that tokenizes UTF-8 JSON straight from bytes.
+ * Unlike JsonObjectReader no JSONObject tree is built: numbers are parsed into primitives,
+ * strings are only turned into String instances when asked for, and skipChildren() scans past a subtree
+ * without tokenizing it. Memory use is bounded by the read buffer and the longest string or number,
+ * so large documents can be passed to OperatorImportFromGeoJson from an InputStream.
+ *
+ * Like JsonObjectReader, the reader is positioned on the first token once constructed.
+ */
+public final class StreamingJsonReader implements JsonReader, Closeable {
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private static final byte OBJECT = 1;
+	private static final byte ARRAY = 2;
+
+	// powers of ten that are exact as doubles
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	// input
+	private final InputStream m_inputStream;
+	private final ByteBuffer m_byteBuffer;
+	private byte[] m_buf;
+	private int m_pos;
+	private int m_limit;
+	private long m_consumed; // bytes before m_buf[0], for error messages
+
+	// container stack
+	private byte[] m_stack = new byte[16];
+	private int m_depth;
+	private boolean m_afterOpen; // the innermost container has just been opened
+	private boolean m_started;
+
+	private JsonReader.Token m_currentToken;
+
+	// current string or field name
+	private char[] m_chars = new char[64];
+	private int m_charCount;
+
+	// current number
+	private byte[] m_numberBytes = new byte[32];
+	private int m_numberLength;
+	private long m_mantissa;
+	private int m_significantDigits;
+	private int m_exponent; // power of ten applied to the mantissa
+	private boolean m_negative;
+
+	public StreamingJsonReader(byte[] bytes) {
+		this(bytes, 0, bytes.length);
+	}
+
+	public StreamingJsonReader(byte[] bytes, int offset, int length) {
+		m_inputStream = null;
+		m_byteBuffer = null;
+		m_buf = bytes;
+		m_pos = offset;
+		m_limit = offset + length;
+		m_consumed = -offset;
+		nextToken();
+	}
+
+	/**
+	 * Reads from the position to the limit of the buffer, without changing them.
+	 */
+	public StreamingJsonReader(ByteBuffer byteBuffer) {
+		m_inputStream = null;
+		if (byteBuffer.hasArray()) {
+			m_byteBuffer = null;
+			m_buf = byteBuffer.array();
+			m_pos = byteBuffer.arrayOffset() + byteBuffer.position();
+			m_limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+			m_consumed = -m_pos;
+		} else {
+			m_byteBuffer = byteBuffer.duplicate();
+			m_buf = new byte[DEFAULT_BUFFER_SIZE];
+		}
+		nextToken();
+	}
+
+	public StreamingJsonReader(InputStream inputStream) {
+		this(inputStream, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * The stream is read in chunks of bufferSize bytes, so it does not need to be buffered.
+	 */
+	public StreamingJsonReader(InputStream inputStream, int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		m_inputStream = inputStream;
+		m_byteBuffer = null;
+		m_buf = new byte[bufferSize];
+		nextToken();
+	}
+
+	@Override
+	public JsonReader.Token nextToken() throws JsonGeometryException {
+		if (m_depth == 0) {
+			if (m_started) {
+				m_currentToken = null;
+				return null;
+			}
+			m_started = true;
+			int c = skipWhitespace();
+			if (c < 0) {
+				m_currentToken = null;
+				return null;
+			}
+			return readValue(c);
+		}
+
+		int c = skipWhitespace();
+		if (m_stack[m_depth - 1] == OBJECT) {
+			if (m_currentToken == JsonReader.Token.FIELD_NAME) {
+				if (c != ':') {
+					throw unexpected(c);
+				}
+				return readValue(skipWhitespace());
+			}
+
+			if (m_afterOpen) {
+				m_afterOpen = false;
+				if (c == '}') {
+					return endContainer(OBJECT, JsonReader.Token.END_OBJECT);
+				}
+			} else {
+				if (c == '}') {
+					return endContainer(OBJECT, JsonReader.Token.END_OBJECT);
+				}
+				if (c != ',') {
+					throw unexpected(c);
+				}
+				c = skipWhitespace();
+			}
+
+			if (c != '"') {
+				throw unexpected(c);
+			}
+			readString();
+			m_currentToken = JsonReader.Token.FIELD_NAME;
+			return m_currentToken;
+		}
+
+		if (m_afterOpen) {
+			m_afterOpen = false;
+			if (c == ']') {
+				return endContainer(ARRAY, JsonReader.Token.END_ARRAY);
+			}
+		} else {
+			if (c == ']') {
+				return endContainer(ARRAY, JsonReader.Token.END_ARRAY);
+			}
+			if (c != ',') {
+				throw unexpected(c);
+			}
+			c = skipWhitespace();
+		}
+		return readValue(c);
+	}
+
+	@Override
+	public JsonReader.Token currentToken() throws JsonGeometryException {
+		return m_currentToken;
+	}
+
+	/**
+	 * Skips to the end of the current object or array, scanning the bytes of the subtree without tokenizing them.
+	 */
+	@Override
+	public void skipChildren() throws JsonGeometryException {
+		if (m_currentToken != JsonReader.Token.START_OBJECT && m_currentToken != JsonReader.Token.START_ARRAY) {
+			return;
+		}
+
+		int nesting = 1;
+		while (nesting > 0) {
+			int c = read();
+			switch (c) {
+			case -1:
+				throw new JsonGeometryException("unexpected end of input");
+			case '"':
+				skipString();
+				break;
+			case '{':
+			case '[':
+				nesting++;
+				break;
+			case '}':
+			case ']':
+				nesting--;
+				break;
+			default:
+				break;
+			}
+		}
+
+		if (m_currentToken == JsonReader.Token.START_OBJECT) {
+			endContainer(OBJECT, JsonReader.Token.END_OBJECT);
+		} else {
+			endContainer(ARRAY, JsonReader.Token.END_ARRAY);
+		}
+	}
+
+	@Override
+	public String currentString() throws JsonGeometryException {
+		if (m_currentToken != JsonReader.Token.FIELD_NAME && m_currentToken != JsonReader.Token.VALUE_STRING) {
+			throw new GeometryException("invalid call");
+		}
+
+		return new String(m_chars, 0, m_charCount);
+	}
+
+	@Override
+	public double currentDoubleValue() throws JsonGeometryException {
+		if (m_currentToken != JsonReader.Token.VALUE_NUMBER_FLOAT && m_currentToken != JsonReader.Token.VALUE_NUMBER_INT) {
+			throw new GeometryException("invalid call");
+		}
+
+		// exact when both the mantissa and the power of ten are exact doubles
+		if (m_significantDigits <= 15 && m_exponent >= -22 && m_exponent <= 22) {
+			double value = m_exponent < 0 ? m_mantissa / POWERS_OF_TEN[-m_exponent] : m_mantissa
+					* POWERS_OF_TEN[m_exponent];
+			return m_negative ? -value : value;
+		}
+
+		return Double.parseDouble(new String(m_numberBytes, 0, m_numberLength, ASCII));
+	}
+
+	/**
+	 * Truncates the current integer like Number.intValue() does for the Long values of a JsonObjectReader.
+	 *
+	 * @throws JsonGeometryException if the integer is out of the range of a long
+	 */
+	@Override
+	public int currentIntValue() throws JsonGeometryException {
+		return (int) currentLongValue();
+	}
+
+	/**
+	 * Returns the current integer exactly, where currentDoubleValue() rounds integers above 2^53.
+	 * Up to 18 significant digits the mantissa holds the value; longer integers are parsed from their text.
+	 *
+	 * @throws JsonGeometryException if the integer is out of the range of a long
+	 */
+	public long currentLongValue() throws JsonGeometryException {
+		if (m_currentToken != JsonReader.Token.VALUE_NUMBER_INT) {
+			throw new GeometryException("invalid call");
+		}
+
+		if (m_significantDigits > 18) {
+			String text = new String(m_numberBytes, 0, m_numberLength, ASCII);
+			try {
+				return Long.parseLong(text);
+			} catch (NumberFormatException e) {
+				throw new JsonGeometryException("integer out of range: " + text);
+			}
+		}
+
+		return m_negative ? -m_mantissa : m_mantissa;
+	}
+
+	@Override
+	public boolean currentBooleanValue() throws JsonGeometryException {
+		if (m_currentToken == JsonReader.Token.VALUE_TRUE) {
+			return true;
+		}
+		else if (m_currentToken == JsonReader.Token.VALUE_FALSE) {
+			return false;
+		}
+		throw new GeometryException("invalid call");
+	}
+
+	/**
+	 * Closes the input stream, if the reader was created with one.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (m_inputStream != null) {
+			m_inputStream.close();
+		}
+	}
+
+	private JsonReader.Token readValue(int c) {
+		switch (c) {
+		case '{':
+			push(OBJECT);
+			m_currentToken = JsonReader.Token.START_OBJECT;
+			break;
+		case '[':
+			push(ARRAY);
+			m_currentToken = JsonReader.Token.START_ARRAY;
+			break;
+		case '"':
+			readString();
+			m_currentToken = JsonReader.Token.VALUE_STRING;
+			break;
+		case 't':
+			expectLiteral("rue");
+			m_currentToken = JsonReader.Token.VALUE_TRUE;
+			break;
+		case 'f':
+			expectLiteral("alse");
+			m_currentToken = JsonReader.Token.VALUE_FALSE;
+			break;
+		case 'n':
+			expectLiteral("ull");
+			m_currentToken = JsonReader.Token.VALUE_NULL;
+			break;
+		default:
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				m_currentToken = readNumber(c);
+			} else {
+				throw unexpected(c);
+			}
+			break;
+		}
+		return m_currentToken;
+	}
+
+	private void push(byte container) {
+		if (m_depth == m_stack.length) {
+			m_stack = Arrays.copyOf(m_stack, 2 * m_depth);
+		}
+		m_stack[m_depth++] = container;
+		m_afterOpen = true;
+	}
+
+	private JsonReader.Token endContainer(byte container, JsonReader.Token token) {
+		if (m_depth == 0 || m_stack[m_depth - 1] != container) {
+			throw new JsonGeometryException("mismatched " + token + " at offset " + offset());
+		}
+		m_depth--;
+		m_afterOpen = false;
+		m_currentToken = token;
+		return token;
+	}
+
+	private void expectLiteral(String rest) {
+		for (int i = 0; i < rest.length(); i++) {
+			int c = read();
+			if (c != rest.charAt(i)) {
+				throw unexpected(c);
+			}
+		}
+	}
+
+	/**
+	 * Reads -?digits(.digits)?([eE][+-]?digits)? into the mantissa and exponent, keeping the text for the
+	 * rare numbers that cannot be converted exactly.
+	 */
+	private JsonReader.Token readNumber(int c) {
+		m_numberLength = 0;
+		m_mantissa = 0;
+		m_significantDigits = 0;
+		m_exponent = 0;
+		m_negative = c == '-';
+		boolean isInt = true;
+
+		if (m_negative) {
+			appendNumberByte(c);
+			c = read();
+		}
+		if (c < '0' || c > '9') {
+			throw unexpected(c);
+		}
+		c = readDigits(c, false);
+		if (c == '.') {
+			isInt = false;
+			appendNumberByte(c);
+			c = read();
+			if (c < '0' || c > '9') {
+				throw unexpected(c);
+			}
+			c = readDigits(c, true);
+		}
+		if (c == 'e' || c == 'E') {
+			isInt = false;
+			appendNumberByte(c);
+			c = read();
+			boolean negativeExponent = c == '-';
+			if (c == '-' || c == '+') {
+				appendNumberByte(c);
+				c = read();
+			}
+			if (c < '0' || c > '9') {
+				throw unexpected(c);
+			}
+			int exponent = 0;
+			while (c >= '0' && c <= '9') {
+				appendNumberByte(c);
+				if (exponent < 10000) {
+					exponent = 10 * exponent + (c - '0');
+				}
+				c = read();
+			}
+			m_exponent += negativeExponent ? -exponent : exponent;
+		}
+		unread(c);
+
+		return isInt ? JsonReader.Token.VALUE_NUMBER_INT : JsonReader.Token.VALUE_NUMBER_FLOAT;
+	}
+
+	/**
+	 * @return the first byte after the digits
+	 */
+	private int readDigits(int c, boolean fraction) {
+		while (c >= '0' && c <= '9') {
+			appendNumberByte(c);
+			if (m_significantDigits > 0 || c != '0') {
+				m_significantDigits++;
+			}
+			if (m_significantDigits <= 18) {
+				m_mantissa = 10 * m_mantissa + (c - '0');
+				if (fraction) {
+					m_exponent--;
+				}
+			} else if (!fraction) {
+				m_exponent++; // not used for the conversion, which falls back to the text
+			}
+			c = read();
+		}
+		return c;
+	}
+
+	private void appendNumberByte(int c) {
+		if (m_numberLength == m_numberBytes.length) {
+			m_numberBytes = Arrays.copyOf(m_numberBytes, 2 * m_numberLength);
+		}
+		m_numberBytes[m_numberLength++] = (byte) c;
+	}
+
+	/**
+	 * Decodes a UTF-8 string, after its opening quote, into m_chars.
+	 */
+	private void readString() {
+		m_charCount = 0;
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				return;
+			}
+			if (c < 0) {
+				throw new JsonGeometryException("unexpected end of input");
+			}
+			if (c == '\\') {
+				c = readEscape();
+			} else if (c >= 0x80) {
+				c = readMultiByte(c);
+				if (c > 0xFFFF) {
+					appendChar(Character.highSurrogate(c));
+					c = Character.lowSurrogate(c);
+				}
+			} else if (c < 0x20) {
+				throw unexpected(c);
+			}
+			appendChar((char) c);
+		}
+	}
+
+	private int readEscape() {
+		int c = read();
+		switch (c) {
+		case '"':
+		case '\\':
+		case '/':
+			return c;
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'u':
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				int digit = Character.digit(read(), 16);
+				if (digit < 0) {
+					throw new JsonGeometryException("invalid unicode escape at offset " + offset());
+				}
+				value = (value << 4) | digit;
+			}
+			return value;
+		default:
+			throw unexpected(c);
+		}
+	}
+
+	private int readMultiByte(int c) {
+		int count;
+		int value;
+		if ((c & 0xE0) == 0xC0) {
+			count = 1;
+			value = c & 0x1F;
+		} else if ((c & 0xF0) == 0xE0) {
+			count = 2;
+			value = c & 0x0F;
+		} else if ((c & 0xF8) == 0xF0) {
+			count = 3;
+			value = c & 0x07;
+		} else {
+			throw new JsonGeometryException("invalid UTF-8 at offset " + offset());
+		}
+		for (int i = 0; i < count; i++) {
+			int next = read();
+			if ((next & 0xC0) != 0x80) {
+				throw new JsonGeometryException("invalid UTF-8 at offset " + offset());
+			}
+			value = (value << 6) | (next & 0x3F);
+		}
+		return value;
+	}
+
+	private void appendChar(char c) {
+		if (m_charCount == m_chars.length) {
+			m_chars = Arrays.copyOf(m_chars, 2 * m_charCount);
+		}
+		m_chars[m_charCount++] = c;
+	}
+
+	/**
+	 * Skips a string, after its opening quote, without decoding it.
+	 */
+	private void skipString() {
+		while (true) {
+			int c = read();
+			if (c == '"') {
+				return;
+			}
+			if (c == '\\') {
+				c = read();
+			}
+			if (c < 0) {
+				throw new JsonGeometryException("unexpected end of input");
+			}
+		}
+	}
+
+	private int skipWhitespace() {
+		while (true) {
+			int c = read();
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * @return the next byte as an unsigned value, or -1 at the end of input
+	 */
+	private int read() {
+		if (m_pos == m_limit && !fill()) {
+			return -1;
+		}
+		return m_buf[m_pos++] & 0xFF;
+	}
+
+	/**
+	 * Steps back over the byte just read, which is always still in the buffer.
+	 */
+	private void unread(int c) {
+		if (c >= 0) {
+			m_pos--;
+		}
+	}
+
+	private boolean fill() {
+		m_consumed += m_limit;
+		m_pos = 0;
+		m_limit = 0;
+		try {
+			if (m_inputStream != null) {
+				int n = m_inputStream.read(m_buf, 0, m_buf.length);
+				m_limit = Math.max(n, 0);
+			} else if (m_byteBuffer != null) {
+				int n = Math.min(m_byteBuffer.remaining(), m_buf.length);
+				m_byteBuffer.get(m_buf, 0, n);
+				m_limit = n;
+			}
+		} catch (IOException e) {
+			throw new JsonGeometryException(e);
+		}
+		return m_limit > 0;
+	}
+
+	private long offset() {
+		return m_consumed + m_pos;
+	}
+
+	private JsonGeometryException unexpected(int c) {
+		if (c < 0) {
+			return new JsonGeometryException("unexpected end of input");
+		}
+		return new JsonGeometryException("unexpected character '" + (char) c + "' at offset " + (offset() - 1));
+	}
+}
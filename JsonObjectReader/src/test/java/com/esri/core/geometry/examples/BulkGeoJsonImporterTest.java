@@ -0,0 +1,133 @@
+/*
+    Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.esri.core.geometry.*;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BulkGeoJsonImporterTest {
+
+	//Items that fail keep their place in the batch, with their error.
+	@Test
+	public void mixedBatch() throws InterruptedException {
+		String polygon = "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[10,0],[10,10],[0,0]]]}";
+		List<Object> items = Arrays.<Object>asList(new JSONObject(polygon), "{\"type\":\"Point\",\"coordinates\":[1,2]}",
+				"{\"type\":\"Point\",\"coordinates\":", new JSONObject("{\"type\":\"Curve\",\"coordinates\":[]}"),
+				Integer.valueOf(1), polygon);
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			BulkGeoJsonImporter importer = new BulkGeoJsonImporter(executor, 0, Geometry.Type.Unknown, 2);
+			BulkGeoJsonImporter.Result result = importer.importAll(items);
+
+			assertEquals(6, result.size());
+			assertEquals(3, result.getErrorCount());
+			assertEquals(50, result.getGeometry(0).getGeometry().calculateArea2D(), 0);
+			assertTrue(result.getGeometry(1).getGeometry().equals(new Point(1, 2)));
+			assertTrue(result.getError(2) instanceof JsonGeometryException);
+			assertTrue(result.getError(3) instanceof JsonGeometryException);
+			assertTrue(result.getError(4) instanceof IllegalArgumentException);
+			assertNull(result.getGeometry(4));
+			assertNull(result.getError(5));
+			assertEquals(result.getGeometry(0), result.getGeometry(5));
+
+			GeometryCursor cursor = result.cursor();
+			int[] ids = new int[3];
+			for (int i = 0; i < ids.length; i++) {
+				cursor.next();
+				ids[i] = cursor.getGeometryID();
+			}
+			assertNull(cursor.next());
+			assertTrue(Arrays.equals(new int[] { 0, 1, 5 }, ids));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	//An error thrown by the import of an item is kept for that item, and the other items of its chunk are imported.
+	@Test
+	public void errorsAreKeptPerItem() throws InterruptedException {
+		String point = "{\"type\":\"Point\",\"coordinates\":[1,2]}";
+		JSONObject overflowing = new JSONObject(point) {
+			@Override
+			public Iterator<?> keys() {
+				throw new StackOverflowError();
+			}
+		};
+		List<Object> items = Arrays.<Object>asList(point, overflowing, point);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			BulkGeoJsonImporter importer = new BulkGeoJsonImporter(executor, 0, Geometry.Type.Unknown, 3);
+			BulkGeoJsonImporter.Result result = importer.importAll(items);
+
+			assertEquals(3, result.size());
+			assertEquals(1, result.getErrorCount());
+			assertTrue(result.getError(1) instanceof StackOverflowError);
+			assertNull(result.getGeometry(1));
+			assertTrue(result.getGeometry(2).getGeometry().equals(new Point(1, 2)));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	//A parallel import returns the same geometries, in the same order, as a sequential one.
+	@Test
+	public void matchesSequentialImport() throws InterruptedException {
+		List<String> items = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++) {
+			items.add("{\"type\":\"LineString\",\"coordinates\":[[" + i + ",0],[" + i + "," + (i + 1) + "]]}");
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			BulkGeoJsonImporter.Result result = new BulkGeoJsonImporter(executor).importAll(items);
+			assertEquals(items.size(), result.size());
+			assertEquals(0, result.getErrorCount());
+			MapGeometry[] geometries = result.getGeometries();
+			for (int i = 0; i < items.size(); i++) {
+				MapGeometry expected = OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown, items.get(i), null);
+				assertTrue(expected.equals(geometries[i]));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void emptyBatch() throws InterruptedException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			BulkGeoJsonImporter.Result result = new BulkGeoJsonImporter(executor).importAll(new ArrayList<Object>());
+			assertEquals(0, result.size());
+			assertNull(result.cursor().next());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
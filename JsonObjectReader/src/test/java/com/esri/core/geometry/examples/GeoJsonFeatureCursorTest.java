@@ -0,0 +1,159 @@
+/*
+    Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import com.esri.core.geometry.*;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GeoJsonFeatureCursorTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String COLLECTION = "{\"type\":\"FeatureCollection\",\"bbox\":[0,0,20,20],\"features\":["
+			+ "{\"type\":\"Feature\",\"properties\":{\"name\":\"a\",\"tags\":[1,2.5,null,{\"x\":true}]},\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}},"
+			+ "{\"type\":\"Feature\",\"geometry\":null,\"properties\":{\"name\":\"b\"}},"
+			+ "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[10,0],[10,10],[0,0]]]},\"id\":\"c\",\"properties\":null},"
+			+ "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[20,20]]},\"properties\":{\"name\":\"d\"}}"
+			+ "],\"crs\":null}";
+
+	@Test
+	public void geometriesAreStreamed() throws IOException {
+		GeoJsonFeatureCursor cursor = new GeoJsonFeatureCursor(stream(COLLECTION));
+
+		Geometry geometry = cursor.next();
+		assertTrue(geometry.equals(new Point(1, 2)));
+		assertEquals(0, cursor.getGeometryID());
+		assertNull(cursor.getProperties());
+
+		// the feature with a null geometry is skipped
+		geometry = cursor.next();
+		assertEquals(Geometry.Type.Polygon, geometry.getType());
+		assertEquals(50, geometry.calculateArea2D(), 0);
+		assertEquals(2, cursor.getGeometryID());
+
+		geometry = cursor.next();
+		assertEquals(Geometry.Type.Polyline, geometry.getType());
+		assertEquals(3, cursor.getGeometryID());
+
+		assertNull(cursor.next());
+		assertNull(cursor.next());
+		cursor.close();
+	}
+
+	@Test
+	public void propertiesAreReadWhenAsked() throws IOException {
+		GeoJsonFeatureCursor cursor = new GeoJsonFeatureCursor(stream(COLLECTION), true);
+
+		cursor.next();
+		JSONObject properties = cursor.getProperties();
+		assertEquals("a", properties.getString("name"));
+		assertEquals(1, properties.getJSONArray("tags").getLong(0));
+		assertEquals(2.5, properties.getJSONArray("tags").getDouble(1), 0);
+		assertTrue(properties.getJSONArray("tags").isNull(2));
+		assertTrue(properties.getJSONArray("tags").getJSONObject(3).getBoolean("x"));
+
+		cursor.next();
+		assertNull(cursor.getProperties());
+
+		cursor.next();
+		assertEquals("d", cursor.getProperties().getString("name"));
+		cursor.close();
+	}
+
+	//Integer properties keep every digit up to the range of a long, and become doubles beyond it.
+	@Test
+	public void largeIntegerProperties() throws IOException {
+		String collection = "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":"
+				+ "{\"id\":9007199254740993,\"min\":-9223372036854775808,\"huge\":12345678901234567890123},"
+				+ "\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}}]}";
+		GeoJsonFeatureCursor cursor = new GeoJsonFeatureCursor(stream(collection), true);
+
+		cursor.next();
+		JSONObject properties = cursor.getProperties();
+		assertEquals(9007199254740993L, properties.get("id"));
+		assertEquals(Long.MIN_VALUE, properties.get("min"));
+		assertEquals(1.2345678901234568e22, properties.getDouble("huge"), 0);
+		cursor.close();
+	}
+
+	//The features are read one at a time, so a collection far larger than the read buffer streams through it.
+	@Test
+	public void largeCollection() throws IOException {
+		final int count = 100000;
+		final byte[] header = "{\"type\":\"FeatureCollection\",\"features\":[".getBytes(UTF8);
+		final byte[] footer = "]}".getBytes(UTF8);
+		InputStream generated = new InputStream() {
+			private int m_feature = -1;
+			private byte[] m_current = header;
+			private int m_pos;
+
+			@Override
+			public int read() {
+				while (m_pos == m_current.length) {
+					if (m_current == footer) {
+						return -1;
+					}
+					m_feature++;
+					m_pos = 0;
+					if (m_feature == count) {
+						m_current = footer;
+					} else {
+						String feature = (m_feature > 0 ? "," : "") + "{\"type\":\"Feature\",\"properties\":{\"i\":"
+								+ m_feature + "},\"geometry\":{\"type\":\"Point\",\"coordinates\":[" + m_feature + ",1]}}";
+						m_current = feature.getBytes(UTF8);
+					}
+				}
+				return m_current[m_pos++];
+			}
+		};
+
+		GeoJsonFeatureCursor cursor = new GeoJsonFeatureCursor(generated);
+		int n = 0;
+		Geometry geometry;
+		while ((geometry = cursor.next()) != null) {
+			assertEquals(n, ((Point) geometry).getX(), 0);
+			assertEquals(n, cursor.getGeometryID());
+			n++;
+		}
+		assertEquals(count, n);
+		cursor.close();
+	}
+
+	@Test
+	public void emptyCollection() throws IOException {
+		assertNull(new GeoJsonFeatureCursor(stream("{\"type\":\"FeatureCollection\",\"features\":[]}")).next());
+		assertNull(new GeoJsonFeatureCursor(stream("{\"type\":\"FeatureCollection\"}")).next());
+	}
+
+	@Test(expected = JsonGeometryException.class)
+	public void featuresMustBeAnArray() {
+		new GeoJsonFeatureCursor(stream("{\"type\":\"FeatureCollection\",\"features\":{}}")).next();
+	}
+
+	private static InputStream stream(String json) {
+		return new ByteArrayInputStream(json.getBytes(UTF8));
+	}
+}
@@ -16,9 +16,12 @@ package com.esri.core.geometry.examples;
 
 import com.esri.core.geometry.*;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class JsonObjectReaderTest {
@@ -36,4 +39,112 @@ public class JsonObjectReaderTest {
 		assertTrue(geom2.equals(geomFromJsonObject));
 	}
 
+	@Test
+	public void skipArrayInsideObject() {
+		JsonReader reader = new JsonObjectReader(new JSONObject("{\"a\":{\"b\":[[1,2],[3]],\"c\":1}}"));
+		assertEquals(JsonReader.Token.FIELD_NAME, reader.nextToken());
+		assertEquals(JsonReader.Token.START_OBJECT, reader.nextToken());
+		int fields = 0;
+		while (reader.nextToken() == JsonReader.Token.FIELD_NAME) {
+			fields++;
+			if (reader.currentString().equals("b")) {
+				assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+				reader.skipChildren();
+				assertEquals(JsonReader.Token.END_ARRAY, reader.currentToken());
+			} else {
+				assertEquals(JsonReader.Token.VALUE_NUMBER_INT, reader.nextToken());
+				assertEquals(1, reader.currentIntValue());
+			}
+		}
+		assertEquals(2, fields);
+		assertEquals(JsonReader.Token.END_OBJECT, reader.currentToken());
+		assertEquals(JsonReader.Token.END_OBJECT, reader.nextToken());
+		assertNull(reader.nextToken());
+	}
+
+	@Test
+	public void skipContainersInsideArray() {
+		JsonReader reader = new JsonObjectReader(new JSONArray("[{\"x\":{\"y\":[1]}},[{}],5,[]]"));
+		assertEquals(JsonReader.Token.START_ARRAY, reader.currentToken());
+		assertEquals(JsonReader.Token.START_OBJECT, reader.nextToken());
+		reader.skipChildren();
+		assertEquals(JsonReader.Token.END_OBJECT, reader.currentToken());
+		assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+		reader.skipChildren();
+		assertEquals(JsonReader.Token.END_ARRAY, reader.currentToken());
+		assertEquals(JsonReader.Token.VALUE_NUMBER_INT, reader.nextToken());
+		assertEquals(5, reader.currentIntValue());
+		assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+		assertNull(reader.nextToken());
+	}
+
+	@Test
+	public void skipRootAndScalars() {
+		JsonReader reader = new JsonObjectReader(new JSONObject("{\"a\":\"s\",\"b\":{}}"));
+		reader.skipChildren();
+		assertEquals(JsonReader.Token.END_OBJECT, reader.currentToken());
+		assertNull(reader.nextToken());
+
+		reader = new JsonObjectReader(new JSONObject("{\"a\":\"s\"}"));
+		reader.nextToken();
+		reader.skipChildren(); // no-op on a field name
+		assertEquals("a", reader.currentString());
+		assertEquals(JsonReader.Token.VALUE_STRING, reader.nextToken());
+		reader.skipChildren(); // no-op on a value
+		assertEquals("s", reader.currentString());
+		assertEquals(JsonReader.Token.END_OBJECT, reader.nextToken());
+		assertNull(reader.nextToken());
+	}
+
+	//Nesting deeper than the initial frame stack, with a skip at every level on the way out.
+	@Test
+	public void deepNesting() {
+		int depth = 40;
+		StringBuilder json = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			json.append("[[").append(i).append("],");
+		}
+		json.append("0");
+		for (int i = 0; i < depth; i++) {
+			json.append("]");
+		}
+
+		JsonReader reader = new JsonObjectReader(new JSONArray(json.toString()));
+		for (int i = 1; i < depth; i++) {
+			assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+			reader.skipChildren();
+			assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+		}
+		assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.VALUE_NUMBER_INT, reader.nextToken());
+		assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.VALUE_NUMBER_INT, reader.nextToken());
+		for (int i = 0; i < depth; i++) {
+			assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+		}
+		assertNull(reader.nextToken());
+	}
+
+	//Skip the attributes of an Esri JSON feature and import its geometry.
+	@Test
+	public void skipAttributesOfFeature() {
+		String feature = "{\"attributes\":{\"name\":\"a\",\"tags\":[[1],{\"x\":[]}],\"nested\":{\"y\":{}}},\"geometry\":{\"x\":1,\"y\":2}}";
+		JsonReader reader = new JsonObjectReader(new JSONObject(feature));
+		Geometry geometry = null;
+		while (reader.nextToken() == JsonReader.Token.FIELD_NAME) {
+			String fieldName = reader.currentString();
+			reader.nextToken();
+			if (fieldName.equals("geometry")) {
+				geometry = OperatorImportFromJson.local().execute(Geometry.Type.Unknown, reader).getGeometry();
+				assertEquals(JsonReader.Token.END_OBJECT, reader.currentToken());
+			} else {
+				reader.skipChildren();
+			}
+		}
+		assertEquals(JsonReader.Token.END_OBJECT, reader.currentToken());
+		assertTrue(geometry.equals(new Point(1, 2)));
+	}
+
 }
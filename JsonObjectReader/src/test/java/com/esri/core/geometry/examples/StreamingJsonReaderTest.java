@@ -0,0 +1,168 @@
+/*
+    Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package com.esri.core.geometry.examples;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.esri.core.geometry.*;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamingJsonReaderTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String GEO_JSON = "{\"type\":\"MultiPolygon\",\"coordinates\":[[[[10,10,5],[20,10,5],[20,20,5],[10,20,5],[10,10,5]],[[12,12,3],[12,12,3],[12,12,3]],[[10,10,1],[12,12,1],[10,10,1]]],[[[90,90,88],[60,90,7],[60,60,7],[90,90,88]],[[70,70,7],[70,80,7],[80,80,7],[70,70,7]]]],\"crs\":{\"type\":\"name\",\"properties\":{\"name\":\"EPSG:3857\"}}}";
+
+	//The reader can be passed to the importer in place of a JsonObjectReader, without building a JSONObject.
+	@Test
+	public void importFromBytes() {
+		byte[] bytes = GEO_JSON.getBytes(UTF8);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes);
+		direct.flip();
+		MapGeometry expected = OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown, GEO_JSON, null);
+
+		JsonReader[] readers = { new StreamingJsonReader(bytes), new StreamingJsonReader(ByteBuffer.wrap(bytes)),
+				new StreamingJsonReader(direct),
+				new StreamingJsonReader(new ByteArrayInputStream(bytes), 3),
+				new JsonObjectReader(new JSONObject(GEO_JSON)) };
+		for (JsonReader reader : readers) {
+			MapGeometry geom = OperatorImportFromGeoJson.local().execute(0, Geometry.Type.Unknown, reader, null);
+			assertTrue(geom.equals(expected));
+		}
+	}
+
+	@Test
+	public void tokens() {
+		String json = " {\"a\" : [1, -2.5e3, true, false, null, \"x\\\"\\u00e9\\n€\"], \"b\":{}, \"c\":[]} ";
+		StreamingJsonReader reader = new StreamingJsonReader(new ByteArrayInputStream(json.getBytes(UTF8)), 1);
+
+		assertEquals(JsonReader.Token.START_OBJECT, reader.currentToken());
+		assertEquals(JsonReader.Token.FIELD_NAME, reader.nextToken());
+		assertEquals("a", reader.currentString());
+		assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.VALUE_NUMBER_INT, reader.nextToken());
+		assertEquals(1, reader.currentIntValue());
+		assertEquals(JsonReader.Token.VALUE_NUMBER_FLOAT, reader.nextToken());
+		assertEquals(-2500, reader.currentDoubleValue(), 0);
+		assertEquals(JsonReader.Token.VALUE_TRUE, reader.nextToken());
+		assertEquals(JsonReader.Token.VALUE_FALSE, reader.nextToken());
+		assertEquals(JsonReader.Token.VALUE_NULL, reader.nextToken());
+		assertEquals(JsonReader.Token.VALUE_STRING, reader.nextToken());
+		assertEquals("x\"é\n€", reader.currentString());
+		assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.FIELD_NAME, reader.nextToken());
+		assertEquals(JsonReader.Token.START_OBJECT, reader.nextToken());
+		assertEquals(JsonReader.Token.END_OBJECT, reader.nextToken());
+		assertEquals(JsonReader.Token.FIELD_NAME, reader.nextToken());
+		assertEquals(JsonReader.Token.START_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.END_ARRAY, reader.nextToken());
+		assertEquals(JsonReader.Token.END_OBJECT, reader.nextToken());
+		assertNull(reader.nextToken());
+	}
+
+	//Numbers parsed from the bytes must match Double.parseDouble, including those that take the slow path.
+	@Test
+	public void numbers() {
+		String[] numbers = { "0", "-0", "0.1", "1e-7", "-123.456", "3.141592653589793", "1234567890123456789012",
+				"0.30000000000000004", "2.2250738585072014E-308", "1.7976931348623157e308", "5e-324", "123456.789e-2",
+				"-0.000000000000000000000000001" };
+		for (String number : numbers) {
+			StreamingJsonReader reader = new StreamingJsonReader(("[" + number + "]").getBytes(UTF8));
+			reader.nextToken();
+			assertEquals(number, Double.parseDouble(number), reader.currentDoubleValue(), 0);
+		}
+	}
+
+	//Integers above 2^53 are not exact as doubles, but are read exactly as longs.
+	@Test
+	public void longNumbers() {
+		long[] numbers = { 0, -7, 9007199254740993L, -9007199254740993L, 123456789012345678L, 1234567890123456789L,
+				Long.MAX_VALUE, Long.MIN_VALUE };
+		for (long number : numbers) {
+			StreamingJsonReader reader = new StreamingJsonReader(("[" + number + "]").getBytes(UTF8));
+			assertEquals(JsonReader.Token.VALUE_NUMBER_INT, reader.nextToken());
+			assertEquals(number, reader.currentLongValue());
+		}
+	}
+
+	@Test(expected = JsonGeometryException.class)
+	public void longOutOfRange() {
+		StreamingJsonReader reader = new StreamingJsonReader("[9223372036854775808]".getBytes(UTF8));
+		reader.nextToken();
+		reader.currentLongValue();
+	}
+
+	//Integers are truncated like the Long values of a JSONObject, and rejected beyond the range of a long.
+	@Test
+	public void intNumbers() {
+		long[] numbers = { 7, -7, 4294967297L, 9007199254740993L, 1234567890123456789L, Long.MIN_VALUE };
+		for (long number : numbers) {
+			StreamingJsonReader reader = new StreamingJsonReader(("[" + number + "]").getBytes(UTF8));
+			reader.nextToken();
+			JsonObjectReader expected = new JsonObjectReader(new JSONObject("{\"n\":" + number + "}"));
+			expected.nextToken();
+			expected.nextToken();
+			assertEquals(expected.currentIntValue(), reader.currentIntValue());
+		}
+
+		StreamingJsonReader reader = new StreamingJsonReader("[-12345678901234567890]".getBytes(UTF8));
+		reader.nextToken();
+		try {
+			reader.currentIntValue();
+			fail();
+		} catch (JsonGeometryException e) {
+		}
+	}
+
+	@Test
+	public void skipChildren() {
+		String json = "{\"properties\":{\"s\":\"}]\\\"{\",\"n\":[[1],{\"x\":[]}]},\"id\":7}";
+		StreamingJsonReader reader = new StreamingJsonReader(json.getBytes(UTF8));
+		reader.nextToken();
+		assertEquals(JsonReader.Token.START_OBJECT, reader.nextToken());
+		reader.skipChildren();
+		assertEquals(JsonReader.Token.END_OBJECT, reader.currentToken());
+		assertEquals(JsonReader.Token.FIELD_NAME, reader.nextToken());
+		assertEquals("id", reader.currentString());
+		assertEquals(JsonReader.Token.VALUE_NUMBER_INT, reader.nextToken());
+		assertEquals(7, reader.currentIntValue());
+		assertEquals(JsonReader.Token.END_OBJECT, reader.nextToken());
+		assertNull(reader.nextToken());
+	}
+
+	@Test(expected = JsonGeometryException.class)
+	public void malformedInput() {
+		StreamingJsonReader reader = new StreamingJsonReader("{\"a\":[1 2]}".getBytes(UTF8));
+		while (reader.nextToken() != null) {
+		}
+	}
+
+	@Test(expected = JsonGeometryException.class)
+	public void mismatchedBrackets() {
+		StreamingJsonReader reader = new StreamingJsonReader("{\"a\":[1}}".getBytes(UTF8));
+		while (reader.nextToken() != null) {
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.esri.core.geometry.examples;
+
+//A histogram of durations in nanoseconds with a fixed memory footprint.
+//Values below 16 are counted exactly; larger values fall in one of 16 buckets per power of two,
+//so a percentile is within 1/16 of the true value. Not thread safe.
+final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final long[] m_counts = new long[(64 - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS];
+	private long m_count;
+	private long m_total;
+	private long m_max;
+
+	void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		m_counts[bucket(nanos)]++;
+		m_count++;
+		m_total += nanos;
+		if (nanos > m_max) {
+			m_max = nanos;
+		}
+	}
+
+	long getCount() {
+		return m_count;
+	}
+
+	long getTotal() {
+		return m_total;
+	}
+
+	long getMax() {
+		return m_max;
+	}
+
+	long getMean() {
+		return m_count == 0 ? 0 : m_total / m_count;
+	}
+
+	//Returns the value below which the given fraction of the recorded values fall, 0 when empty.
+	long getPercentile(double fraction) {
+		if (m_count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(fraction * m_count));
+		long seen = 0;
+		for (int i = 0; i < m_counts.length; i++) {
+			seen += m_counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), m_max);
+			}
+		}
+		return m_max;
+	}
+
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+		long lower = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+		return lower + (1L << shift) - 1;
+	}
+}
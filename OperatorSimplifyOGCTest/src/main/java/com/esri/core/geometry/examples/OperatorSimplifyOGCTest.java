@@ -1,37 +1,281 @@
 package com.esri.core.geometry.examples;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.JMException;
 
 import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.GeometryCursor;
 import com.esri.core.geometry.MultiPath;
-import com.esri.core.geometry.OperatorImportFromWkt;
-import com.esri.core.geometry.OperatorSimplifyOGC;
-
-//This opens a text file with name passed as a command line argument. The file should contain an OGC Polygon, MultiPolygon, LineString, or 
-//MultiLineString (WKT format).
-//The program validates geometry topological correctness with isSimpleOGC,
-//Then it fixes any potential issues with OperatorSimplifyOGC (even if non were found, just to demonstrate the time),
-//Then it revalidates the result geometry.
+import com.esri.core.geometry.MultiVertexGeometry;
+import com.esri.core.geometry.OperatorExportToWkt;
+import com.esri.core.geometry.WktExportFlags;
+
+//This validates and repairs a batch of geometries. The input is a shapefile (.shp), or a text file with one OGC geometry
+//per line (WKT format, or WKB as hex).
+//Each geometry is validated for topological correctness with isSimpleOGC, and only the geometries that are not simple
+//are fixed with OperatorSimplifyOGC. This runs on all cores, while the input is streamed.
+//The repaired geometries are validated again only with -Dsimplify.revalidate=true, and -Dsimplify.alwaysRun=true runs
+//all the steps on every geometry, to compare (see RepairStage). With -Dsimplify.partitionVertices=N, the multipart
+//polygons of N vertices or more are repaired on all cores, one group of nearby rings per task (see PartitionedSimplify).
+//
+//Usage: OperatorSimplifyOGCTest input [output [report.csv [threads [summary.json|summary.csv]]]]
+//The output has the same format as the input, and the same records or lines: the repaired geometries replace the
+//non simple ones. The report has a line per geometry with the reason it was not simple, its vertex and part counts
+//before and after repair, and the time of each step. The summary has the counts of the batch and the percentiles of
+//the time of each step. While the batch runs, the same statistics are available through JMX (see SimplifyStatistics).
 public final class OperatorSimplifyOGCTest {
 
 	public static void main(String[] args) throws IOException {
-		byte[] bytes = Files.readAllBytes(Paths.get(args[0]));
-		String text = new String(bytes, "US-ASCII");
-		Geometry g = OperatorImportFromWkt.local().execute(0, Geometry.Type.Unknown, text, null);
-		System.out.println(args[0] + " : " + g.getType() + 
-				" " + ((MultiPath)g).getPathCount() + " rings" + " " + ((MultiPath)g).getPointCount() + " vertices");
-		System.out.print("Checking if simple... ");
-		boolean isSimple = OperatorSimplifyOGC.local().isSimpleOGC(g,  null,  true, null, null);
-		System.out.println(isSimple);
-		System.out.print("Running simplify operation... ");
-		Geometry gSimple = OperatorSimplifyOGC.local().execute(g, null, true, null);
-		System.out.println("Simple" + " : " + g.getType() + 
-				" " + ((MultiPath)gSimple).getPathCount() + " rings" + " " + ((MultiPath)gSimple).getPointCount() + " vertices");
-		System.out.println("Done");
-		System.out.print("Running simplify operation (should be simple now)... ");
-		isSimple = OperatorSimplifyOGC.local().isSimpleOGC(gSimple,  null,  true, null, null);
-		System.out.println(isSimple);
+		if (args.length == 0) {
+			System.out.println("Usage: OperatorSimplifyOGCTest input.wkt|input.shp [output [report.csv [threads [summary.json|summary.csv]]]]");
+			return;
+		}
+
+		File input = new File(args[0]);
+		File output = args.length > 1 ? new File(args[1]) : null;
+		File report = args.length > 2 ? new File(args[2]) : null;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		File summaryFile = args.length > 4 ? new File(args[4]) : null;
+		boolean shapefile = input.getName().toLowerCase().endsWith(".shp");
+
+		SimplifyStatistics statistics = new SimplifyStatistics();
+		try {
+			statistics.register();
+		} catch (JMException e) {
+			System.out.println("Statistics not available through JMX: " + e);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		GeometryCursor cursor;
+		Geometry.Type shapeType = null;
+		ParallelWktReader wktReader = null;
+		if (shapefile) {
+			ShapefileGeometryCursor shapefileCursor = new ShapefileGeometryCursor(input);
+			shapeType = shapefileCursor.getGeometryType();
+			cursor = shapefileCursor;
+		} else {
+			//the lines are parsed on the same threads as the geometries are validated
+			wktReader = new ParallelWktReader(input, executor);
+			cursor = wktReader.cursor();
+		}
+
+		Output out = null;
+		Writer reportWriter = null;
+		try {
+			if (output != null) {
+				out = shapefile ? new ShapefileOutput(output, shapeType) : new WktOutput(output);
+			}
+			if (report != null) {
+				reportWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(report), "US-ASCII"), 1 << 16);
+				reportWriter.write("id,type,vertices,parts,simple,reason,repaired,simple_after_repair,vertices_after,parts_after,"
+						+ "parse_ns,validate_ns,simplify_ns,revalidate_ns,error\n");
+			}
+
+			System.out.println(input + " : validating on " + threads + " threads");
+			RepairStage stage = new RepairStage(null);
+			stage.setRevalidate(Boolean.getBoolean("simplify.revalidate"));
+			stage.setAlwaysRun(Boolean.getBoolean("simplify.alwaysRun"));
+			int partitionVertices = Integer.getInteger("simplify.partitionVertices", 0);
+			if (partitionVertices > 0) {
+				PartitionedSimplify partitionedSimplify = new PartitionedSimplify(executor, threads, null, partitionVertices);
+				partitionedSimplify.setVerify(!"false".equals(System.getProperty("simplify.partitionVerify")));
+				stage.setPartitionedSimplify(partitionedSimplify);
+			}
+			SimplifyBatch batch = new SimplifyBatch(executor, 4 * threads, stage);
+			batch.setMetrics(statistics);
+			batch.run(cursor, new Handler(out, reportWriter));
+			if (out != null) {
+				//trailing null shapes, or blank or unparsable lines, have no result to write them
+				out.finish(shapefile ? recordCount(input) : ((ParallelWktReader.Cursor) cursor).getLineCount());
+			}
+		} finally {
+			executor.shutdown();
+			close(out);
+			close(reportWriter);
+			close(wktReader);
+		}
+
+		Map<String, Object> summary = statistics.toMap();
+		System.out.println(summary.get("geometries") + " geometries, " + summary.get("vertices_before") + " vertices, "
+				+ summary.get("geometries_per_s") + " geometries/s");
+		System.out.println(summary.get("not_simple") + " not simple, " + summary.get("repaired") + " repaired, "
+				+ summary.get("still_not_simple") + " still not simple after repair, " + summary.get("unverified")
+				+ " unverified, " + summary.get("errors") + " failed");
+		if (wktReader != null) {
+			System.out.println(((ParallelWktReader.Cursor) cursor).getSkippedLineCount() + " lines could not be parsed");
+		}
+		for (String step : new String[] { "parse", "validate", "simplify", "revalidate", "total" }) {
+			System.out.println(step + ": " + summary.get(step + "_total_ns") + " ns in all, p50 " + summary.get(step + "_p50_ns")
+					+ " ns, p99 " + summary.get(step + "_p99_ns") + " ns, max " + summary.get(step + "_max_ns") + " ns");
+		}
+		System.out.println("slowest: " + summary.get("slowest_ids"));
+		if (summaryFile != null) {
+			statistics.write(summaryFile);
+		}
+
+		try {
+			statistics.unregister();
+		} catch (JMException e) {
+			//it was not registered
+		}
+	}
+
+	private static void close(Closeable closeable) throws IOException {
+		if (closeable != null) {
+			closeable.close();
+		}
+	}
+
+	//The record count of the .shx, or of the .shp when there is no .shx, null shapes included.
+	private static int recordCount(File shpFile) throws IOException {
+		File shxFile = ShapefileIndex.companionFile(shpFile, "shx");
+		if (shxFile.isFile()) {
+			return ShapefileIndex.read(shxFile).getRecordCount();
+		}
+		ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(shpFile);
+		try {
+			ShapefileRecord record = new ShapefileRecord();
+			int count = 0;
+			while (cursor.nextRecord(record)) {
+				count++;
+			}
+			return count;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	static int vertexCount(Geometry geometry) {
+		if (geometry instanceof MultiVertexGeometry) {
+			return ((MultiVertexGeometry) geometry).getPointCount();
+		}
+		return geometry.isEmpty() ? 0 : 1;
+	}
+
+	//The rings of a polygon, the paths of a polyline, the points of a multipoint.
+	static int partCount(Geometry geometry) {
+		if (geometry instanceof MultiPath) {
+			return ((MultiPath) geometry).getPathCount();
+		}
+		return vertexCount(geometry);
+	}
+
+	private static final class Handler implements SimplifyBatch.ResultHandler {
+		private final Output m_output;
+		private final Writer m_report;
+		private final StringBuilder m_line = new StringBuilder();
+
+		Handler(Output output, Writer report) {
+			m_output = output;
+			m_report = report;
+		}
+
+		@Override
+		public void handle(SimplifyResult result) throws IOException {
+			Geometry geometry = result.getGeometry();
+			if (m_output != null) {
+				m_output.write(result.getID(), geometry);
+			}
+
+			if (m_report != null) {
+				m_line.setLength(0);
+				m_line.append(result.getID()).append(',').append(geometry.getType()).append(',')
+						.append(result.getVertexCount()).append(',').append(result.getPartCount()).append(',')
+						.append(result.isSimple()).append(',')
+						.append(result.getReason() != null ? result.getReason().toString() : "").append(',')
+						.append(result.isRepaired()).append(',').append(result.isSimpleAfterRepair()).append(',')
+						.append(result.getVertexCountAfterRepair()).append(',').append(result.getPartCountAfterRepair())
+						.append(',').append(result.getParseNanos()).append(',').append(result.getValidateNanos()).append(',').append(result.getSimplifyNanos()).append(',')
+						.append(result.getRevalidateNanos()).append(',');
+				if (result.getError() != null) {
+					m_line.append('"').append(String.valueOf(result.getError()).replace("\"", "\"\"")).append('"');
+				}
+				m_line.append('\n');
+				m_report.write(m_line.toString());
+			}
+		}
+	}
+
+	//Writes the geometries by ID, keeping the records or lines of the input aligned.
+	private interface Output extends Closeable {
+		void write(int id, Geometry geometry) throws IOException;
+
+		//Pads the output to count records or lines, the count of the input.
+		void finish(int count) throws IOException;
+	}
+
+	private static final class WktOutput implements Output {
+		private final Writer m_writer;
+		private int m_lineNumber;
+
+		WktOutput(File file) throws IOException {
+			m_writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "US-ASCII"), 1 << 16);
+		}
+
+		@Override
+		public void write(int id, Geometry geometry) throws IOException {
+			//blank or unparsable input lines are written as blank lines
+			pad(id - 1);
+			m_writer.write(OperatorExportToWkt.local().execute(WktExportFlags.wktExportDefaults, geometry, null));
+			m_writer.write('\n');
+			m_lineNumber++;
+		}
+
+		@Override
+		public void finish(int count) throws IOException {
+			pad(count);
+		}
+
+		private void pad(int lineCount) throws IOException {
+			while (m_lineNumber < lineCount) {
+				m_writer.write('\n');
+				m_lineNumber++;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			m_writer.close();
+		}
+	}
+
+	private static final class ShapefileOutput implements Output {
+		private final ShapefileWriter m_writer;
+
+		ShapefileOutput(File file, Geometry.Type type) throws IOException {
+			m_writer = new ShapefileWriter(file, type);
+		}
+
+		@Override
+		public void write(int id, Geometry geometry) throws IOException {
+			//null shapes of the input are written back, so the records stay aligned with the .dbf
+			pad(id - 1);
+			m_writer.write(geometry);
+		}
+
+		@Override
+		public void finish(int count) throws IOException {
+			pad(count);
+		}
+
+		private void pad(int recordCount) throws IOException {
+			while (m_writer.getRecordCount() < recordCount) {
+				m_writer.write(null);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			m_writer.close();
+		}
 	}
 }
@@ -0,0 +1,240 @@
+package com.esri.core.geometry.examples;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.GeometryCursor;
+
+//Parses a file with one WKT or WKB hex geometry per line on several threads.
+//The file is cut into byte ranges ("splits"), and each split parses the lines that start within its range, reading past
+//its end to finish its last line, so the splits need no coordination. The geometries come back in file order,
+//with the same line number IDs as WktLineCursor. The number of splits parsed ahead of the consumer is bounded.
+public class ParallelWktReader implements Closeable {
+
+	static final int DEFAULT_SPLIT_SIZE = 4 << 20; //4MB
+
+	private final FileChannel m_channel;
+	private final ExecutorService m_executor;
+	private final int m_splitSize;
+	private final int m_maxSplitsInFlight;
+
+	public ParallelWktReader(File file, ExecutorService executor) throws IOException {
+		this(file, executor, DEFAULT_SPLIT_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelWktReader(File file, ExecutorService executor, int splitSize, int maxSplitsInFlight)
+			throws IOException {
+		if (splitSize < 1 || maxSplitsInFlight < 1) {
+			throw new IllegalArgumentException();
+		}
+
+		m_channel = new FileInputStream(file).getChannel();
+		m_executor = executor;
+		m_splitSize = splitSize;
+		m_maxSplitsInFlight = maxSplitsInFlight;
+	}
+
+	//Returns a cursor over all the geometries of the file. getSkippedLineCount of the cursor counts the lines
+	//that could not be parsed.
+	public Cursor cursor() throws IOException {
+		return new Cursor(m_channel.size());
+	}
+
+	@Override
+	public void close() throws IOException {
+		m_channel.close();
+	}
+
+	private static final class ParsedSplit {
+		Geometry[] m_geometries = new Geometry[64];
+		int[] m_lineIndices = new int[64]; //0 based line index within the split
+		long[] m_parseNanos = new long[64];
+		int m_count;
+		int m_lineCount;
+		int m_skippedLineCount;
+
+		void add(Geometry geometry, int lineIndex, long parseNanos) {
+			if (m_count == m_geometries.length) {
+				Geometry[] geometries = new Geometry[2 * m_count];
+				System.arraycopy(m_geometries, 0, geometries, 0, m_count);
+				m_geometries = geometries;
+				int[] lineIndices = new int[2 * m_count];
+				System.arraycopy(m_lineIndices, 0, lineIndices, 0, m_count);
+				m_lineIndices = lineIndices;
+				long[] nanos = new long[2 * m_count];
+				System.arraycopy(m_parseNanos, 0, nanos, 0, m_count);
+				m_parseNanos = nanos;
+			}
+			m_geometries[m_count] = geometry;
+			m_lineIndices[m_count] = lineIndex;
+			m_parseNanos[m_count] = parseNanos;
+			m_count++;
+		}
+	}
+
+	private final class SplitTask implements Callable<ParsedSplit> {
+		private final long m_start;
+		private final long m_end;
+
+		SplitTask(long start, long end) {
+			m_start = start;
+			m_end = end;
+		}
+
+		@Override
+		public ParsedSplit call() throws IOException {
+			//one byte before the split tells whether its first line starts at m_start
+			long readStart = m_start == 0 ? 0 : m_start - 1;
+			ByteBuffer buffer = ByteBuffer.allocate((int) (m_end - readStart) + 1024);
+			long position = read(buffer, readStart, m_end);
+			byte[] bytes = buffer.array();
+
+			int lineStart = 0;
+			if (m_start > 0) {
+				int newline = WktLineCursor.indexOfNewline(bytes, 0, buffer.position());
+				lineStart = newline < 0 ? buffer.position() : newline + 1;
+			}
+
+			ParsedSplit split = new ParsedSplit();
+			WktLineParser parser = new WktLineParser();
+			int splitLength = (int) (m_end - readStart);
+			while (lineStart < splitLength) {
+				int lineEnd = WktLineCursor.indexOfNewline(bytes, lineStart, buffer.position());
+				while (lineEnd < 0 && position < m_channel.size()) {
+					//the last line goes past the end of the split
+					int searchFrom = buffer.position();
+					if (!buffer.hasRemaining()) {
+						ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+						buffer.flip();
+						larger.put(buffer);
+						buffer = larger;
+						bytes = buffer.array();
+					}
+					position = read(buffer, position, m_channel.size());
+					lineEnd = WktLineCursor.indexOfNewline(bytes, searchFrom, buffer.position());
+				}
+				if (lineEnd < 0) {
+					lineEnd = buffer.position(); //last line of the file without a newline
+				}
+
+				long parseStart = System.nanoTime();
+				try {
+					Geometry geometry = parser.parse(bytes, lineStart, lineEnd);
+					if (geometry != null) {
+						split.add(geometry, split.m_lineCount, System.nanoTime() - parseStart);
+					}
+				} catch (RuntimeException e) {
+					split.m_skippedLineCount++;
+				}
+				split.m_lineCount++;
+				lineStart = lineEnd + 1;
+			}
+
+			return split;
+		}
+
+		//Reads into the buffer from position until the buffer is full or limit is reached, and returns the new position.
+		private long read(ByteBuffer buffer, long position, long limit) throws IOException {
+			while (buffer.hasRemaining() && position < limit) {
+				int read = m_channel.read(buffer, position);
+				if (read < 0) {
+					break;
+				}
+				position += read;
+			}
+			return position;
+		}
+	}
+
+	public final class Cursor extends GeometryCursor implements ParseTimed {
+		private final long m_size;
+		private final ArrayDeque<Future<ParsedSplit>> m_inFlight = new ArrayDeque<Future<ParsedSplit>>();
+		private long m_nextSplitStart;
+		private ParsedSplit m_current;
+		private int m_index;
+		private int m_firstLineNumber = 1; //of the current split
+		private int m_id = -1;
+		private long m_parseNanos;
+		private int m_skippedLineCount;
+
+		Cursor(long size) {
+			m_size = size;
+		}
+
+		@Override
+		public Geometry next() {
+			while (m_current == null || m_index == m_current.m_count) {
+				if (m_current != null) {
+					m_firstLineNumber += m_current.m_lineCount;
+					m_current = null;
+				}
+
+				submitSplits();
+				if (m_inFlight.isEmpty()) {
+					return null;
+				}
+				m_current = take();
+				m_skippedLineCount += m_current.m_skippedLineCount;
+				m_index = 0;
+			}
+
+			m_id = m_firstLineNumber + m_current.m_lineIndices[m_index];
+			m_parseNanos = m_current.m_parseNanos[m_index];
+			Geometry geometry = m_current.m_geometries[m_index];
+			m_current.m_geometries[m_index] = null;
+			m_index++;
+			return geometry;
+		}
+
+		private void submitSplits() {
+			while (m_inFlight.size() < m_maxSplitsInFlight && m_nextSplitStart < m_size) {
+				long end = Math.min(m_size, m_nextSplitStart + m_splitSize);
+				m_inFlight.add(m_executor.submit(new SplitTask(m_nextSplitStart, end)));
+				m_nextSplitStart = end;
+			}
+		}
+
+		private ParsedSplit take() {
+			try {
+				return m_inFlight.poll().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		@Override
+		public int getGeometryID() {
+			return m_id;
+		}
+
+		//The time the split task spent parsing the line, not the time next() waited for the split.
+		@Override
+		public long getParseNanos() {
+			return m_parseNanos;
+		}
+
+		//The number of lines that could not be parsed so far.
+		public int getSkippedLineCount() {
+			return m_skippedLineCount;
+		}
+
+		//The number of lines of the splits read so far, blank lines included: the line count of the file once next()
+		//has returned null.
+		public int getLineCount() {
+			return m_firstLineNumber - 1 + (m_current != null ? m_current.m_lineCount : 0);
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package com.esri.core.geometry.examples;
+
+//Implemented by the cursors that time the parsing of each geometry. SimplifyBatch uses it instead of timing next(),
+//which would include the wait for a parallel reader.
+public interface ParseTimed {
+	//The nanoseconds spent parsing the geometry returned by the last call to next().
+	long getParseNanos();
+}
@@ -0,0 +1,243 @@
+package com.esri.core.geometry.examples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.esri.core.geometry.Envelope2D;
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.OperatorSimplifyOGC;
+import com.esri.core.geometry.Polygon;
+import com.esri.core.geometry.SpatialReference;
+
+//Repairs a huge multipart polygon, such as a national boundary with its islands, on several threads.
+//The rings are split into groups that cannot interact: two rings whose envelopes come closer than a margin, far larger
+//than the tolerance, are in the same group, so a hole is always with its exterior ring. Each group is validated, and
+//simplified only if needed, on its own thread, and the groups are put back together as they are, since they are apart.
+//The result is validated with isSimpleOGC at the end, and the polygon is simplified as a whole in the rare case it fails
+//(when the tolerance is derived from the bounds, a group has a smaller tolerance than the whole polygon).
+//
+//A single huge ring is simplified as a whole: cutting it in tiles with OperatorClip needs OperatorUnion to stitch the
+//tiles, which costs more than simplifying the ring, and its output is not always simple in the OGC sense.
+//
+//The calling thread works on the groups too, and waits only for the groups that other threads have started, so this
+//can run on a task of the same executor without a deadlock.
+public final class PartitionedSimplify {
+
+	static final int DEFAULT_MIN_VERTICES = 100000;
+
+	private final Executor m_executor;
+	private final int m_parallelism;
+	private final SpatialReference m_spatialReference;
+	private final int m_minVertices;
+	private boolean m_verify = true;
+
+	public PartitionedSimplify(Executor executor, int parallelism, SpatialReference spatialReference) {
+		this(executor, parallelism, spatialReference, DEFAULT_MIN_VERTICES);
+	}
+
+	//spatialReference gives the tolerance. When null, it is derived from the bounds of the geometry.
+	//Polygons of less than minVertices vertices are simplified directly.
+	public PartitionedSimplify(Executor executor, int parallelism, SpatialReference spatialReference, int minVertices) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException();
+		}
+
+		m_executor = executor;
+		m_parallelism = parallelism;
+		m_spatialReference = spatialReference;
+		m_minVertices = minVertices;
+	}
+
+	//Whether the result is validated before it is returned. On by default.
+	public void setVerify(boolean verify) {
+		m_verify = verify;
+	}
+
+	public boolean isVerify() {
+		return m_verify;
+	}
+
+	//Whether execute returns a geometry that is simple in the OGC sense: one that came out of OperatorSimplifyOGC, or a
+	//partitioned result that passed the final validation. Without that validation, the groups put back together have no
+	//such guarantee.
+	public boolean isResultSimple(Geometry geometry) {
+		return m_verify || !isPartitioned(geometry);
+	}
+
+	//Whether execute may split the geometry. It is actually split only when its rings fall in several groups.
+	public boolean isPartitioned(Geometry geometry) {
+		return geometry instanceof Polygon && ((Polygon) geometry).getPointCount() >= m_minVertices
+				&& ((Polygon) geometry).getPathCount() > 1;
+	}
+
+	//Returns the geometry simplified in the OGC sense, like OperatorSimplifyOGC.execute.
+	public Geometry execute(Geometry geometry) {
+		OperatorSimplifyOGC simplify = OperatorSimplifyOGC.local();
+		if (!isPartitioned(geometry)) {
+			return simplify.execute(geometry, m_spatialReference, true, null);
+		}
+
+		Polygon polygon = (Polygon) geometry;
+		final Polygon[] groups = split(polygon);
+		if (groups.length == 1) {
+			return simplify.execute(polygon, m_spatialReference, true, null);
+		}
+
+		//the largest groups first, so that a large group does not start last
+		final Integer[] order = new Integer[groups.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return groups[b].getPointCount() - groups[a].getPointCount();
+			}
+		});
+
+		final Geometry[] simplified = new Geometry[groups.length];
+		parallelFor(groups.length, new Body() {
+			@Override
+			public void run(int i) {
+				Polygon group = groups[order[i]];
+				OperatorSimplifyOGC simplify = OperatorSimplifyOGC.local();
+				simplified[order[i]] = simplify.isSimpleOGC(group, m_spatialReference, true, null, null) ? group
+						: simplify.execute(group, m_spatialReference, true, null);
+			}
+		});
+
+		Polygon result = (Polygon) polygon.createInstance();
+		for (int i = 0; i < simplified.length; i++) {
+			if (!simplified[i].isEmpty()) {
+				result.add((Polygon) simplified[i], false);
+			}
+		}
+
+		if (m_verify && !simplify.isSimpleOGC(result, m_spatialReference, true, null, null)) {
+			return simplify.execute(polygon, m_spatialReference, true, null);
+		}
+		return result;
+	}
+
+	//Splits the rings of the polygon into groups of rings that may interact, in the order of their first ring.
+	Polygon[] split(Polygon polygon) {
+		int pathCount = polygon.getPathCount();
+		Envelope2D envelope = new Envelope2D();
+		polygon.queryEnvelope2D(envelope);
+		double margin = 1e-9 * (Math.abs(envelope.xmin) + Math.abs(envelope.xmax) + Math.abs(envelope.ymin)
+				+ Math.abs(envelope.ymax) + 1);
+		if (m_spatialReference != null) {
+			margin = Math.max(margin, 4 * m_spatialReference.getTolerance());
+		}
+
+		final Envelope2D[] envelopes = new Envelope2D[pathCount];
+		Integer[] byXmin = new Integer[pathCount];
+		for (int i = 0; i < pathCount; i++) {
+			envelopes[i] = new Envelope2D();
+			polygon.queryPathEnvelope2D(i, envelopes[i]);
+			envelopes[i].inflate(margin, margin);
+			byXmin[i] = i;
+		}
+		Arrays.sort(byXmin, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(envelopes[a].xmin, envelopes[b].xmin);
+			}
+		});
+
+		//sweep along x, keeping the rings whose x range is still open
+		int[] parents = new int[pathCount];
+		for (int i = 0; i < pathCount; i++) {
+			parents[i] = i;
+		}
+		ArrayList<Integer> active = new ArrayList<Integer>();
+		for (int i = 0; i < pathCount; i++) {
+			int path = byXmin[i];
+			Envelope2D env = envelopes[path];
+			for (int j = active.size() - 1; j >= 0; j--) {
+				int other = active.get(j);
+				Envelope2D otherEnv = envelopes[other];
+				if (otherEnv.xmax < env.xmin) {
+					active.set(j, active.get(active.size() - 1));
+					active.remove(active.size() - 1);
+				} else if (otherEnv.ymin <= env.ymax && env.ymin <= otherEnv.ymax) {
+					parents[find(parents, path)] = find(parents, other);
+				}
+			}
+			active.add(path);
+		}
+
+		int[] groupOfRoot = new int[pathCount];
+		Arrays.fill(groupOfRoot, -1);
+		ArrayList<Polygon> groups = new ArrayList<Polygon>();
+		for (int i = 0; i < pathCount; i++) {
+			int root = find(parents, i);
+			if (groupOfRoot[root] < 0) {
+				groupOfRoot[root] = groups.size();
+				groups.add((Polygon) polygon.createInstance());
+			}
+			groups.get(groupOfRoot[root]).addPath(polygon, i, true);
+		}
+		return groups.toArray(new Polygon[groups.size()]);
+	}
+
+	private static int find(int[] parents, int i) {
+		while (parents[i] != i) {
+			parents[i] = parents[parents[i]];
+			i = parents[i];
+		}
+		return i;
+	}
+
+	private interface Body {
+		void run(int i);
+	}
+
+	//Runs body for 0 to count - 1 on up to m_parallelism threads, the calling thread included.
+	private void parallelFor(final int count, final Body body) {
+		final AtomicInteger next = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(count);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int i;
+				while ((i = next.getAndIncrement()) < count) {
+					try {
+						if (error.get() == null) {
+							body.run(i);
+						}
+					} catch (Throwable e) {
+						//errors too: one lost on a thread of the executor would leave a group without a result
+						error.compareAndSet(null, e);
+					} finally {
+						done.countDown();
+					}
+				}
+			}
+		};
+
+		for (int i = Math.min(m_parallelism, count) - 1; i > 0; i--) {
+			m_executor.execute(worker);
+		}
+		worker.run();
+
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		Throwable e = error.get();
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		} else if (e instanceof Error) {
+			throw (Error) e;
+		}
+	}
+}
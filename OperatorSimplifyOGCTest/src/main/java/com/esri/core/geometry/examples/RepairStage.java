@@ -0,0 +1,130 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.NonSimpleResult;
+import com.esri.core.geometry.OperatorSimplifyOGC;
+import com.esri.core.geometry.SpatialReference;
+
+//Validates a geometry and repairs it only when needed, with as few topology passes as possible:
+//- OperatorSimplifyOGC.execute runs only when isSimpleOGC fails;
+//- the repaired geometry is not validated again, since OperatorSimplifyOGC guarantees an OGC simple result. The
+//  result records it as known simple instead (SimplifyResult.isKnownSimple), with the verdict on the input, so that
+//  later steps can ask isSimple(SimplifyResult, ...) without a topology pass. setRevalidate(true) validates it anyway,
+//  to test the operator. A partitioned repair whose final validation is off has no such guarantee, and is recorded
+//  as unverified (SimplifyResult.isUnverified).
+//setPartitionedSimplify repairs the huge multipart polygons on several threads (see PartitionedSimplify).
+//setAlwaysRun(true) gives the flow without any of this (validate, simplify and revalidate every geometry), to compare.
+//
+//The stage keeps no state per geometry, so the threads of a SimplifyBatch share it without locking.
+//The methods are thread safe; the setters must be called before the stage is used.
+public final class RepairStage {
+
+	private final SpatialReference m_spatialReference;
+	private boolean m_alwaysRun;
+	private boolean m_revalidate;
+	private PartitionedSimplify m_partitionedSimplify;
+
+	//spatialReference gives the tolerance. When null, it is derived from the bounds of each geometry.
+	public RepairStage(SpatialReference spatialReference) {
+		m_spatialReference = spatialReference;
+	}
+
+	public SpatialReference getSpatialReference() {
+		return m_spatialReference;
+	}
+
+	public void setAlwaysRun(boolean alwaysRun) {
+		m_alwaysRun = alwaysRun;
+	}
+
+	public void setRevalidate(boolean revalidate) {
+		m_revalidate = revalidate;
+	}
+
+	public void setPartitionedSimplify(PartitionedSimplify partitionedSimplify) {
+		m_partitionedSimplify = partitionedSimplify;
+	}
+
+	//Whether the geometry is simple in the OGC sense. When it is not simple and nonSimpleResult is not null, the
+	//reason is copied into it.
+	public boolean isSimple(Geometry geometry, NonSimpleResult nonSimpleResult) {
+		NonSimpleResult verdict = validate(geometry);
+		copy(verdict, nonSimpleResult);
+		return verdict == null;
+	}
+
+	//Whether the geometry of the result is simple in the OGC sense, without a topology pass when the result knows it.
+	public boolean isSimple(SimplifyResult result, NonSimpleResult nonSimpleResult) {
+		return result.isKnownSimple() || isSimple(result.getGeometry(), nonSimpleResult);
+	}
+
+	//Validates one geometry and repairs it if needed. Exceptions and errors of the operators are kept in the result.
+	SimplifyResult process(int id, Geometry geometry) {
+		SimplifyResult result = new SimplifyResult(id);
+		result.m_geometry = geometry;
+		result.m_vertexCount = result.m_vertexCountAfterRepair = OperatorSimplifyOGCTest.vertexCount(geometry);
+		result.m_partCount = result.m_partCountAfterRepair = OperatorSimplifyOGCTest.partCount(geometry);
+		OperatorSimplifyOGC simplify = OperatorSimplifyOGC.local();
+		try {
+			long start = System.nanoTime();
+			NonSimpleResult verdict = validate(geometry);
+			result.m_validateNanos = System.nanoTime() - start;
+			result.m_simple = verdict == null;
+			if (result.m_simple && !m_alwaysRun) {
+				result.m_simpleAfterRepair = true;
+				result.m_knownSimple = true;
+				return result;
+			}
+
+			if (!result.m_simple) {
+				result.m_reason = verdict.m_reason;
+				result.m_nonSimpleResult = new NonSimpleResult();
+				copy(verdict, result.m_nonSimpleResult);
+			}
+			start = System.nanoTime();
+			Geometry repaired = m_partitionedSimplify != null ? m_partitionedSimplify.execute(geometry)
+					: simplify.execute(geometry, m_spatialReference, true, null);
+			result.m_simplifyNanos = System.nanoTime() - start;
+			result.m_geometry = repaired;
+			result.m_repaired = true;
+			result.m_vertexCountAfterRepair = OperatorSimplifyOGCTest.vertexCount(repaired);
+			result.m_partCountAfterRepair = OperatorSimplifyOGCTest.partCount(repaired);
+
+			if (m_alwaysRun || m_revalidate) {
+				start = System.nanoTime();
+				result.m_simpleAfterRepair = validate(repaired) == null;
+				result.m_revalidateNanos = System.nanoTime() - start;
+				result.m_revalidated = true;
+			} else {
+				//a partitioned repair without its final validation is not known to be simple
+				result.m_simpleAfterRepair = m_partitionedSimplify == null
+						|| m_partitionedSimplify.isResultSimple(geometry);
+				result.m_unverified = !result.m_simpleAfterRepair;
+			}
+			result.m_knownSimple = result.m_simpleAfterRepair;
+		} catch (RuntimeException e) {
+			result.m_error = e;
+		} catch (Error e) {
+			//an assertion of the library, or a stack overflow on a degenerate geometry, fails only this geometry
+			result.m_error = e;
+		}
+
+		return result;
+	}
+
+	//Returns null when the geometry is simple, or why it is not.
+	private NonSimpleResult validate(Geometry geometry) {
+		NonSimpleResult nonSimpleResult = new NonSimpleResult();
+		boolean simple = OperatorSimplifyOGC.local().isSimpleOGC(geometry, m_spatialReference, true, nonSimpleResult,
+				null);
+		return simple ? null : nonSimpleResult;
+	}
+
+	private static void copy(NonSimpleResult from, NonSimpleResult to) {
+		if (from != null && to != null) {
+			to.m_reason = from.m_reason;
+			to.m_vertexIndex1 = from.m_vertexIndex1;
+			to.m_vertexIndex2 = from.m_vertexIndex2;
+		}
+	}
+}
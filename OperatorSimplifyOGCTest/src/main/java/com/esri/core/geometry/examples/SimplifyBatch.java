@@ -0,0 +1,111 @@
+package com.esri.core.geometry.examples;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.GeometryCursor;
+import com.esri.core.geometry.SpatialReference;
+
+//Validates the geometries of a cursor with isSimpleOGC on several threads, and repairs only those that are not simple
+//with OperatorSimplifyOGC.execute. See RepairStage for the steps done on each geometry.
+//The results are handed to the handler on the calling thread, in input order.
+//At most maxInFlight geometries are read ahead of the handler, so memory use does not depend on the size of the input.
+//Each result is also given to the metrics, if set, before the handler.
+public class SimplifyBatch {
+
+	public interface ResultHandler {
+		void handle(SimplifyResult result) throws IOException;
+	}
+
+	private final ExecutorService m_executor;
+	private final int m_maxInFlight;
+	private final RepairStage m_stage;
+	private SimplifyMetrics m_metrics;
+
+	//spatialReference gives the tolerance. When null, it is derived from the bounds of each geometry.
+	public SimplifyBatch(ExecutorService executor, int maxInFlight, SpatialReference spatialReference) {
+		this(executor, maxInFlight, new RepairStage(spatialReference));
+	}
+
+	public SimplifyBatch(ExecutorService executor, int maxInFlight, RepairStage stage) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException();
+		}
+
+		m_executor = executor;
+		m_maxInFlight = maxInFlight;
+		m_stage = stage;
+	}
+
+	public void setMetrics(SimplifyMetrics metrics) {
+		m_metrics = metrics;
+	}
+
+	//Processes every geometry of the input and returns their count.
+	public int run(GeometryCursor input, ResultHandler handler) throws IOException {
+		ArrayDeque<Future<SimplifyResult>> inFlight = new ArrayDeque<Future<SimplifyResult>>(m_maxInFlight);
+		ParseTimed parseTimed = input instanceof ParseTimed ? (ParseTimed) input : null;
+		int count = 0;
+		try {
+			while (true) {
+				long start = System.nanoTime();
+				Geometry geometry = input.next();
+				if (geometry == null) {
+					break;
+				}
+				//a cursor that does not time its parsing is timed as a whole
+				final long parseNanos = parseTimed != null ? parseTimed.getParseNanos() : System.nanoTime() - start;
+
+				if (inFlight.size() == m_maxInFlight) {
+					handle(take(inFlight), handler);
+				}
+
+				final Geometry g = geometry;
+				final int id = input.getGeometryID();
+				inFlight.add(m_executor.submit(new Callable<SimplifyResult>() {
+					@Override
+					public SimplifyResult call() {
+						SimplifyResult result = m_stage.process(id, g);
+						result.m_parseNanos = parseNanos;
+						return result;
+					}
+				}));
+				count++;
+			}
+
+			while (!inFlight.isEmpty()) {
+				handle(take(inFlight), handler);
+			}
+		} finally {
+			for (Future<SimplifyResult> future : inFlight) {
+				future.cancel(true);
+			}
+		}
+
+		return count;
+	}
+
+	private void handle(SimplifyResult result, ResultHandler handler) throws IOException {
+		if (m_metrics != null) {
+			m_metrics.record(result);
+		}
+		handler.handle(result);
+	}
+
+	private static SimplifyResult take(ArrayDeque<Future<SimplifyResult>> inFlight) throws IOException {
+		try {
+			return inFlight.poll().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted", e);
+		} catch (ExecutionException e) {
+			//RepairStage.process catches the exceptions of the operators, so this is a bug
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
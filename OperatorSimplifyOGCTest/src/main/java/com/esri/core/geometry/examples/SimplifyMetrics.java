@@ -0,0 +1,6 @@
+package com.esri.core.geometry.examples;
+
+//Receives the result of each geometry of a batch, on the thread that runs the batch.
+public interface SimplifyMetrics {
+	void record(SimplifyResult result);
+}
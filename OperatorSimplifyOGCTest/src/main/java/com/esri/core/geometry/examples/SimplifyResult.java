@@ -0,0 +1,132 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.NonSimpleResult;
+
+//The outcome of validating, and if needed repairing, one geometry of a batch.
+public final class SimplifyResult {
+
+	final int m_id;
+	Geometry m_geometry;
+	boolean m_simple;
+	NonSimpleResult.Reason m_reason;
+	NonSimpleResult m_nonSimpleResult;
+	boolean m_repaired;
+	boolean m_simpleAfterRepair;
+	boolean m_revalidated;
+	boolean m_knownSimple;
+	boolean m_unverified;
+	int m_vertexCount;
+	int m_partCount;
+	int m_vertexCountAfterRepair;
+	int m_partCountAfterRepair;
+	long m_parseNanos;
+	long m_validateNanos;
+	long m_simplifyNanos;
+	long m_revalidateNanos;
+	Throwable m_error;
+
+	SimplifyResult(int id) {
+		m_id = id;
+	}
+
+	//The ID of the input geometry, as returned by the input cursor.
+	public int getID() {
+		return m_id;
+	}
+
+	//The repaired geometry, or the input geometry when it was simple or could not be processed.
+	public Geometry getGeometry() {
+		return m_geometry;
+	}
+
+	//Whether the input geometry was simple in the OGC sense.
+	public boolean isSimple() {
+		return m_simple;
+	}
+
+	//Why the input geometry was not simple, or null when it was.
+	public NonSimpleResult.Reason getReason() {
+		return m_reason;
+	}
+
+	//The reason and the vertices where the input geometry was found not simple, or null when it was simple.
+	public NonSimpleResult getNonSimpleResult() {
+		return m_nonSimpleResult;
+	}
+
+	public boolean isRepaired() {
+		return m_repaired;
+	}
+
+	//Whether the repaired geometry was validated again. When not, isSimpleAfterRepair relies on OperatorSimplifyOGC.
+	public boolean isRevalidated() {
+		return m_revalidated;
+	}
+
+	//Whether the repaired geometry is simple, by isSimpleOGC or by the guarantee of OperatorSimplifyOGC when it was not
+	//validated again. Always true when the input was simple, false when the repair is unverified.
+	public boolean isSimpleAfterRepair() {
+		return m_simpleAfterRepair;
+	}
+
+	//Whether the repaired geometry is neither validated nor guaranteed simple: a partitioned repair with its final
+	//validation off (PartitionedSimplify.setVerify(false)).
+	public boolean isUnverified() {
+		return m_unverified;
+	}
+
+	//Whether the geometry returned by getGeometry is known to be simple, having passed isSimpleOGC or come out of
+	//OperatorSimplifyOGC, so that it needs no further validation. See RepairStage.isSimple(SimplifyResult, ...).
+	public boolean isKnownSimple() {
+		return m_knownSimple;
+	}
+
+	//The vertex count of the input geometry.
+	public int getVertexCount() {
+		return m_vertexCount;
+	}
+
+	//The path count (rings or paths) of the input geometry, or its point count for a multipoint, or 1 for a point.
+	public int getPartCount() {
+		return m_partCount;
+	}
+
+	//The vertex count of the geometry returned by getGeometry.
+	public int getVertexCountAfterRepair() {
+		return m_vertexCountAfterRepair;
+	}
+
+	//The part count of the geometry returned by getGeometry.
+	public int getPartCountAfterRepair() {
+		return m_partCountAfterRepair;
+	}
+
+	//The time the input cursor took to parse or decode the geometry. See ParseTimed.
+	public long getParseNanos() {
+		return m_parseNanos;
+	}
+
+	public long getValidateNanos() {
+		return m_validateNanos;
+	}
+
+	public long getSimplifyNanos() {
+		return m_simplifyNanos;
+	}
+
+	public long getRevalidateNanos() {
+		return m_revalidateNanos;
+	}
+
+	//The sum of the times of all the steps.
+	public long getTotalNanos() {
+		return m_parseNanos + m_validateNanos + m_simplifyNanos + m_revalidateNanos;
+	}
+
+	//The exception or error thrown while processing the geometry, such as an AssertionError of the geometry library
+	//or a StackOverflowError, or null.
+	public Throwable getError() {
+		return m_error;
+	}
+}
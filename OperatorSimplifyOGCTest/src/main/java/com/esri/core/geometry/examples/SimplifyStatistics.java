@@ -0,0 +1,270 @@
+package com.esri.core.geometry.examples;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+//Collects the counts and the latency histograms of a batch. It is the SimplifyMetrics of OperatorSimplifyOGCTest,
+//and can be registered with JMX to watch a long batch, and written as a JSON or CSV summary at the end.
+//The methods are synchronized, as JMX reads from other threads than the one that records.
+public final class SimplifyStatistics implements SimplifyMetrics, SimplifyStatisticsMBean {
+
+	public static final String OBJECT_NAME = "com.esri.core.geometry.examples:type=SimplifyStatistics";
+
+	private static final int SLOWEST_COUNT = 10;
+
+	private final LatencyHistogram m_parse = new LatencyHistogram();
+	private final LatencyHistogram m_validate = new LatencyHistogram();
+	private final LatencyHistogram m_simplify = new LatencyHistogram();
+	private final LatencyHistogram m_revalidate = new LatencyHistogram();
+	private final LatencyHistogram m_total = new LatencyHistogram();
+	private final long m_startNanos = System.nanoTime();
+	private long m_lastNanos = m_startNanos;
+	private long m_count;
+	private long m_nonSimple;
+	private long m_repaired;
+	private long m_stillNonSimple;
+	private long m_unverified;
+	private long m_errors;
+	private long m_vertexCountBefore;
+	private long m_vertexCountAfter;
+	private long m_partCountBefore;
+	private long m_partCountAfter;
+	private final int[] m_slowestIDs = new int[SLOWEST_COUNT]; //slowest first
+	private final long[] m_slowestNanos = new long[SLOWEST_COUNT];
+	private int m_slowestCount;
+
+	@Override
+	public synchronized void record(SimplifyResult result) {
+		m_count++;
+		if (result.getError() != null) {
+			m_errors++;
+		} else if (!result.isSimple()) {
+			m_nonSimple++;
+			if (result.isRepaired()) {
+				m_repaired++;
+			}
+			if (result.isUnverified()) {
+				m_unverified++;
+			} else if (!result.isSimpleAfterRepair()) {
+				m_stillNonSimple++;
+			}
+		}
+		m_vertexCountBefore += result.getVertexCount();
+		m_vertexCountAfter += result.getVertexCountAfterRepair();
+		m_partCountBefore += result.getPartCount();
+		m_partCountAfter += result.getPartCountAfterRepair();
+
+		m_parse.record(result.getParseNanos());
+		m_validate.record(result.getValidateNanos());
+		//only some geometries go through these steps
+		if (result.isRepaired()) {
+			m_simplify.record(result.getSimplifyNanos());
+		}
+		if (result.isRevalidated()) {
+			m_revalidate.record(result.getRevalidateNanos());
+		}
+		long total = result.getTotalNanos();
+		m_total.record(total);
+		addSlowest(result.getID(), total);
+		m_lastNanos = System.nanoTime();
+	}
+
+	private void addSlowest(int id, long nanos) {
+		if (m_slowestCount == SLOWEST_COUNT && nanos <= m_slowestNanos[SLOWEST_COUNT - 1]) {
+			return;
+		}
+
+		int i = m_slowestCount < SLOWEST_COUNT ? m_slowestCount++ : SLOWEST_COUNT - 1;
+		while (i > 0 && m_slowestNanos[i - 1] < nanos) {
+			m_slowestNanos[i] = m_slowestNanos[i - 1];
+			m_slowestIDs[i] = m_slowestIDs[i - 1];
+			i--;
+		}
+		m_slowestNanos[i] = nanos;
+		m_slowestIDs[i] = id;
+	}
+
+	//Registers this with the platform MBean server under OBJECT_NAME, replacing a previous registration.
+	public void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(this, name);
+	}
+
+	public void unregister() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+	}
+
+	@Override
+	public synchronized long getGeometryCount() {
+		return m_count;
+	}
+
+	@Override
+	public synchronized long getNonSimpleCount() {
+		return m_nonSimple;
+	}
+
+	@Override
+	public synchronized long getRepairedCount() {
+		return m_repaired;
+	}
+
+	@Override
+	public synchronized long getStillNonSimpleCount() {
+		return m_stillNonSimple;
+	}
+
+	@Override
+	public synchronized long getUnverifiedCount() {
+		return m_unverified;
+	}
+
+	@Override
+	public synchronized long getErrorCount() {
+		return m_errors;
+	}
+
+	@Override
+	public synchronized long getVertexCountBefore() {
+		return m_vertexCountBefore;
+	}
+
+	@Override
+	public synchronized long getVertexCountAfter() {
+		return m_vertexCountAfter;
+	}
+
+	@Override
+	public synchronized long getPartCountBefore() {
+		return m_partCountBefore;
+	}
+
+	@Override
+	public synchronized long getPartCountAfter() {
+		return m_partCountAfter;
+	}
+
+	@Override
+	public synchronized long getTotalNanosP50() {
+		return m_total.getPercentile(0.5);
+	}
+
+	@Override
+	public synchronized long getTotalNanosP99() {
+		return m_total.getPercentile(0.99);
+	}
+
+	@Override
+	public synchronized long getTotalNanosMax() {
+		return m_total.getMax();
+	}
+
+	@Override
+	public synchronized long getValidateNanosP99() {
+		return m_validate.getPercentile(0.99);
+	}
+
+	@Override
+	public synchronized long getSimplifyNanosP99() {
+		return m_simplify.getPercentile(0.99);
+	}
+
+	@Override
+	public synchronized int[] getSlowestIDs() {
+		int[] ids = new int[m_slowestCount];
+		System.arraycopy(m_slowestIDs, 0, ids, 0, m_slowestCount);
+		return ids;
+	}
+
+	//The time from the creation of this to the last recorded result.
+	public synchronized long getElapsedNanos() {
+		return m_lastNanos - m_startNanos;
+	}
+
+	//The summary as ordered name and value pairs. The values are numbers, except slowest_ids.
+	public synchronized Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("geometries", m_count);
+		map.put("not_simple", m_nonSimple);
+		map.put("repaired", m_repaired);
+		map.put("still_not_simple", m_stillNonSimple);
+		map.put("unverified", m_unverified);
+		map.put("errors", m_errors);
+		map.put("vertices_before", m_vertexCountBefore);
+		map.put("vertices_after", m_vertexCountAfter);
+		map.put("parts_before", m_partCountBefore);
+		map.put("parts_after", m_partCountAfter);
+		long elapsed = getElapsedNanos();
+		map.put("elapsed_ns", elapsed);
+		map.put("geometries_per_s", elapsed == 0 ? 0 : (long) (m_count * 1e9 / elapsed));
+		map.put("vertices_per_s", elapsed == 0 ? 0 : (long) (m_vertexCountBefore * 1e9 / elapsed));
+		put(map, "parse", m_parse);
+		put(map, "validate", m_validate);
+		put(map, "simplify", m_simplify);
+		put(map, "revalidate", m_revalidate);
+		put(map, "total", m_total);
+		StringBuilder ids = new StringBuilder();
+		for (int i = 0; i < m_slowestCount; i++) {
+			if (i > 0) {
+				ids.append(' ');
+			}
+			ids.append(m_slowestIDs[i]);
+		}
+		map.put("slowest_ids", ids.toString());
+		return map;
+	}
+
+	private static void put(Map<String, Object> map, String step, LatencyHistogram histogram) {
+		map.put(step + "_count", histogram.getCount());
+		map.put(step + "_total_ns", histogram.getTotal());
+		map.put(step + "_mean_ns", histogram.getMean());
+		map.put(step + "_p50_ns", histogram.getPercentile(0.5));
+		map.put(step + "_p99_ns", histogram.getPercentile(0.99));
+		map.put(step + "_max_ns", histogram.getMax());
+	}
+
+	//Writes the summary as a JSON object when the file name ends with .json, else as name,value CSV lines.
+	public void write(File file) throws IOException {
+		Map<String, Object> map = toMap();
+		boolean json = file.getName().toLowerCase().endsWith(".json");
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "US-ASCII"));
+		try {
+			writer.write(json ? "{\n" : "name,value\n");
+			int i = 0;
+			for (Map.Entry<String, Object> entry : map.entrySet()) {
+				boolean number = entry.getValue() instanceof Number;
+				if (json) {
+					writer.write("  \"" + entry.getKey() + "\": ");
+					writer.write(number ? entry.getValue().toString() : "\"" + entry.getValue() + "\"");
+					writer.write(++i < map.size() ? ",\n" : "\n");
+				} else {
+					writer.write(entry.getKey() + "," + entry.getValue() + "\n");
+				}
+			}
+			if (json) {
+				writer.write("}\n");
+			}
+		} finally {
+			writer.close();
+		}
+	}
+}
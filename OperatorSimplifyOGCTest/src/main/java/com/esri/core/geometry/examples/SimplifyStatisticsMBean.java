@@ -0,0 +1,37 @@
+package com.esri.core.geometry.examples;
+
+//The JMX view of SimplifyStatistics. Durations are in nanoseconds.
+public interface SimplifyStatisticsMBean {
+	long getGeometryCount();
+
+	long getNonSimpleCount();
+
+	long getRepairedCount();
+
+	long getStillNonSimpleCount();
+
+	long getUnverifiedCount();
+
+	long getErrorCount();
+
+	long getVertexCountBefore();
+
+	long getVertexCountAfter();
+
+	long getPartCountBefore();
+
+	long getPartCountAfter();
+
+	long getTotalNanosP50();
+
+	long getTotalNanosP99();
+
+	long getTotalNanosMax();
+
+	long getValidateNanosP99();
+
+	long getSimplifyNanosP99();
+
+	//The IDs of the slowest geometries so far, slowest first.
+	int[] getSlowestIDs();
+}
@@ -0,0 +1,141 @@
+package com.esri.core.geometry.examples;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.GeometryCursor;
+
+//A cursor over a text stream with one geometry per line, in WKT or as WKB hex. Blank lines are ignored.
+//The input is read through one large buffer, and the lines are parsed from the bytes of the buffer.
+//The ID of a geometry is its 1 based line number. Lines that cannot be parsed are skipped and counted,
+//so they show up as gaps in the IDs.
+//See ParallelWktReader to parse a file on several threads.
+public class WktLineCursor extends GeometryCursor implements Closeable, ParseTimed {
+
+	static final int DEFAULT_BUFFER_SIZE = 4 << 20; //4MB
+
+	private final ReadableByteChannel m_channel;
+	private final WktLineParser m_parser = new WktLineParser();
+	private ByteBuffer m_buffer; //the bytes between position and limit have not been parsed
+	private boolean m_eof;
+	private int m_lineNumber;
+	private int m_id = -1;
+	private int m_skippedLineCount;
+	private long m_parseNanos;
+
+	public WktLineCursor(File file) throws IOException {
+		this(new FileInputStream(file).getChannel(), DEFAULT_BUFFER_SIZE);
+	}
+
+	public WktLineCursor(InputStream in) {
+		this(Channels.newChannel(in), DEFAULT_BUFFER_SIZE);
+	}
+
+	//The buffer grows when a line is longer than bufferSize.
+	public WktLineCursor(ReadableByteChannel channel, int bufferSize) {
+		m_channel = channel;
+		m_buffer = ByteBuffer.allocate(bufferSize);
+		m_buffer.flip();
+	}
+
+	@Override
+	public Geometry next() {
+		try {
+			byte[] bytes = m_buffer.array();
+			while (true) {
+				int start = m_buffer.position();
+				int end = indexOfNewline(bytes, start, m_buffer.limit());
+				if (end < 0) {
+					if (m_eof) {
+						if (start == m_buffer.limit()) {
+							return null;
+						}
+						end = m_buffer.limit(); //last line without a newline
+					} else {
+						fill();
+						bytes = m_buffer.array();
+						continue;
+					}
+				}
+
+				m_buffer.position(end == m_buffer.limit() ? end : end + 1);
+				m_lineNumber++;
+				long parseStart = System.nanoTime();
+				try {
+					Geometry geometry = m_parser.parse(bytes, start, end);
+					if (geometry != null) {
+						m_parseNanos = System.nanoTime() - parseStart;
+						m_id = m_lineNumber;
+						return geometry;
+					}
+				} catch (RuntimeException e) {
+					m_skippedLineCount++;
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return null;
+	}
+
+	static int indexOfNewline(byte[] bytes, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (bytes[i] == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	//Moves the unparsed bytes to the start of the buffer, growing it if they fill it, and reads more.
+	private void fill() throws IOException {
+		m_buffer.compact();
+		if (!m_buffer.hasRemaining()) {
+			ByteBuffer larger = ByteBuffer.allocate(2 * m_buffer.capacity());
+			m_buffer.flip();
+			larger.put(m_buffer);
+			m_buffer = larger;
+		}
+
+		while (m_buffer.hasRemaining()) {
+			if (m_channel.read(m_buffer) < 0) {
+				m_eof = true;
+				break;
+			}
+		}
+		m_buffer.flip();
+	}
+
+	@Override
+	public int getGeometryID() {
+		return m_id;
+	}
+
+	@Override
+	public long getParseNanos() {
+		return m_parseNanos;
+	}
+
+	//The number of lines that could not be parsed so far.
+	public int getSkippedLineCount() {
+		return m_skippedLineCount;
+	}
+
+	//The number of lines read so far, blank lines included: the line count of the input once next() has returned null.
+	public int getLineCount() {
+		return m_lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		m_channel.close();
+	}
+}
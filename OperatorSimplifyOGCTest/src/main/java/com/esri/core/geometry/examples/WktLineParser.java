@@ -0,0 +1,73 @@
+package com.esri.core.geometry.examples;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.esri.core.geometry.Geometry;
+import com.esri.core.geometry.OperatorImportFromWkb;
+import com.esri.core.geometry.OperatorImportFromWkt;
+
+//Parses one line of a WKT or WKB hex file, straight from the bytes of the line.
+//A WKB hex line is decoded into a reused buffer without any String. A WKT line becomes one String,
+//as OperatorImportFromWkt needs, without a line String to trim first. Not thread safe.
+final class WktLineParser {
+
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+	private final OperatorImportFromWkt m_wktImporter = OperatorImportFromWkt.local();
+	private final OperatorImportFromWkb m_wkbImporter = OperatorImportFromWkb.local();
+	private ByteBuffer m_wkb = ByteBuffer.allocate(1024);
+
+	//Returns the geometry of the line bytes[start, end), or null for a blank line.
+	//Throws a RuntimeException when the line cannot be parsed.
+	Geometry parse(byte[] bytes, int start, int end) {
+		while (start < end && bytes[start] <= ' ') {
+			start++;
+		}
+		while (end > start && bytes[end - 1] <= ' ') {
+			end--;
+		}
+		if (start == end) {
+			return null;
+		}
+
+		//WKB starts with its byte order, 00 or 01, while WKT starts with a letter
+		if (bytes[start] == '0') {
+			return parseWkbHex(bytes, start, end);
+		}
+
+		return m_wktImporter.execute(0, Geometry.Type.Unknown, new String(bytes, start, end - start, LATIN1), null);
+	}
+
+	private Geometry parseWkbHex(byte[] bytes, int start, int end) {
+		int length = end - start;
+		if ((length & 1) != 0) {
+			throw new IllegalArgumentException("odd number of hex digits");
+		}
+
+		length /= 2;
+		if (m_wkb.capacity() < length) {
+			m_wkb = ByteBuffer.allocate(Math.max(length, 2 * m_wkb.capacity()));
+		}
+		m_wkb.clear();
+		for (int i = start; i < end; i += 2) {
+			m_wkb.put((byte) (hexDigit(bytes[i]) << 4 | hexDigit(bytes[i + 1])));
+		}
+		m_wkb.flip();
+
+		return m_wkbImporter.execute(0, Geometry.Type.Unknown, m_wkb, null);
+	}
+
+	private static int hexDigit(byte c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		throw new IllegalArgumentException("invalid hex digit");
+	}
+}
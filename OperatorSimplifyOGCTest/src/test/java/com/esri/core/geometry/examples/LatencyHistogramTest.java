@@ -0,0 +1,91 @@
+package com.esri.core.geometry.examples;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+	//Values below 16 have a bucket each, so their percentiles are exact.
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int value = 15; value >= 0; value--) {
+			histogram.record(value);
+		}
+		assertEquals(16, histogram.getCount());
+		assertEquals(120, histogram.getTotal());
+		assertEquals(7, histogram.getMean());
+		assertEquals(15, histogram.getMax());
+		for (int rank = 1; rank <= 16; rank++) {
+			assertEquals(rank - 1, histogram.getPercentile(rank / 16.0));
+		}
+		assertEquals(0, histogram.getPercentile(0));
+	}
+
+	@Test
+	public void emptyAndNegative() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(0.5));
+		assertEquals(0, histogram.getMean());
+		histogram.record(-5);
+		assertEquals(1, histogram.getCount());
+		assertEquals(0, histogram.getTotal());
+		assertEquals(0, histogram.getPercentile(1));
+	}
+
+	//A uniform, an exponential and a heavy tailed distribution: each percentile is at or above the true value, by
+	//less than 1/16 of it, and never above the maximum.
+	@Test
+	public void percentilesAreWithinOneSixteenth() {
+		Random random = new Random(11);
+		long[] uniform = new long[10000];
+		long[] exponential = new long[10000];
+		long[] pareto = new long[10000];
+		for (int i = 0; i < uniform.length; i++) {
+			uniform[i] = 1 + random.nextInt(1000000);
+			exponential[i] = (long) (-200000 * Math.log(1 - random.nextDouble()));
+			pareto[i] = (long) (1000 / Math.pow(1 - random.nextDouble(), 0.5));
+		}
+		for (long[] values : new long[][] { uniform, exponential, pareto }) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			long total = 0;
+			for (long value : values) {
+				histogram.record(value);
+				total += value;
+			}
+			long[] sorted = values.clone();
+			Arrays.sort(sorted);
+			assertEquals(total, histogram.getTotal());
+			assertEquals(sorted[sorted.length - 1], histogram.getMax());
+			for (double fraction : new double[] { 0.01, 0.5, 0.9, 0.99, 0.999, 1 }) {
+				long exact = sorted[(int) Math.ceil(fraction * sorted.length) - 1];
+				long estimate = histogram.getPercentile(fraction);
+				assertTrue(fraction + ": " + estimate + " < " + exact, estimate >= exact);
+				assertTrue(fraction + ": " + estimate + " > " + exact, estimate - exact <= exact / 16);
+				assertTrue(estimate <= histogram.getMax());
+			}
+		}
+	}
+
+	//The edges of the buckets around a power of two.
+	@Test
+	public void bucketEdges() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(16);
+		histogram.record(31);
+		histogram.record(32);
+		histogram.record(33);
+		histogram.record(1L << 40);
+		assertEquals(16, histogram.getPercentile(0.2));
+		assertEquals(31, histogram.getPercentile(0.4));
+		//32 and 33 share the bucket [32, 33]
+		assertEquals(33, histogram.getPercentile(0.6));
+		assertEquals(33, histogram.getPercentile(0.8));
+		assertEquals(1L << 40, histogram.getPercentile(1));
+	}
+}
@@ -0,0 +1,108 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OperatorSimplifyOGCTestTest {
+
+	//Blank and unparsable lines at the end of the input have no geometry, yet the output must keep them.
+	@Test
+	public void wktOutputKeepsTrailingLines() throws IOException {
+		String text = "POLYGON ((0 0, 10 10, 10 0, 0 10, 0 0))\n"
+				+ "\n"
+				+ "POINT (1 2)\n"
+				+ "NOT A GEOMETRY\n"
+				+ "\n"
+				+ "\n";
+		File input = temporaryFile(".wkt");
+		FileOutputStream out = new FileOutputStream(input);
+		try {
+			out.write(text.getBytes("US-ASCII"));
+		} finally {
+			out.close();
+		}
+		File output = temporaryFile(".wkt");
+
+		OperatorSimplifyOGCTest.main(new String[] { input.getPath(), output.getPath() });
+
+		List<String> lines = readLines(output);
+		assertEquals(6, lines.size());
+		assertTrue(OperatorSimplifyOGC.local().isSimpleOGC(
+				OperatorImportFromWkt.local().execute(0, Geometry.Type.Unknown, lines.get(0), null), null, true, null,
+				null));
+		assertEquals("", lines.get(1));
+		assertEquals("POINT (1 2)", lines.get(2));
+		for (int i = 3; i < 6; i++) {
+			assertEquals("", lines.get(i));
+		}
+	}
+
+	//Null shapes at the end of the input must be written back, so the output stays aligned with the .dbf.
+	@Test
+	public void shapefileOutputKeepsTrailingNullShapes() throws IOException {
+		File input = temporaryFile(".shp");
+		ShapefileWriter writer = new ShapefileWriter(input, Geometry.Type.Polygon);
+		try {
+			writer.write(SimplifyBatchTest.bowTie());
+			writer.write(null);
+			writer.write(SimplifyBatchTest.square(5));
+			writer.write(null);
+			writer.write(null);
+		} finally {
+			writer.close();
+		}
+		File output = temporaryFile(".shp");
+
+		OperatorSimplifyOGCTest.main(new String[] { input.getPath(), output.getPath() });
+
+		assertEquals(5, ShapefileIndex.read(ShapefileIndex.companionFile(output, "shx")).getRecordCount());
+		ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(output);
+		try {
+			ShapefileRecord record = new ShapefileRecord();
+			boolean[] nulls = new boolean[5];
+			int count = 0;
+			while (cursor.nextRecord(record)) {
+				nulls[count++] = record.isNull();
+			}
+			assertEquals(5, count);
+			assertEquals("[false, true, false, true, true]", java.util.Arrays.toString(nulls));
+		} finally {
+			cursor.close();
+		}
+	}
+
+	private static File temporaryFile(String suffix) throws IOException {
+		File file = File.createTempFile("simplify", suffix);
+		file.deleteOnExit();
+		if (suffix.equals(".shp")) {
+			ShapefileIndex.companionFile(file, "shx").deleteOnExit();
+		}
+		return file;
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "US-ASCII"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,147 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelWktReaderTest {
+
+	private static final String LINE = "POINT (1 2)";
+
+	//Splits of 1 and 2 bytes and of the length of a line, plus or minus one, cut the file before, on and after the
+	//newlines; the reader must still give the geometries and the line numbers of WktLineCursor.
+	@Test
+	public void matchesWktLineCursorWithTinySplits() throws IOException {
+		int lineLength = LINE.length() + 1;
+		int[] splitSizes = {1, 2, 3, lineLength - 1, lineLength, lineLength + 1, 64, 1000,
+				ParallelWktReader.DEFAULT_SPLIT_SIZE};
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (boolean finalNewline : new boolean[] { true, false }) {
+				File file = write(content(finalNewline));
+				List<String> expected = new ArrayList<String>();
+				WktLineCursor sequential = new WktLineCursor(file);
+				int expectedSkipped = readSequentially(sequential, expected);
+				int expectedLines = sequential.getLineCount();
+				assertTrue(expectedSkipped > 0);
+				assertEquals(13, expectedLines);
+
+				for (int splitSize : splitSizes) {
+					for (int maxSplitsInFlight : new int[] { 1, 3 }) {
+						List<String> actual = new ArrayList<String>();
+						ParallelWktReader reader = new ParallelWktReader(file, executor, splitSize, maxSplitsInFlight);
+						try {
+							ParallelWktReader.Cursor cursor = reader.cursor();
+							Geometry geometry;
+							while ((geometry = cursor.next()) != null) {
+								actual.add(cursor.getGeometryID() + " " + wkt(geometry));
+							}
+							String message = "split " + splitSize + ", final newline " + finalNewline;
+							assertEquals(message, expected, actual);
+							assertEquals(message, expectedSkipped, cursor.getSkippedLineCount());
+							assertEquals(message, expectedLines, cursor.getLineCount());
+						} finally {
+							reader.close();
+						}
+					}
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void emptyFileHasNoGeometry() throws IOException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			ParallelWktReader reader = new ParallelWktReader(write(""), executor, 1, 2);
+			try {
+				assertEquals(null, reader.cursor().next());
+			} finally {
+				reader.close();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	//WKT and WKB hex lines, blank lines, CRLF line ends, unparsable lines, and a line of more than 1024 bytes, which
+	//outgrows the buffer of a split that has to read past its end.
+	private static String content(boolean finalNewline) {
+		Polygon polygon = new Polygon();
+		polygon.startPath(0, 0);
+		for (int i = 1; i < 200; i++) {
+			polygon.lineTo(i, i % 2);
+		}
+		polygon.lineTo(100, 50);
+
+		StringBuilder text = new StringBuilder();
+		text.append(LINE).append('\n');
+		text.append(LINE).append('\n');
+		text.append('\n');
+		text.append("LINESTRING (0 0, 3 4)\r\n");
+		text.append(wkbHex(new Point(5, 6))).append('\n');
+		text.append("   \n");
+		text.append("NOT A GEOMETRY\n");
+		text.append(wkt(polygon)).append('\n');
+		text.append(LINE).append("\r\n");
+		text.append(wkbHex(polygon)).append('\n');
+		text.append("0x\n"); //looks like WKB hex, but is not
+		text.append(LINE).append('\n');
+		text.append("MULTIPOINT ((1 1), (2 2))");
+		if (finalNewline) {
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	private static int readSequentially(WktLineCursor cursor, List<String> lines) throws IOException {
+		try {
+			Geometry geometry;
+			while ((geometry = cursor.next()) != null) {
+				lines.add(cursor.getGeometryID() + " " + wkt(geometry));
+			}
+			return cursor.getSkippedLineCount();
+		} finally {
+			cursor.close();
+		}
+	}
+
+	private static File write(String text) throws IOException {
+		File file = File.createTempFile("wktlines", ".wkt");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("ISO-8859-1"));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static String wkt(Geometry geometry) {
+		return OperatorExportToWkt.local().execute(0, geometry, null);
+	}
+
+	private static String wkbHex(Geometry geometry) {
+		ByteBuffer wkb = OperatorExportToWkb.local().execute(0, geometry, null);
+		StringBuilder hex = new StringBuilder();
+		while (wkb.hasRemaining()) {
+			hex.append(String.format("%02x", wkb.get() & 0xff));
+		}
+		return hex.toString();
+	}
+}
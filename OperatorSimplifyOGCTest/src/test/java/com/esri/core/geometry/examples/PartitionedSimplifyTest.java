@@ -0,0 +1,131 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PartitionedSimplifyTest {
+
+	//Three islands far apart, the first with a hole, the second a bow tie, the third a square.
+	private static Polygon islands() {
+		Polygon polygon = new Polygon();
+		polygon.addEnvelope(new Envelope(0, 0, 10, 10), false);
+		polygon.addEnvelope(new Envelope(2, 2, 4, 4), true);
+		polygon.startPath(100, 0);
+		polygon.lineTo(110, 10);
+		polygon.lineTo(110, 0);
+		polygon.lineTo(100, 10);
+		polygon.addEnvelope(new Envelope(0, 100, 5, 105), false);
+		return polygon;
+	}
+
+	//The hole is in the group of its exterior ring, and the islands are in groups of their own.
+	@Test
+	public void splitGroupsHolesWithTheirExteriorRing() {
+		PartitionedSimplify partitioned = new PartitionedSimplify(null, 1, null, 1);
+		Polygon[] groups = partitioned.split(islands());
+		assertEquals(3, groups.length);
+		assertEquals(2, groups[0].getPathCount());
+		Envelope2D hole = new Envelope2D();
+		groups[0].queryPathEnvelope2D(1, hole);
+		assertEquals(new Envelope2D(2, 2, 4, 4), hole);
+		assertEquals(0, groups[0].getXY(0).x, 0);
+		assertEquals(1, groups[1].getPathCount());
+		assertEquals(100, groups[1].getXY(0).x, 0);
+		assertEquals(1, groups[2].getPathCount());
+		assertEquals(100, groups[2].getXY(0).y, 0);
+	}
+
+	//Rings whose envelopes touch or overlap are in the same group, even when only a third ring links them.
+	@Test
+	public void splitJoinsChainsOfRings() {
+		Polygon polygon = new Polygon();
+		polygon.addEnvelope(new Envelope(0, 0, 10, 10), false);
+		polygon.addEnvelope(new Envelope(30, 0, 40, 10), false);
+		polygon.addEnvelope(new Envelope(5, 8, 35, 20), false);
+		polygon.addEnvelope(new Envelope(50, 50, 60, 60), false);
+		Polygon[] groups = new PartitionedSimplify(null, 1, null, 1).split(polygon);
+		assertEquals(2, groups.length);
+		assertEquals(3, groups[0].getPathCount());
+		assertEquals(1, groups[1].getPathCount());
+	}
+
+	@Test
+	public void resultIsSimple() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Polygon polygon = islands();
+			assertFalse(OperatorSimplifyOGC.local().isSimpleOGC(polygon, null, true, null, null));
+			Geometry expected = OperatorSimplifyOGC.local().execute(polygon, null, true, null);
+			for (int parallelism : new int[] { 1, 3 }) {
+				PartitionedSimplify partitioned = new PartitionedSimplify(executor, parallelism, null, 1);
+				assertTrue(partitioned.isPartitioned(polygon));
+				Geometry result = partitioned.execute(polygon);
+				assertTrue(OperatorSimplifyOGC.local().isSimpleOGC(result, null, true, null, null));
+				assertEquals(((Polygon) expected).calculateArea2D(), ((Polygon) result).calculateArea2D(), 1e-9);
+				assertEquals(5, ((Polygon) result).getPathCount()); //the bow tie becomes two rings
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	//Each group gets the tolerance of its own bounds, smaller than that of the whole polygon, so a group can be simple
+	//and the whole not: a segment of 1e-9 near the origin is degenerate only with the tolerance of an island at 1e6.
+	//The result then fails the final validation, and the polygon is simplified as a whole.
+	@Test
+	public void fallsBackToTheWholePolygon() {
+		Polygon polygon = new Polygon();
+		polygon.startPath(0, 0);
+		polygon.lineTo(0, 10);
+		polygon.lineTo(10, 10);
+		polygon.lineTo(10, 1e-9);
+		polygon.lineTo(10, 0);
+		polygon.addEnvelope(new Envelope(1e6, 1e6, 1e6 + 10, 1e6 + 10), false);
+		OperatorSimplifyOGC simplify = OperatorSimplifyOGC.local();
+		assertFalse(simplify.isSimpleOGC(polygon, null, true, null, null));
+
+		PartitionedSimplify partitioned = new PartitionedSimplify(null, 1, null, 1);
+		assertEquals(2, partitioned.split(polygon).length);
+		partitioned.setVerify(false);
+		assertFalse(simplify.isSimpleOGC(partitioned.execute(polygon), null, true, null, null));
+
+		partitioned.setVerify(true);
+		Geometry result = partitioned.execute(polygon);
+		assertTrue(simplify.isSimpleOGC(result, null, true, null, null));
+		assertEquals(simplify.execute(polygon, null, true, null).calculateArea2D(), result.calculateArea2D(), 0);
+	}
+
+	//A group on which the operator throws, whichever thread takes it, fails the call.
+	@Test
+	public void workerErrorReachesTheCaller() {
+		Polygon polygon = new Polygon();
+		for (int i = 0; i < 20; i++) {
+			polygon.addEnvelope(new Envelope(100 * i, 0, 100 * i + 10, 10), false);
+		}
+		polygon.startPath(5000, 0);
+		polygon.lineTo(Double.NaN, 1);
+		polygon.lineTo(5001, 1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			PartitionedSimplify partitioned = new PartitionedSimplify(executor, 4, null, 1);
+			try {
+				partitioned.execute(polygon);
+				fail();
+			} catch (RuntimeException e) {
+			} catch (AssertionError e) {
+				//thrown by the operator when assertions are enabled
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
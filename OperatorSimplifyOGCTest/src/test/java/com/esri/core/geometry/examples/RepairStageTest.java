@@ -0,0 +1,114 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RepairStageTest {
+
+	//Only the non simple geometry is repaired, and it is trusted without a second validation.
+	@Test
+	public void adaptiveRepairsOnlyNonSimpleGeometries() {
+		RepairStage stage = new RepairStage(null);
+		Polygon square = SimplifyBatchTest.square(0);
+		SimplifyResult simple = stage.process(0, square);
+		assertTrue(simple.isSimple());
+		assertFalse(simple.isRepaired());
+		assertFalse(simple.isRevalidated());
+		assertTrue(simple.isKnownSimple());
+		assertSame(square, simple.getGeometry());
+
+		SimplifyResult repaired = stage.process(1, SimplifyBatchTest.bowTie());
+		assertFalse(repaired.isSimple());
+		assertEquals(NonSimpleResult.Reason.Cracking, repaired.getReason());
+		assertTrue(repaired.isRepaired());
+		assertFalse(repaired.isRevalidated());
+		assertEquals(0, repaired.getRevalidateNanos());
+		assertTrue(repaired.isSimpleAfterRepair());
+		assertTrue(repaired.isKnownSimple());
+		assertTrue(stage.isSimple(repaired, null));
+	}
+
+	//setRevalidate validates the repaired geometries, and only them.
+	@Test
+	public void revalidateChecksTheRepairedGeometry() {
+		RepairStage stage = new RepairStage(null);
+		stage.setRevalidate(true);
+		SimplifyResult simple = stage.process(0, SimplifyBatchTest.square(0));
+		assertFalse(simple.isRepaired());
+		assertFalse(simple.isRevalidated());
+
+		SimplifyResult repaired = stage.process(1, SimplifyBatchTest.bowTie());
+		assertTrue(repaired.isRepaired());
+		assertTrue(repaired.isRevalidated());
+		assertTrue(repaired.getRevalidateNanos() > 0);
+		assertTrue(repaired.isSimpleAfterRepair());
+		assertTrue(repaired.isKnownSimple());
+		assertTrue(OperatorSimplifyOGC.local().isSimpleOGC(repaired.getGeometry(), null, true, null, null));
+	}
+
+	//setAlwaysRun validates, simplifies and revalidates every geometry, simple or not.
+	@Test
+	public void alwaysRunRepairsEveryGeometry() {
+		RepairStage stage = new RepairStage(null);
+		stage.setAlwaysRun(true);
+		for (Geometry geometry : new Geometry[] { SimplifyBatchTest.square(0), SimplifyBatchTest.bowTie() }) {
+			SimplifyResult result = stage.process(0, geometry);
+			assertTrue(result.isRepaired());
+			assertTrue(result.isRevalidated());
+			assertTrue(result.getSimplifyNanos() > 0);
+			assertTrue(result.getRevalidateNanos() > 0);
+			assertTrue(result.isSimpleAfterRepair());
+			assertTrue(result.isKnownSimple());
+			assertNull(result.getError());
+		}
+	}
+
+	//Without its final validation, a partitioned repair is not known to be simple, so isSimple(SimplifyResult, ...)
+	//validates it.
+	@Test
+	public void unverifiedPartitionedRepairIsNotKnownSimple() {
+		Polygon polygon = SimplifyBatchTest.bowTie();
+		polygon.addEnvelope(new Envelope(100, 100, 110, 110), false);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			PartitionedSimplify partitioned = new PartitionedSimplify(executor, 2, null, 1);
+			RepairStage stage = new RepairStage(null);
+			stage.setPartitionedSimplify(partitioned);
+			SimplifyResult verified = stage.process(0, polygon);
+			assertTrue(verified.isRepaired());
+			assertTrue(verified.isKnownSimple());
+			assertFalse(verified.isUnverified());
+
+			partitioned.setVerify(false);
+			SimplifyResult unverified = stage.process(1, polygon);
+			assertTrue(unverified.isRepaired());
+			assertFalse(unverified.isRevalidated());
+			assertFalse(unverified.isKnownSimple());
+			assertFalse(unverified.isSimpleAfterRepair());
+			assertTrue(unverified.isUnverified());
+			assertTrue(stage.isSimple(unverified, null));
+
+			SimplifyStatistics statistics = new SimplifyStatistics();
+			statistics.record(verified);
+			statistics.record(unverified);
+			assertEquals(1L, statistics.toMap().get("unverified"));
+			assertEquals(0L, statistics.toMap().get("still_not_simple"));
+
+			//a single ring goes to OperatorSimplifyOGC, which guarantees its result
+			SimplifyResult single = stage.process(2, SimplifyBatchTest.bowTie());
+			assertTrue(single.isKnownSimple());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
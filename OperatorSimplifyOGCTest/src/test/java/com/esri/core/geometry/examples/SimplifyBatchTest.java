@@ -0,0 +1,152 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SimplifyBatchTest {
+
+	//A self intersecting polygon, a point, a polygon with a NaN vertex, on which OperatorSimplifyOGC throws, and a
+	//simple polygon, repeated. The results must come in input order, with the error kept in its result, and no more
+	//than maxInFlight geometries read ahead of the handler.
+	@Test
+	public void processesInOrderWithBoundedReadAhead() throws IOException {
+		final List<Geometry> input = new ArrayList<Geometry>();
+		for (int i = 0; i < 25; i++) {
+			input.add(bowTie());
+			input.add(new Point(i, i));
+			input.add(withNaNVertex());
+			input.add(square(i));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (final int maxInFlight : new int[] { 1, 2, 8 }) {
+				final CountingCursor cursor = new CountingCursor(input);
+				final List<SimplifyResult> results = new ArrayList<SimplifyResult>();
+				SimplifyBatch batch = new SimplifyBatch(executor, maxInFlight, (SpatialReference) null);
+				int count = batch.run(cursor, new SimplifyBatch.ResultHandler() {
+					@Override
+					public void handle(SimplifyResult result) {
+						results.add(result);
+						assertTrue(cursor.m_read - results.size() <= maxInFlight);
+					}
+				});
+
+				assertEquals(input.size(), count);
+				assertEquals(input.size(), results.size());
+				for (int i = 0; i < results.size(); i++) {
+					SimplifyResult result = results.get(i);
+					assertEquals(i, result.getID());
+					switch (i % 4) {
+					case 0:
+						assertFalse(result.isSimple());
+						assertNotNull(result.getReason());
+						assertTrue(result.isRepaired());
+						assertTrue(result.isKnownSimple());
+						assertTrue(OperatorSimplifyOGC.local().isSimpleOGC(result.getGeometry(), null, true, null,
+								null));
+						assertNull(result.getError());
+						break;
+					case 1:
+					case 3:
+						assertTrue(result.isSimple());
+						assertFalse(result.isRepaired());
+						assertSame(input.get(i), result.getGeometry());
+						assertNull(result.getError());
+						break;
+					default:
+						assertNotNull(result.getError());
+						assertFalse(result.isKnownSimple());
+						assertSame(input.get(i), result.getGeometry());
+						break;
+					}
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void statisticsCountErrors() throws IOException {
+		List<Geometry> input = new ArrayList<Geometry>();
+		input.add(bowTie());
+		input.add(withNaNVertex());
+		input.add(square(0));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			SimplifyStatistics statistics = new SimplifyStatistics();
+			SimplifyBatch batch = new SimplifyBatch(executor, 2, (SpatialReference) null);
+			batch.setMetrics(statistics);
+			batch.run(new SimpleGeometryCursor(input), new SimplifyBatch.ResultHandler() {
+				@Override
+				public void handle(SimplifyResult result) {
+				}
+			});
+			assertEquals(3L, statistics.toMap().get("geometries"));
+			assertEquals(1L, statistics.toMap().get("errors"));
+			assertEquals(1L, statistics.toMap().get("repaired"));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	static Polygon bowTie() {
+		Polygon polygon = new Polygon();
+		polygon.startPath(0, 0);
+		polygon.lineTo(10, 10);
+		polygon.lineTo(10, 0);
+		polygon.lineTo(0, 10);
+		return polygon;
+	}
+
+	static Polygon withNaNVertex() {
+		Polygon polygon = new Polygon();
+		polygon.startPath(0, 0);
+		polygon.lineTo(Double.NaN, 1);
+		polygon.lineTo(1, 1);
+		return polygon;
+	}
+
+	static Polygon square(double x) {
+		Polygon polygon = new Polygon();
+		polygon.startPath(x, 0);
+		polygon.lineTo(x, 1);
+		polygon.lineTo(x + 1, 1);
+		polygon.lineTo(x + 1, 0);
+		return polygon;
+	}
+
+	private static final class CountingCursor extends GeometryCursor {
+		private final List<Geometry> m_geometries;
+		volatile int m_read;
+
+		CountingCursor(List<Geometry> geometries) {
+			m_geometries = geometries;
+		}
+
+		@Override
+		public Geometry next() {
+			return m_read < m_geometries.size() ? m_geometries.get(m_read++) : null;
+		}
+
+		@Override
+		public int getGeometryID() {
+			return m_read - 1;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.esri.core.geometry.examples;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SimplifyStatisticsTest {
+
+	//The ten slowest IDs are kept slowest first, whatever the order of the results; of equal durations, the first
+	//recorded wins.
+	@Test
+	public void keepsTheTenSlowest() {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int id = 0; id < 40; id++) {
+			ids.add(id);
+		}
+		Collections.shuffle(ids, new Random(5));
+		SimplifyStatistics statistics = new SimplifyStatistics();
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, statistics.getSlowestIDs().length);
+			statistics.record(result(ids.get(i), 1000 + ids.get(i)));
+		}
+		for (int i = 5; i < ids.size(); i++) {
+			statistics.record(result(ids.get(i), 1000 + ids.get(i)));
+		}
+		assertArrayEquals(new int[] { 39, 38, 37, 36, 35, 34, 33, 32, 31, 30 }, statistics.getSlowestIDs());
+
+		//ties with the tenth are not kept, a tie with the first goes after it
+		statistics.record(result(100, 1030));
+		statistics.record(result(101, 1039));
+		assertArrayEquals(new int[] { 39, 101, 38, 37, 36, 35, 34, 33, 32, 31 }, statistics.getSlowestIDs());
+		statistics.record(result(102, 5000));
+		assertArrayEquals(new int[] { 102, 39, 101, 38, 37, 36, 35, 34, 33, 32 }, statistics.getSlowestIDs());
+		assertEquals("102 39 101 38 37 36 35 34 33 32", statistics.toMap().get("slowest_ids"));
+	}
+
+	//A .json file gets one member per summary value, in the order of toMap, with slowest_ids as a string.
+	@Test
+	public void writesJson() throws IOException {
+		SimplifyStatistics statistics = statistics();
+		File file = temporaryFile(".json");
+		statistics.write(file);
+		Map<String, Object> map = statistics.toMap();
+		List<String> lines = readLines(file);
+		assertEquals(map.size() + 2, lines.size());
+		assertEquals("{", lines.get(0));
+		assertEquals("}", lines.get(lines.size() - 1));
+		int i = 1;
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			String value = entry.getValue() instanceof Number ? entry.getValue().toString()
+					: "\"" + entry.getValue() + "\"";
+			String separator = i < map.size() ? "," : "";
+			assertEquals("  \"" + entry.getKey() + "\": " + value + separator, lines.get(i++));
+		}
+		assertEquals("  \"geometries\": 3,", lines.get(1));
+		assertEquals("  \"slowest_ids\": \"2 0 1\"", lines.get(lines.size() - 2));
+	}
+
+	//Any other file gets a name,value header and one line per summary value.
+	@Test
+	public void writesCsv() throws IOException {
+		SimplifyStatistics statistics = statistics();
+		File file = temporaryFile(".csv");
+		statistics.write(file);
+		Map<String, Object> map = statistics.toMap();
+		List<String> lines = readLines(file);
+		assertEquals(map.size() + 1, lines.size());
+		assertEquals("name,value", lines.get(0));
+		int i = 1;
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			assertEquals(entry.getKey() + "," + entry.getValue(), lines.get(i++));
+		}
+		assertEquals(Arrays.asList("geometries,3", "not_simple,1", "repaired,1", "still_not_simple,0",
+				"unverified,0", "errors,1"), lines.subList(1, 7));
+		assertEquals("slowest_ids,2 0 1", lines.get(lines.size() - 1));
+	}
+
+	private static SimplifyStatistics statistics() {
+		SimplifyStatistics statistics = new SimplifyStatistics();
+		statistics.record(result(0, 2000));
+		SimplifyResult repaired = result(1, 1000);
+		repaired.m_repaired = true;
+		repaired.m_simpleAfterRepair = true;
+		repaired.m_simple = false;
+		statistics.record(repaired);
+		SimplifyResult error = result(2, 3000);
+		error.m_error = new IllegalStateException();
+		statistics.record(error);
+		return statistics;
+	}
+
+	private static SimplifyResult result(int id, long nanos) {
+		SimplifyResult result = new SimplifyResult(id);
+		result.m_simple = true;
+		result.m_validateNanos = nanos;
+		return result;
+	}
+
+	private static File temporaryFile(String suffix) throws IOException {
+		File file = File.createTempFile("statistics", suffix);
+		file.deleteOnExit();
+		return file;
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "US-ASCII"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+}
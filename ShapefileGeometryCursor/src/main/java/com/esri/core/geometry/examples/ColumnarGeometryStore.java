@@ -0,0 +1,577 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the features of a layer in columns of primitives, off the heap, rather than as one Geometry per feature:
+ * <ul>
+ * <li>the x and y of every point, interleaved, in the order of the features</li>
+ * <li>the index of the first point of every part</li>
+ * <li>the index of the first point and of the first part of every feature</li>
+ * <li>the envelope and the id of every feature</li>
+ * </ul>
+ * The columns are made of direct buffers of up to 1M values, added as the layer grows, so loading never copies a
+ * whole column and the heap holds only the list of buffers. A layer takes about the size of its 2D shapefile.
+ * <p>
+ * Features are read in place, by index, like {@link ShapefileRecord}: points are stored as in a shapefile, where each
+ * polygon ring repeats its first point at the end. {@link #getGeometry(int)} creates a Geometry for the features
+ * that need one, and {@link #search(Envelope2D)} and {@link #getPointCount(Envelope2D)} scan the columns directly.
+ * Z and M values are not stored.
+ * <p>
+ * A store is filled by one thread; once filled, it can be read by several threads.
+ */
+public final class ColumnarGeometryStore {
+
+    static final int DEFAULT_CHUNK_SHIFT = 20; //1M values per buffer
+
+    private static final int SHAPE_HEADER_LENGTH = 44; //type, box, part count, point count
+
+    private final Geometry.Type geometryType;
+    private final DoubleColumn xy;
+    private final DoubleColumn envelopes; //xmin, ymin, xmax, ymax, or NaN for an empty feature
+    private final IntColumn partStarts; //index of the first point of each part
+    private final IntColumn featurePointStarts; //index of the first point of each feature, and the point count
+    private final IntColumn featurePartStarts; //index of the first part of each feature, and the part count
+    private final IntColumn ids;
+
+    private final Envelope2D envelope = new Envelope2D(); //filling only; readers use their own
+    private final Point2D point = new Point2D();
+    private double[] scratch = new double[256];
+
+    /**
+     * @param geometryType Point, MultiPoint, Polyline or Polygon
+     */
+    public ColumnarGeometryStore(Geometry.Type geometryType) {
+        this(geometryType, DEFAULT_CHUNK_SHIFT);
+    }
+
+    ColumnarGeometryStore(Geometry.Type geometryType, int chunkShift) {
+        if (geometryType != Geometry.Type.Point && geometryType != Geometry.Type.MultiPoint
+                && geometryType != Geometry.Type.Polyline && geometryType != Geometry.Type.Polygon) {
+            throw new IllegalArgumentException("geometry type " + geometryType + " is not supported.");
+        }
+        if (chunkShift < 2 || chunkShift > 26) {
+            throw new IllegalArgumentException("chunk shift " + chunkShift);
+        }
+        this.geometryType = geometryType;
+        xy = new DoubleColumn(chunkShift);
+        envelopes = new DoubleColumn(chunkShift); //a multiple of 4, so an envelope never spans two buffers
+        partStarts = new IntColumn(chunkShift);
+        featurePointStarts = new IntColumn(chunkShift);
+        featurePartStarts = new IntColumn(chunkShift);
+        ids = new IntColumn(chunkShift);
+        featurePointStarts.add(0);
+        featurePartStarts.add(0);
+    }
+
+    /**
+     * Reads the cursor to the end into a new store, through {@link ShapefileGeometryCursor#nextRecord}, so that no
+     * Geometry is created except for MultiPatch records. Null shapes are stored as empty features.
+     */
+    public static ColumnarGeometryStore load(ShapefileGeometryCursor cursor) {
+        ColumnarGeometryStore store = new ColumnarGeometryStore(cursor.getGeometryType());
+        ShapefileRecord record = new ShapefileRecord();
+        while (cursor.nextRecord(record)) {
+            store.add(record);
+        }
+        return store;
+    }
+
+    /**
+     * Appends a record, by its record number.
+     */
+    public void add(ShapefileRecord record) {
+        if (ShapeRecords.baseType(record.getShapeType()) == ShapeRecords.MULTIPATCH) {
+            add(record.getRecordNumber(), record.toGeometry());
+            return;
+        }
+
+        int pointStart = pointCount();
+        int pointCount = record.getPointCount();
+        if (scratch.length < 2 * pointCount) {
+            scratch = new double[Math.max(2 * pointCount, 2 * scratch.length)];
+        }
+        record.queryXY(0, pointCount, scratch, 0);
+        xy.add(scratch, 0, 2 * pointCount);
+        for (int part = 0; part < record.getPartCount(); part++) {
+            partStarts.add(pointStart + record.getPartStart(part));
+        }
+        record.queryEnvelope2D(envelope);
+        endFeature(record.getRecordNumber());
+    }
+
+    /**
+     * Appends a geometry of the type of the store. A null or empty geometry is stored as an empty feature.
+     */
+    public void add(int id, Geometry geometry) {
+        if (geometry != null && !geometry.isEmpty()) {
+            if (geometry.getType() != geometryType) {
+                throw new IllegalArgumentException(geometry.getType() + " in a store of " + geometryType + ".");
+            }
+            if (geometry instanceof Point) {
+                partStarts.add(pointCount());
+                xy.add(((Point) geometry).getX());
+                xy.add(((Point) geometry).getY());
+            } else if (geometry instanceof MultiPath) {
+                MultiPath multiPath = (MultiPath) geometry;
+                boolean polygon = geometry instanceof Polygon;
+                for (int path = 0; path < multiPath.getPathCount(); path++) {
+                    partStarts.add(pointCount());
+                    int start = multiPath.getPathStart(path);
+                    int end = multiPath.getPathEnd(path);
+                    for (int i = start; i < end; i++) {
+                        addPoint(multiPath, i);
+                    }
+                    //the rings of a polygon and the closed paths of a polyline, as the shapefile exporter does
+                    if (polygon || multiPath.isClosedPath(path)) {
+                        addPoint(multiPath, start);
+                    }
+                }
+            } else {
+                MultiPoint multiPoint = (MultiPoint) geometry;
+                partStarts.add(pointCount());
+                for (int i = 0; i < multiPoint.getPointCount(); i++) {
+                    addPoint(multiPoint, i);
+                }
+            }
+        }
+        if (geometry != null) {
+            geometry.queryEnvelope2D(envelope);
+        } else {
+            envelope.setEmpty();
+        }
+        endFeature(id);
+    }
+
+    private void addPoint(MultiVertexGeometry geometry, int index) {
+        geometry.getXY(index, point);
+        xy.add(point.x);
+        xy.add(point.y);
+    }
+
+    private void endFeature(int id) {
+        if (envelope.isEmpty()) {
+            for (int i = 0; i < 4; i++) {
+                envelopes.add(Double.NaN); //fails every comparison, so the scans skip it
+            }
+        } else {
+            envelopes.add(envelope.xmin);
+            envelopes.add(envelope.ymin);
+            envelopes.add(envelope.xmax);
+            envelopes.add(envelope.ymax);
+        }
+        featurePointStarts.add(pointCount());
+        featurePartStarts.add(partStarts.size());
+        ids.add(id);
+    }
+
+    private int pointCount() {
+        long count = xy.size() / 2;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalStateException("a store holds up to 2^31 points.");
+        }
+        return (int) count;
+    }
+
+    public Geometry.Type getGeometryType() {
+        return geometryType;
+    }
+
+    public int getFeatureCount() {
+        return ids.size();
+    }
+
+    /**
+     * @return the id of the feature, the record number for a shapefile
+     */
+    public int getID(int feature) {
+        return ids.get(checkFeature(feature));
+    }
+
+    public int getPartCount(int feature) {
+        checkFeature(feature);
+        return featurePartStarts.get(feature + 1) - featurePartStarts.get(feature);
+    }
+
+    /**
+     * @return the number of points as stored, where each polygon ring repeats its first point at the end
+     */
+    public int getPointCount(int feature) {
+        checkFeature(feature);
+        return featurePointStarts.get(feature + 1) - featurePointStarts.get(feature);
+    }
+
+    /**
+     * @return the number of points of all the features
+     */
+    public long getPointCount() {
+        return xy.size() / 2;
+    }
+
+    /**
+     * @return the index of the first point of the part within the feature
+     */
+    public int getPartStart(int feature, int part) {
+        if (part < 0 || part >= getPartCount(feature)) {
+            throw new IndexOutOfBoundsException();
+        }
+        return partStarts.get(featurePartStarts.get(feature) + part) - featurePointStarts.get(feature);
+    }
+
+    /**
+     * @return the index after the last point of the part within the feature
+     */
+    public int getPartEnd(int feature, int part) {
+        return part + 1 < getPartCount(feature) ? getPartStart(feature, part + 1) : getPointCount(feature);
+    }
+
+    public double getX(int feature, int point) {
+        return xy.get(2L * pointIndex(feature, point));
+    }
+
+    public double getY(int feature, int point) {
+        return xy.get(2L * pointIndex(feature, point) + 1);
+    }
+
+    /**
+     * Copies the interleaved x and y of points start to end - 1 of the feature into xy, from index offset.
+     *
+     * @return the number of values written, 2 * (end - start)
+     */
+    public int queryXY(int feature, int start, int end, double[] xy, int offset) {
+        if (start < 0 || end > getPointCount(feature) || start > end) {
+            throw new IndexOutOfBoundsException();
+        }
+        int count = 2 * (end - start);
+        this.xy.get(2L * (featurePointStarts.get(feature) + start), xy, offset, count);
+        return count;
+    }
+
+    /**
+     * Sets envelope to the envelope of the feature, or empties it for an empty feature.
+     */
+    public void queryEnvelope2D(int feature, Envelope2D envelope) {
+        long index = 4L * checkFeature(feature);
+        double xmin = envelopes.get(index);
+        if (Double.isNaN(xmin)) {
+            envelope.setEmpty();
+        } else {
+            envelope.setCoords(xmin, envelopes.get(index + 1), envelopes.get(index + 2), envelopes.get(index + 3));
+        }
+    }
+
+    /**
+     * Scans the envelopes.
+     *
+     * @return the indices of the features whose envelope intersects the query, in ascending order
+     */
+    public int[] search(Envelope2D query) {
+        int[] results = new int[16];
+        int count = 0;
+        for (int feature = nextIntersecting(query, 0); feature >= 0; feature = nextIntersecting(query, feature + 1)) {
+            if (count == results.length) {
+                results = Arrays.copyOf(results, 2 * count);
+            }
+            results[count++] = feature;
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    /**
+     * Scans the envelopes and the point offsets, without creating any object.
+     *
+     * @return the number of points of the features whose envelope intersects the query
+     */
+    public long getPointCount(Envelope2D query) {
+        long count = 0;
+        for (int feature = nextIntersecting(query, 0); feature >= 0; feature = nextIntersecting(query, feature + 1)) {
+            count += featurePointStarts.get(feature + 1) - featurePointStarts.get(feature);
+        }
+        return count;
+    }
+
+    /**
+     * @return the first feature from feature on whose envelope intersects the query, or -1
+     */
+    private int nextIntersecting(Envelope2D query, int feature) {
+        if (query.isEmpty()) {
+            return -1;
+        }
+        int featureCount = getFeatureCount();
+        int chunkShift = envelopes.chunkShift;
+        while (feature < featureCount) {
+            long index = 4L * feature;
+            DoubleBuffer chunk = envelopes.chunks.get((int) (index >>> chunkShift));
+            int offset = (int) (index & envelopes.chunkMask);
+            int end = Math.min(chunk.capacity(), offset + 4 * (featureCount - feature));
+            for (; offset < end; offset += 4, feature++) {
+                if (chunk.get(offset) <= query.xmax && chunk.get(offset + 1) <= query.ymax
+                        && chunk.get(offset + 2) >= query.xmin && chunk.get(offset + 3) >= query.ymin) {
+                    return feature;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates a geometry from the stored points, through {@link OperatorImportFromESRIShape}.
+     *
+     * @return the geometry, or null for an empty feature
+     */
+    public Geometry getGeometry(int feature) {
+        int pointCount = getPointCount(feature);
+        if (pointCount == 0) {
+            return null;
+        }
+        int partCount = getPartCount(feature);
+        ByteBuffer shape;
+        if (geometryType == Geometry.Type.Point) {
+            shape = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            shape.putInt(ShapeRecords.POINT);
+            shape.putDouble(getX(feature, 0));
+            shape.putDouble(getY(feature, 0));
+        } else {
+            boolean multiPoint = geometryType == Geometry.Type.MultiPoint;
+            int pointsOffset = multiPoint ? 40 : SHAPE_HEADER_LENGTH + 4 * partCount;
+            shape = ByteBuffer.allocate(pointsOffset + 16 * pointCount).order(ByteOrder.LITTLE_ENDIAN);
+            shape.putInt(multiPoint ? ShapeRecords.MULTIPOINT
+                    : geometryType == Geometry.Type.Polygon ? ShapeRecords.POLYGON : ShapeRecords.POLYLINE);
+            Envelope2D bounds = new Envelope2D();
+            queryEnvelope2D(feature, bounds);
+            shape.putDouble(bounds.xmin);
+            shape.putDouble(bounds.ymin);
+            shape.putDouble(bounds.xmax);
+            shape.putDouble(bounds.ymax);
+            if (!multiPoint) {
+                shape.putInt(partCount);
+            }
+            shape.putInt(pointCount);
+            if (!multiPoint) {
+                for (int part = 0; part < partCount; part++) {
+                    shape.putInt(getPartStart(feature, part));
+                }
+            }
+            double[] coordinates = new double[2 * pointCount];
+            queryXY(feature, 0, pointCount, coordinates, 0);
+            shape.asDoubleBuffer().put(coordinates);
+        }
+        shape.position(0);
+        return OperatorImportFromESRIShape.local().execute(0, geometryType, shape);
+    }
+
+    /**
+     * @return a cursor creating the geometries of all the features, with their ids; empty features are skipped
+     */
+    public GeometryCursor cursor() {
+        return new GeometryCursor() {
+            private int feature = -1;
+
+            @Override
+            public Geometry next() {
+                while (++feature < getFeatureCount()) {
+                    Geometry geometry = getGeometry(feature);
+                    if (geometry != null) {
+                        return geometry;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public int getGeometryID() {
+                return ids.get(feature);
+            }
+        };
+    }
+
+    /**
+     * @return the size of the off-heap buffers, in bytes
+     */
+    public long getOffHeapBytes() {
+        return xy.bytes() + envelopes.bytes() + partStarts.bytes() + featurePointStarts.bytes()
+                + featurePartStarts.bytes() + ids.bytes();
+    }
+
+    private int checkFeature(int feature) {
+        if (feature < 0 || feature >= getFeatureCount()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return feature;
+    }
+
+    private int pointIndex(int feature, int point) {
+        if (point < 0 || point >= getPointCount(feature)) {
+            throw new IndexOutOfBoundsException();
+        }
+        return featurePointStarts.get(feature) + point;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * A column of doubles in direct buffers of 2^chunkShift values. The last buffer starts small and doubles until
+     * it has the full size, so that small stores stay small.
+     */
+    static final class DoubleColumn {
+        final int chunkShift;
+        final long chunkMask;
+        final List<DoubleBuffer> chunks = new ArrayList<DoubleBuffer>();
+        private long size;
+
+        DoubleColumn(int chunkShift) {
+            this.chunkShift = chunkShift;
+            chunkMask = (1L << chunkShift) - 1;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void add(double value) {
+            writable().put(value);
+            size++;
+        }
+
+        void add(double[] values, int offset, int length) {
+            while (length > 0) {
+                DoubleBuffer chunk = writable();
+                int n = Math.min(length, chunk.remaining());
+                chunk.put(values, offset, n);
+                offset += n;
+                length -= n;
+                size += n;
+            }
+        }
+
+        double get(long index) {
+            return chunks.get((int) (index >>> chunkShift)).get((int) (index & chunkMask));
+        }
+
+        void get(long index, double[] values, int offset, int length) {
+            while (length > 0) {
+                DoubleBuffer chunk = chunks.get((int) (index >>> chunkShift)).duplicate();
+                chunk.clear();
+                chunk.position((int) (index & chunkMask));
+                int n = Math.min(length, chunk.remaining());
+                chunk.get(values, offset, n);
+                index += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        long bytes() {
+            long bytes = 0;
+            for (DoubleBuffer chunk : chunks) {
+                bytes += 8L * chunk.capacity();
+            }
+            return bytes;
+        }
+
+        /**
+         * @return the last buffer, with room for at least one value
+         */
+        private DoubleBuffer writable() {
+            DoubleBuffer last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (last != null && last.hasRemaining()) {
+                return last;
+            }
+            int fullSize = 1 << chunkShift;
+            if (last == null || last.capacity() == fullSize) {
+                int capacity = chunks.isEmpty() ? Math.min(1024, fullSize) : fullSize;
+                last = allocate(8 * capacity).asDoubleBuffer();
+                chunks.add(last);
+            } else {
+                DoubleBuffer grown = allocate(8 * Math.min(2 * last.capacity(), fullSize)).asDoubleBuffer();
+                last.flip();
+                grown.put(last);
+                chunks.set(chunks.size() - 1, grown);
+                last = grown;
+            }
+            return last;
+        }
+    }
+
+    /**
+     * A column of ints, laid out as {@link DoubleColumn}.
+     */
+    static final class IntColumn {
+        final int chunkShift;
+        final int chunkMask;
+        final List<IntBuffer> chunks = new ArrayList<IntBuffer>();
+        private int size;
+
+        IntColumn(int chunkShift) {
+            this.chunkShift = chunkShift;
+            chunkMask = (1 << chunkShift) - 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int value) {
+            if (size == Integer.MAX_VALUE) {
+                throw new IllegalStateException("a column holds up to 2^31 - 1 values.");
+            }
+            writable().put(value);
+            size++;
+        }
+
+        int get(int index) {
+            return chunks.get(index >>> chunkShift).get(index & chunkMask);
+        }
+
+        long bytes() {
+            long bytes = 0;
+            for (IntBuffer chunk : chunks) {
+                bytes += 4L * chunk.capacity();
+            }
+            return bytes;
+        }
+
+        private IntBuffer writable() {
+            IntBuffer last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (last != null && last.hasRemaining()) {
+                return last;
+            }
+            int fullSize = 1 << chunkShift;
+            if (last == null || last.capacity() == fullSize) {
+                int capacity = chunks.isEmpty() ? Math.min(1024, fullSize) : fullSize;
+                last = allocate(4 * capacity).asIntBuffer();
+                chunks.add(last);
+            } else {
+                IntBuffer grown = allocate(4 * Math.min(2 * last.capacity(), fullSize)).asIntBuffer();
+                last.flip();
+                grown.put(last);
+                chunks.set(chunks.size() - 1, grown);
+                last = grown;
+            }
+            return last;
+        }
+    }
+}
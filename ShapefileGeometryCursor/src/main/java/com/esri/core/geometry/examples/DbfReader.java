@@ -0,0 +1,449 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the .dbf attribute table of a shapefile through a memory mapping.
+ * <p>
+ * Records have a fixed length, so record n of the table belongs to record n of the .shp, and
+ * {@link #seek(int)} with {@link ShapefileGeometryCursor#getGeometryID()} or
+ * {@link ShapefileRecord#getRecordNumber()} lines the two up without reading the records in between.
+ * Fields are only parsed when accessed, and numeric accessors parse the mapped bytes directly,
+ * so attributes can be tested before the geometry of a record is decoded:
+ * <pre>
+ * while (cursor.nextRecord(record)) {
+ *     dbf.seek(record.getRecordNumber());
+ *     if (dbf.getDouble(population) &gt; 1e6) {
+ *         Geometry geometry = record.toGeometry();
+ *     }
+ * }
+ * </pre>
+ * Not thread safe.
+ */
+public final class DbfReader implements Closeable {
+
+    private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+    private static final int FIELD_DESCRIPTOR_LENGTH = 32;
+    private static final byte FIELD_TERMINATOR = 0x0D;
+    private static final byte DELETED = '*';
+
+    //powers of ten that are exact as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final MappedFileWindow window;
+    private final Charset charset;
+    private final int recordCount;
+    private final int headerLength;
+    private final int recordLength;
+
+    //the projected columns
+    private final String[] names;
+    private final char[] types;
+    private final int[] offsets; //within the record, after the deletion flag
+    private final int[] lengths;
+    private final int[] decimalCounts;
+
+    private ByteBuffer buffer; //the mapped window
+    private int recordIndex = -1; //index of the current record within buffer
+    private int recordNumber;
+    private byte[] stringBytes = new byte[64];
+
+    /**
+     * Opens the table with all of its columns.
+     */
+    public DbfReader(File dbfFile) throws IOException {
+        this(dbfFile, DEFAULT_CHARSET);
+    }
+
+    /**
+     * Opens the table with only the given columns, in the given order. Column names are not case sensitive.
+     */
+    public DbfReader(File dbfFile, String... columns) throws IOException {
+        this(dbfFile, DEFAULT_CHARSET, columns);
+    }
+
+    /**
+     * @param charset the encoding of character fields, as named by the .cpg file if there is one
+     * @param columns the columns to read, or none for all of them
+     */
+    public DbfReader(File dbfFile, Charset charset, String... columns) throws IOException {
+        this.charset = charset;
+        channel = new RandomAccessFile(dbfFile, "r").getChannel();
+        try {
+            /*
+            Byte 0 Version Byte
+            Byte 1 Date of last update Byte[3]
+            Byte 4 Number of records Integer Little
+            Byte 8 Header length Short Little
+            Byte 10 Record length Short Little
+            Byte 32 Field descriptors Byte[32 * field count], then 0x0D
+             */
+            window = new MappedFileWindow(channel, channel.size(), MappedFileWindow.DEFAULT_WINDOW_SIZE,
+                    MappedFileWindow.DEFAULT_WINDOW_COUNT);
+            ByteBuffer header = window.slice(0, 32);
+            recordCount = header.getInt(4);
+            headerLength = header.getShort(8) & 0xffff;
+            recordLength = header.getShort(10) & 0xffff;
+            if (recordCount < 0 || headerLength < 33 || recordLength < 1) {
+                throw new IOException("not a dbf file.");
+            }
+
+            int fieldCount = (headerLength - 33) / FIELD_DESCRIPTOR_LENGTH;
+            ByteBuffer descriptors = window.slice(32, headerLength - 32);
+            String[] allNames = new String[fieldCount];
+            int[] allOffsets = new int[fieldCount];
+            int offset = 1;
+            int actualCount = 0;
+            for (; actualCount < fieldCount; actualCount++) {
+                int d = actualCount * FIELD_DESCRIPTOR_LENGTH;
+                if (descriptors.get(d) == FIELD_TERMINATOR) {
+                    break; //some writers pad the header
+                }
+                allNames[actualCount] = fieldName(descriptors, d);
+                allOffsets[actualCount] = offset;
+                offset += descriptors.get(d + 16) & 0xff;
+            }
+
+            int[] projection = projection(allNames, actualCount, columns);
+            names = new String[projection.length];
+            types = new char[projection.length];
+            offsets = new int[projection.length];
+            lengths = new int[projection.length];
+            decimalCounts = new int[projection.length];
+            for (int col = 0; col < projection.length; col++) {
+                int field = projection[col];
+                int d = field * FIELD_DESCRIPTOR_LENGTH;
+                names[col] = allNames[field];
+                types[col] = (char) descriptors.get(d + 11);
+                offsets[col] = allOffsets[field];
+                lengths[col] = descriptors.get(d + 16) & 0xff;
+                decimalCounts[col] = descriptors.get(d + 17) & 0xff;
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static String fieldName(ByteBuffer descriptors, int d) {
+        //11 bytes, zero padded
+        StringBuilder name = new StringBuilder(11);
+        for (int i = 0; i < 11; i++) {
+            byte b = descriptors.get(d + i);
+            if (b == 0) {
+                break;
+            }
+            name.append((char) b);
+        }
+        return name.toString().trim();
+    }
+
+    private static int[] projection(String[] allNames, int fieldCount, String[] columns) throws IOException {
+        if (columns == null || columns.length == 0) {
+            int[] projection = new int[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                projection[i] = i;
+            }
+            return projection;
+        }
+        int[] projection = new int[columns.length];
+        for (int col = 0; col < columns.length; col++) {
+            projection[col] = -1;
+            for (int i = 0; i < fieldCount; i++) {
+                if (allNames[i].equalsIgnoreCase(columns[col])) {
+                    projection[col] = i;
+                    break;
+                }
+            }
+            if (projection[col] < 0) {
+                throw new IOException("column " + columns[col] + " is not in the table.");
+            }
+        }
+        return projection;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the number of projected columns
+     */
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    public String getColumnName(int col) {
+        return names[col];
+    }
+
+    /**
+     * @return the dBASE field type, e.g. 'C' for character, 'N' for numeric, 'L' for logical or 'D' for date
+     */
+    public char getColumnType(int col) {
+        return types[col];
+    }
+
+    /**
+     * @return the number of digits after the decimal point of a numeric column
+     */
+    public int getColumnDecimalCount(int col) {
+        return decimalCounts[col];
+    }
+
+    /**
+     * @return the index of the projected column, or -1
+     */
+    public int getColumnIndex(String name) {
+        for (int col = 0; col < names.length; col++) {
+            if (names[col].equalsIgnoreCase(name)) {
+                return col;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves to the next record, including records flagged as deleted so that numbering stays aligned with the .shp.
+     *
+     * @return false when there are no more records
+     */
+    public boolean next() throws IOException {
+        return seek(recordNumber + 1);
+    }
+
+    /**
+     * Moves to the given record.
+     *
+     * @param recordNumber 1 based record number, as returned by {@link ShapefileGeometryCursor#getGeometryID()}
+     * @return false if there is no such record
+     */
+    public boolean seek(int recordNumber) throws IOException {
+        if (recordNumber < 1 || recordNumber > recordCount) {
+            recordIndex = -1;
+            return false;
+        }
+        long offset = headerLength + (long) (recordNumber - 1) * recordLength;
+        recordIndex = window.ensureMapped(offset, recordLength);
+        buffer = window.littleEndianWindow();
+        this.recordNumber = recordNumber;
+        return true;
+    }
+
+    /**
+     * @return the 1 based number of the current record
+     */
+    public int getRecordNumber() {
+        return recordNumber;
+    }
+
+    public boolean isDeleted() {
+        if (recordIndex < 0) {
+            throw new IllegalStateException("no current record.");
+        }
+        return buffer.get(recordIndex) == DELETED;
+    }
+
+    /**
+     * @return true if a text field is blank, or a logical field holds '?'. Binary integer and double fields have no
+     *         null value, whatever their bytes.
+     */
+    public boolean isNull(int col) {
+        int start = fieldIndex(col);
+        char type = types[col];
+        if (type == 'I' || type == 'O') {
+            return false;
+        }
+        int end = start + lengths[col];
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != 0 && (b != '?' || type != 'L')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a numeric field without creating a String.
+     *
+     * @return the value, or NaN for a blank field
+     */
+    public double getDouble(int col) {
+        int start = fieldIndex(col);
+        switch (types[col]) {
+            case 'O': //double, little-endian
+                return buffer.getDouble(start);
+            case 'I': //integer, little-endian
+                return buffer.getInt(start);
+            default:
+                return parseDouble(start, start + lengths[col]);
+        }
+    }
+
+    /**
+     * @return the value of an integer or numeric field, truncated towards zero, or 0 for a blank field
+     */
+    public int getInt(int col) {
+        return (int) getLong(col);
+    }
+
+    /**
+     * @return the value of an integer or numeric field, truncated towards zero, or 0 for a blank field
+     */
+    public long getLong(int col) {
+        int start = fieldIndex(col);
+        switch (types[col]) {
+            case 'O':
+                return (long) buffer.getDouble(start);
+            case 'I':
+                return buffer.getInt(start);
+            default:
+                break;
+        }
+        int end = start + lengths[col];
+        int i = skipBlanks(start, end);
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                if (buffer.get(i) == '.' || buffer.get(i) == ' ') {
+                    break;
+                }
+                return (long) parseDouble(start, end); //exponent
+            }
+            value = 10 * value + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return true for a logical field holding 'T', 't', 'Y' or 'y'
+     */
+    public boolean getBoolean(int col) {
+        byte b = buffer.get(fieldIndex(col));
+        return b == 'T' || b == 't' || b == 'Y' || b == 'y';
+    }
+
+    /**
+     * @return the field as text, with trailing and leading blanks removed
+     */
+    public String getString(int col) {
+        int start = fieldIndex(col);
+        int end = start + lengths[col];
+        while (end > start && (buffer.get(end - 1) == ' ' || buffer.get(end - 1) == 0)) {
+            end--;
+        }
+        start = skipBlanks(start, end);
+        return new String(bytes(start, end), 0, end - start, charset);
+    }
+
+    private int fieldIndex(int col) {
+        if (recordIndex < 0) {
+            throw new IllegalStateException("no current record.");
+        }
+        return recordIndex + offsets[col];
+    }
+
+    private int skipBlanks(int i, int end) {
+        while (i < end && buffer.get(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Parses [sign]digits[.digits]. Up to 15 significant digits the result is exact, as the mantissa and the
+     * power of ten are both exact doubles; anything else is handed to Double.parseDouble.
+     */
+    private double parseDouble(int start, int end) {
+        int i = skipBlanks(start, end);
+        if (i == end || buffer.get(i) == '*') {
+            return Double.NaN; //blank, or overflowed as written by some tools
+        }
+        boolean negative = false;
+        if (buffer.get(i) == '-' || buffer.get(i) == '+') {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = 10 * mantissa + (b - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (fraction) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b == ' ') {
+                break;
+            } else {
+                return slowParseDouble(start, end);
+            }
+        }
+        if (digits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+            return slowParseDouble(start, end);
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(int start, int end) {
+        String text = new String(bytes(start, end), 0, end - start, DEFAULT_CHARSET).trim();
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private byte[] bytes(int start, int end) {
+        if (stringBytes.length < end - start) {
+            stringBytes = new byte[Math.max(end - start, 2 * stringBytes.length)];
+        }
+        for (int i = start; i < end; i++) {
+            stringBytes[i - start] = buffer.get(i);
+        }
+        return stringBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
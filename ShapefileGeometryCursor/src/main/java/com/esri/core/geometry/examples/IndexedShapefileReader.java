@@ -0,0 +1,134 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * Random access to the records of a shapefile, using the offsets in its .shx index.
+ * Record numbers are 1 based, as returned by {@link ShapefileGeometryCursor#getGeometryID()}.
+ * Not thread safe.
+ */
+public class IndexedShapefileReader implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedFileWindow window;
+    private final ShapefileIndex index;
+    private final Envelope2D envelope2D;
+    private final Geometry.Type geomType;
+
+    private final ShapeDecoder decoder;
+
+    /**
+     * Opens a shapefile with its index in the same directory.
+     */
+    public IndexedShapefileReader(File shpFile) throws IOException {
+        this(shpFile, ShapefileIndex.read(ShapefileIndex.companionFile(shpFile, "shx")));
+    }
+
+    public IndexedShapefileReader(File shpFile, ShapefileIndex index) throws IOException {
+        this.index = index;
+        channel = new RandomAccessFile(shpFile, "r").getChannel();
+        try {
+            window = new MappedFileWindow(channel, channel.size(), MappedFileWindow.DEFAULT_WINDOW_SIZE,
+                    MappedFileWindow.DEFAULT_WINDOW_COUNT);
+            ShapefileHeader header = ShapefileHeader.read(window.slice(0, ShapefileHeader.LENGTH));
+            geomType = header.geomType;
+            envelope2D = header.getEnvelope2D();
+            decoder = new ShapeDecoder(geomType);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a single record.
+     *
+     * @param recordNumber 1 based record number
+     * @return the geometry, or null for a null shape
+     */
+    public Geometry get(int recordNumber) throws IOException {
+        if (recordNumber < 1 || recordNumber > index.getRecordCount()) {
+            throw new IndexOutOfBoundsException("record " + recordNumber + " is not in the index.");
+        }
+        int i = recordNumber - 1;
+        long contentOffset = index.getOffset(i) + 8; //skip the record header
+        return decoder.decode(window.slice(contentOffset, index.getContentLength(i)));
+    }
+
+    /**
+     * Reads the given records, in the order given. Null shapes are skipped.
+     * {@link GeometryCursor#getGeometryID()} returns the record number of the current geometry.
+     *
+     * @param recordNumbers 1 based record numbers
+     */
+    public GeometryCursor cursor(final int[] recordNumbers) {
+        return new GeometryCursor() {
+            private int i = -1;
+            private int recordNumber;
+
+            @Override
+            public Geometry next() {
+                while (++i < recordNumbers.length) {
+                    try {
+                        Geometry geometry = get(recordNumbers[i]);
+                        if (geometry != null) {
+                            recordNumber = recordNumbers[i];
+                            return geometry;
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public int getGeometryID() {
+                return recordNumber;
+            }
+        };
+    }
+
+    public int getRecordCount() {
+        return index.getRecordCount();
+    }
+
+    public Envelope2D getEnvelope2D() {
+        return envelope2D;
+    }
+
+    public Geometry.Type getGeometryType() {
+        return geomType;
+    }
+
+    /**
+     * When set, records are decoded to 2D geometries, skipping any Z and M values.
+     */
+    public void setDropZM(boolean dropZM) {
+        decoder.setDropZM(dropZM);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of int pairs, such as the (left id, right id) pairs of a join, stored interleaved in one int array
+ * rather than as boxed objects.
+ */
+public final class IntPairBuffer {
+
+    private int[] pairs;
+    private int size;
+
+    public IntPairBuffer() {
+        this(16);
+    }
+
+    public IntPairBuffer(int capacity) {
+        pairs = new int[2 * Math.max(capacity, 1)];
+    }
+
+    public void add(int left, int right) {
+        if (2 * size == pairs.length) {
+            pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+        }
+        pairs[2 * size] = left;
+        pairs[2 * size + 1] = right;
+        size++;
+    }
+
+    /**
+     * Appends all the pairs of other.
+     */
+    public void addAll(IntPairBuffer other) {
+        if (pairs.length < 2 * (size + other.size)) {
+            pairs = Arrays.copyOf(pairs, Math.max(2 * pairs.length, 2 * (size + other.size)));
+        }
+        System.arraycopy(other.pairs, 0, pairs, 2 * size, 2 * other.size);
+        size += other.size;
+    }
+
+    /**
+     * @return the number of pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getLeft(int i) {
+        checkIndex(i);
+        return pairs[2 * i];
+    }
+
+    public int getRight(int i) {
+        checkIndex(i);
+        return pairs[2 * i + 1];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the pairs, interleaved: left 0, right 0, left 1, right 1...
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(pairs, 2 * size);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
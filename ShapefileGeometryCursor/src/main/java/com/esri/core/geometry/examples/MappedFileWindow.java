@@ -0,0 +1,153 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Maps read-only windows of a file, mapping another window whenever a requested range falls outside those mapped.
+ * A single MappedByteBuffer cannot exceed 2GB, so larger files are read through a sequence of windows.
+ * Windows start at multiples of the window size, so records near each other share a window in whatever order they
+ * are read, and the most recently used windows stay mapped for random access that jumps between parts of the file.
+ * Not thread safe.
+ */
+final class MappedFileWindow {
+
+    static final long DEFAULT_WINDOW_SIZE = 1L << 28; //256MB
+
+    /**
+     * The number of windows kept mapped by readers with random access.
+     */
+    static final int DEFAULT_WINDOW_COUNT = 4;
+
+    private final FileChannel channel;
+    private final long fileLength;
+    private final long windowSize;
+
+    //the current window first, then the others from the most to the least recently used
+    private final MappedByteBuffer[] windows;
+    private final ByteBuffer[] littleEndianWindows;
+    private final long[] windowStarts;
+    private int windowCount;
+    private int mapCount;
+
+    /**
+     * Keeps a single window, for sequential reads.
+     */
+    MappedFileWindow(FileChannel channel, long fileLength, long windowSize) {
+        this(channel, fileLength, windowSize, 1);
+    }
+
+    /**
+     * @param maxWindows the number of windows kept mapped; beyond it the least recently used window is dropped
+     */
+    MappedFileWindow(FileChannel channel, long fileLength, long windowSize, int maxWindows) {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("window size " + windowSize + " is out of range.");
+        }
+        if (maxWindows < 1) {
+            throw new IllegalArgumentException("window count " + maxWindows + " is less than 1.");
+        }
+        this.channel = channel;
+        this.fileLength = fileLength;
+        this.windowSize = windowSize;
+        windows = new MappedByteBuffer[maxWindows];
+        littleEndianWindows = new ByteBuffer[maxWindows];
+        windowStarts = new long[maxWindows];
+    }
+
+    long getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * @return the number of windows mapped so far
+     */
+    int getMapCount() {
+        return mapCount;
+    }
+
+    /**
+     * @return a big-endian int at the absolute file offset
+     */
+    int getBigEndianInt(long offset) throws IOException {
+        int index = ensureMapped(offset, 4);
+        return windows[0].getInt(index);
+    }
+
+    /**
+     * @return a little-endian view of the range, indexed from zero. The bytes are not copied.
+     */
+    ByteBuffer slice(long offset, int length) throws IOException {
+        int index = ensureMapped(offset, length);
+        ByteBuffer view = windows[0].duplicate();
+        view.limit(index + length);
+        view.position(index);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return a little-endian view of the current window, valid until another window becomes current
+     */
+    ByteBuffer littleEndianWindow() {
+        return littleEndianWindows[0];
+    }
+
+    /**
+     * Makes current a window that covers the range, mapping one if required.
+     *
+     * @return the index of offset within the current window
+     */
+    int ensureMapped(long offset, int length) throws IOException {
+        if (offset < 0 || offset + length > fileLength) {
+            throw new IOException("range " + offset + "+" + length + " is outside the file.");
+        }
+        for (int w = 0; w < windowCount; w++) {
+            if (offset >= windowStarts[w] && offset + length <= windowStarts[w] + windows[w].capacity()) {
+                moveToFront(w, windows[w], littleEndianWindows[w], windowStarts[w]);
+                return (int) (offset - windowStarts[0]);
+            }
+        }
+
+        //a range that crosses the end of its aligned window gets a longer window
+        long start = offset - offset % windowSize;
+        if (offset + length - start > Integer.MAX_VALUE) {
+            start = offset;
+        }
+        long size = Math.min(Math.max(windowSize, offset + length - start), fileLength - start);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        mapCount++;
+        if (windowCount < windows.length) {
+            windowCount++;
+        }
+        moveToFront(windowCount - 1, window, window.duplicate().order(ByteOrder.LITTLE_ENDIAN), start);
+        return (int) (offset - start);
+    }
+
+    /**
+     * Shifts the windows before position w back by one, dropping the window at w, and puts the given window first.
+     */
+    private void moveToFront(int w, MappedByteBuffer window, ByteBuffer littleEndianWindow, long start) {
+        System.arraycopy(windows, 0, windows, 1, w);
+        System.arraycopy(littleEndianWindows, 0, littleEndianWindows, 1, w);
+        System.arraycopy(windowStarts, 0, windowStarts, 1, w);
+        windows[0] = window;
+        littleEndianWindows[0] = littleEndianWindow;
+        windowStarts[0] = start;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a shapefile through a memory mapping rather than a stream.
+ * Each record is handed to the importer as a little-endian slice of the mapped region, so record bytes
+ * are never copied onto the heap. Files larger than the window size (256MB by default) are mapped in windows.
+ */
+public class MappedShapefileGeometryCursor extends GeometryCursor implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedFileWindow window;
+    private final ShapefileHeader header;
+    private final Envelope2D envelope2D;
+    private final Geometry.Type geomType;
+    private final Envelope2D queryEnvelope;
+    private final Envelope2D recordEnvelope = new Envelope2D();
+
+    private final ShapeDecoder decoder;
+    private long position; //file offset of the next record header
+    private int recordNumber; //the record number according to shapefile
+
+    public MappedShapefileGeometryCursor(File inFile) throws IOException {
+        this(inFile, MappedFileWindow.DEFAULT_WINDOW_SIZE, null);
+    }
+
+    /**
+     * Returns only records whose bounding box intersects queryEnvelope, without decoding the others.
+     */
+    public MappedShapefileGeometryCursor(File inFile, Envelope2D queryEnvelope) throws IOException {
+        this(inFile, MappedFileWindow.DEFAULT_WINDOW_SIZE, queryEnvelope);
+    }
+
+    public MappedShapefileGeometryCursor(File inFile, long windowSize) throws IOException {
+        this(inFile, windowSize, null);
+    }
+
+    /**
+     * @param windowSize    the maximum number of bytes mapped at once, must not exceed Integer.MAX_VALUE
+     * @param queryEnvelope if not null, only records whose bounding box intersects it are returned
+     */
+    public MappedShapefileGeometryCursor(File inFile, long windowSize, Envelope2D queryEnvelope) throws IOException {
+        this.queryEnvelope = queryEnvelope;
+        channel = new RandomAccessFile(inFile, "r").getChannel();
+        try {
+            MappedFileWindow headerWindow = new MappedFileWindow(channel, channel.size(), ShapefileHeader.LENGTH);
+            header = ShapefileHeader.read(headerWindow.slice(0, ShapefileHeader.LENGTH));
+
+            //trust the header, unless the file has been truncated
+            long fileLength = Math.min(header.fileLengthBytes, channel.size());
+            window = new MappedFileWindow(channel, fileLength, windowSize);
+            geomType = header.geomType;
+            envelope2D = header.getEnvelope2D();
+            decoder = new ShapeDecoder(geomType);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        position = ShapefileHeader.LENGTH;
+    }
+
+    @Override
+    public Geometry next() {
+        try {
+            while (hasNext()) {
+
+                recordNumber = window.getBigEndianInt(position);//1 based
+                int recordSizeBytes = window.getBigEndianInt(position + 4) * 2;
+                position += 8;
+
+                ByteBuffer shapeBuffer = window.slice(position, recordSizeBytes);
+                position += recordSizeBytes;
+
+                if (queryEnvelope != null && !ShapeRecords.intersects(shapeBuffer, queryEnvelope, recordEnvelope)) {
+                    continue;
+                }
+                Geometry geometry = decoder.decode(shapeBuffer);
+                if (geometry != null) {
+                    return geometry; //null shapes are skipped, as in ShapefileGeometryCursor
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            position = window.getFileLength(); //a corrupt record leaves no way to find the next one
+        }
+        return null;
+    }
+
+    /**
+     * Flyweight alternative to {@link #next()}: points record at the next record within the mapping,
+     * rather than decoding a new Geometry. Nothing is allocated or copied.
+     *
+     * @return false when there are no more records
+     */
+    public boolean nextRecord(ShapefileRecord record) {
+        try {
+            while (hasNext()) {
+
+                recordNumber = window.getBigEndianInt(position);//1 based
+                int recordSizeBytes = window.getBigEndianInt(position + 4) * 2;
+                position += 8;
+
+                int index = window.ensureMapped(position, recordSizeBytes);
+                position += recordSizeBytes;
+
+                record.set(recordNumber, geomType, window.littleEndianWindow(), index, recordSizeBytes);
+                if (queryEnvelope != null) {
+                    record.queryEnvelope2D(recordEnvelope);
+                    if (!queryEnvelope.isIntersecting(recordEnvelope)) {
+                        continue;
+                    }
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            position = window.getFileLength(); //a corrupt record leaves no way to find the next one
+        }
+        return false;
+    }
+
+    @Override
+    public int getGeometryID() {
+        return recordNumber;
+    }
+
+    public Envelope2D getEnvelope2D() {
+        return envelope2D;
+    }
+
+    /**
+     * @return the bounding box of the file including the z range, which is empty for files without Z
+     */
+    public Envelope3D getEnvelope3D() {
+        return header.getEnvelope3D();
+    }
+
+    /**
+     * @return the m range of the file, which is empty for files without M
+     */
+    public Envelope1D getMRange() {
+        return header.getMRange();
+    }
+
+    public boolean hasZ() {
+        return header.hasZ();
+    }
+
+    /**
+     * M values are optional in the Z types, so this can be true although the records carry no M values
+     */
+    public boolean hasM() {
+        return header.hasM();
+    }
+
+    /**
+     * When set, {@link #next()} decodes x and y only and returns 2D geometries, even from Z or M files.
+     * Only the x and y bytes of each record are copied out of the mapping for the importer.
+     */
+    public void setDropZM(boolean dropZM) {
+        decoder.setDropZM(dropZM);
+    }
+
+    public boolean hasNext() {
+        return position < window.getFileLength();
+    }
+
+    public Geometry.Type getGeometryType() {
+        return geomType;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Dissolves the geometries of a cursor into one, like {@link OperatorUnion#execute(GeometryCursor,
+ * SpatialReference, ProgressTracker)}, on the threads of the supplied executor.
+ * <p>
+ * The geometries are sorted along a Hilbert curve by the center of their envelope and cut into partitions of
+ * consecutive geometries, so each partition covers a compact area. The partitions are unioned in parallel, and the
+ * partial results are merged pairwise in a balanced tree: neighbouring partitions are merged first, and most shared
+ * boundaries are dissolved while the geometries are still small.
+ * <p>
+ * No task waits for another: the calling thread submits each merge as soon as both of its inputs are done, so any
+ * executor can be used, including a ForkJoinPool or a single thread. The geometries should have the same dimension,
+ * such as the polygons of a layer.
+ */
+public final class ParallelDissolve {
+
+    static final int DEFAULT_PARTITION_SIZE = 1024;
+
+    private final ExecutorService executor;
+    private final SpatialReference spatialReference;
+    private final int partitionSize;
+
+    public ParallelDissolve(ExecutorService executor, SpatialReference spatialReference) {
+        this(executor, spatialReference, DEFAULT_PARTITION_SIZE);
+    }
+
+    /**
+     * @param spatialReference gives the tolerance, or null to derive it from the extent of all the geometries
+     * @param partitionSize    the number of geometries unioned by one task before the merges
+     */
+    public ParallelDissolve(ExecutorService executor, SpatialReference spatialReference, int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("partition size " + partitionSize);
+        }
+        this.executor = executor;
+        this.spatialReference = spatialReference;
+        this.partitionSize = partitionSize;
+    }
+
+    /**
+     * Reads the cursor to the end and returns the union of its geometries, or null if it has none.
+     * Exceptions of the union operator are rethrown.
+     */
+    public Geometry execute(GeometryCursor cursor) {
+        Envelope2D extent = new Envelope2D();
+        Geometry[] geometries = hilbertOrder(cursor, extent);
+        if (geometries.length == 0) {
+            return null;
+        }
+        //every task must use the same tolerance, not one derived from the envelope of its own inputs
+        final SpatialReference reference = spatialReference != null ? spatialReference : toleranceReference(extent);
+
+        //the number of partial results in each level of the merge tree, from the partitions up to the root
+        List<Integer> levelSizes = new ArrayList<Integer>();
+        for (int size = (geometries.length + partitionSize - 1) / partitionSize; ; size = (size + 1) / 2) {
+            levelSizes.add(size);
+            if (size == 1) {
+                break;
+            }
+        }
+        Partial[][] waiting = new Partial[levelSizes.size()][];
+        for (int level = 0; level < waiting.length; level++) {
+            waiting[level] = new Partial[levelSizes.get(level)];
+        }
+
+        CompletionService<Partial> completion = new ExecutorCompletionService<Partial>(executor);
+        List<Future<Partial>> tasks = new ArrayList<Future<Partial>>();
+        for (int start = 0; start < geometries.length; start += partitionSize) {
+            final Geometry[] partition = Arrays.copyOfRange(geometries, start,
+                    Math.min(start + partitionSize, geometries.length));
+            final int index = start / partitionSize;
+            tasks.add(completion.submit(new Callable<Partial>() {
+                @Override
+                public Partial call() {
+                    return new Partial(0, index, OperatorUnion.local().execute(new SimpleGeometryCursor(partition),
+                            reference, null).next());
+                }
+            }));
+        }
+        Arrays.fill(geometries, null);
+
+        while (true) {
+            Partial partial = take(completion, tasks);
+            //the last partial result of a level with an odd size has no sibling and moves up unchanged
+            while (partial.level + 1 < waiting.length && (partial.index ^ 1) >= waiting[partial.level].length) {
+                partial = new Partial(partial.level + 1, partial.index / 2, partial.geometry);
+            }
+            if (partial.level + 1 == waiting.length) {
+                return partial.geometry;
+            }
+            Partial sibling = waiting[partial.level][partial.index ^ 1];
+            if (sibling == null) {
+                waiting[partial.level][partial.index] = partial;
+                continue;
+            }
+            waiting[partial.level][sibling.index] = null;
+            final int level = partial.level + 1;
+            final int index = partial.index / 2;
+            final Geometry first = (partial.index & 1) == 0 ? partial.geometry : sibling.geometry;
+            final Geometry second = (partial.index & 1) == 0 ? sibling.geometry : partial.geometry;
+            tasks.add(completion.submit(new Callable<Partial>() {
+                @Override
+                public Partial call() {
+                    return new Partial(level, index, OperatorUnion.local().execute(first, second, reference, null));
+                }
+            }));
+        }
+    }
+
+    /**
+     * Returns the non empty geometries of the cursor sorted by the Hilbert value of their envelope center, and sets
+     * the extent to the envelope of them all.
+     */
+    static Geometry[] hilbertOrder(GeometryCursor cursor, Envelope2D extent) {
+        List<Geometry> geometries = new ArrayList<Geometry>();
+        double[] centers = new double[2 * 1024];
+        extent.setEmpty();
+        Envelope2D envelope = new Envelope2D();
+        Geometry geometry;
+        while ((geometry = cursor.next()) != null) {
+            geometry.queryEnvelope2D(envelope);
+            if (envelope.isEmpty()) {
+                continue;
+            }
+            int i = geometries.size();
+            if (2 * i == centers.length) {
+                centers = Arrays.copyOf(centers, 2 * centers.length);
+            }
+            centers[2 * i] = (envelope.xmin + envelope.xmax) / 2;
+            centers[2 * i + 1] = (envelope.ymin + envelope.ymax) / 2;
+            extent.merge(envelope);
+            geometries.add(geometry);
+        }
+
+        int count = geometries.size();
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ShapefileRTreeBuilder.hilbertKey(centers[2 * i], centers[2 * i + 1], extent, i);
+        }
+        Arrays.sort(keys);
+
+        Geometry[] sorted = new Geometry[count];
+        for (int pos = 0; pos < count; pos++) {
+            sorted[pos] = geometries.get((int) keys[pos]);
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns a spatial reference whose tolerance is used by every union of geometries inside the extent.
+     * <p>
+     * Without a spatial reference the union derives its tolerance from the coordinates of its inputs, 400 machine
+     * epsilons of the sum of the absolute bounds of their envelope, so tasks on different parts of the extent would
+     * snap with different tolerances. With one, it takes the larger of that and 1.1 times the tolerance of the spatial
+     * reference, so a tolerance of 4 times the bound for any envelope inside the extent wins everywhere.
+     * The geometry library creates a spatial reference of a given tolerance only from the text of a projected
+     * coordinate system, whose tolerance is a millimeter in its unit.
+     */
+    static SpatialReference toleranceReference(Envelope2D extent) {
+        double reach = 2 * Math.max(Math.abs(extent.xmin), Math.abs(extent.xmax))
+                + 2 * Math.max(Math.abs(extent.ymin), Math.abs(extent.ymax)) + 1;
+        double tolerance = 4 * 100 * Math.ulp(1.0) * reach;
+        return SpatialReference.create("PROJCS[\"dissolve\",UNIT[\"tolerance\"," + 0.001 / tolerance + "]]");
+    }
+
+    /**
+     * Waits for the next partial result. On failure all the tasks are cancelled.
+     */
+    private static Partial take(CompletionService<Partial> completion, List<Future<Partial>> tasks) {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(tasks);
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static void cancel(List<Future<Partial>> tasks) {
+        for (Future<Partial> task : tasks) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * The union of the partitions under one node of the merge tree.
+     */
+    private static final class Partial {
+        final int level;
+        final int index;
+        final Geometry geometry;
+
+        Partial(int level, int index, Geometry geometry) {
+            this.level = level;
+            this.index = index;
+            this.geometry = geometry;
+        }
+    }
+}
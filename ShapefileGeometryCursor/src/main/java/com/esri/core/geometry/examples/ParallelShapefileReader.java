@@ -0,0 +1,254 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes a shapefile on several threads. The .shx offsets are used to cut the .shp into byte ranges
+ * ("splits") of whole records, and each split is mapped and decoded by a task on the supplied executor,
+ * which may be a ForkJoinPool, a fixed thread pool or a virtual thread executor.
+ * The number of splits decoded ahead of the consumer is bounded, so memory use does not grow with file size.
+ */
+public class ParallelShapefileReader implements Closeable {
+
+    static final int DEFAULT_SPLIT_SIZE = 4 << 20; //4MB
+
+    private final FileChannel channel;
+    private final ShapefileIndex index;
+    private final ExecutorService executor;
+    private final int splitSizeBytes;
+    private final int maxSplitsInFlight;
+    private final Geometry.Type geomType;
+    private boolean dropZM;
+
+    /**
+     * Opens a shapefile with its index in the same directory.
+     */
+    public ParallelShapefileReader(File shpFile, ExecutorService executor) throws IOException {
+        this(shpFile, ShapefileIndex.read(ShapefileIndex.companionFile(shpFile, "shx")), executor,
+                DEFAULT_SPLIT_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param splitSizeBytes    the approximate number of bytes decoded by one task
+     * @param maxSplitsInFlight the maximum number of splits submitted but not yet consumed
+     */
+    public ParallelShapefileReader(File shpFile, ShapefileIndex index, ExecutorService executor,
+                                   int splitSizeBytes, int maxSplitsInFlight) throws IOException {
+        if (splitSizeBytes <= 0 || maxSplitsInFlight <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.index = index;
+        this.executor = executor;
+        this.splitSizeBytes = splitSizeBytes;
+        this.maxSplitsInFlight = maxSplitsInFlight;
+        channel = new RandomAccessFile(shpFile, "r").getChannel();
+        try {
+            ByteBuffer headerBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, ShapefileHeader.LENGTH);
+            geomType = ShapefileHeader.read(headerBuffer).geomType;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a cursor over all records. Null shapes are skipped.
+     * {@link GeometryCursor#getGeometryID()} returns the record number of the current geometry.
+     *
+     * @param preserveOrder if true, records are returned in file order. Otherwise each split is returned
+     *                      as soon as it has been decoded, which keeps all threads busy when splits are uneven.
+     */
+    public GeometryCursor cursor(boolean preserveOrder) {
+        return new SplitCursor(preserveOrder);
+    }
+
+    public Geometry.Type getGeometryType() {
+        return geomType;
+    }
+
+    /**
+     * When set, cursors created afterwards decode 2D geometries, skipping any Z and M values.
+     */
+    public void setDropZM(boolean dropZM) {
+        this.dropZM = dropZM;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the index of the first record after the split starting at record first
+     */
+    private int splitEnd(int first) {
+        long start = index.getOffset(first);
+        int end = first + 1;
+        while (end < index.getRecordCount() && index.getOffset(end) - start < splitSizeBytes) {
+            end++;
+        }
+        return end;
+    }
+
+    private static final class DecodedSplit {
+        final Geometry[] geometries;
+        final int[] recordNumbers;
+        final int count;
+
+        DecodedSplit(Geometry[] geometries, int[] recordNumbers, int count) {
+            this.geometries = geometries;
+            this.recordNumbers = recordNumbers;
+            this.count = count;
+        }
+    }
+
+    private final class SplitTask implements Callable<DecodedSplit> {
+        private final int first;
+        private final int end;
+        private final boolean dropZM;
+
+        SplitTask(int first, int end, boolean dropZM) {
+            this.first = first;
+            this.end = end;
+            this.dropZM = dropZM;
+        }
+
+        @Override
+        public DecodedSplit call() throws IOException {
+            ShapeDecoder decoder = new ShapeDecoder(geomType);
+            decoder.setDropZM(dropZM);
+
+            long start = index.getOffset(first);
+            long length = index.getOffset(end - 1) + 8 + index.getContentLength(end - 1) - start;
+            ByteBuffer split = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+            Geometry[] geometries = new Geometry[end - first];
+            int[] recordNumbers = new int[end - first];
+            int count = 0;
+            for (int i = first; i < end; i++) {
+                int contentOffset = (int) (index.getOffset(i) - start) + 8; //skip the record header
+                split.limit(contentOffset + index.getContentLength(i));
+                split.position(contentOffset);
+                ByteBuffer shapeBuffer = split.slice().order(ByteOrder.LITTLE_ENDIAN);
+                split.clear();
+
+                Geometry geometry = decoder.decode(shapeBuffer);
+                if (geometry != null) {
+                    geometries[count] = geometry;
+                    recordNumbers[count] = i + 1;
+                    count++;
+                }
+            }
+            return new DecodedSplit(geometries, recordNumbers, count);
+        }
+    }
+
+    private final class SplitCursor extends GeometryCursor {
+        private final boolean preserveOrder;
+        private final boolean dropZM = ParallelShapefileReader.this.dropZM;
+        //the submitted splits, in submission order; unordered splits are removed as they complete
+        private final Queue<Future<DecodedSplit>> pending = new ArrayDeque<Future<DecodedSplit>>();
+        private final CompletionService<DecodedSplit> completionService;
+        private int inFlight;
+        private int nextRecord; //first record of the next split to submit
+
+        private DecodedSplit current;
+        private int currentIndex;
+        private int recordNumber;
+
+        SplitCursor(boolean preserveOrder) {
+            this.preserveOrder = preserveOrder;
+            completionService = preserveOrder ? null : new ExecutorCompletionService<DecodedSplit>(executor);
+            fill();
+        }
+
+        private void fill() {
+            while (inFlight < maxSplitsInFlight && nextRecord < index.getRecordCount()) {
+                int end = splitEnd(nextRecord);
+                SplitTask task = new SplitTask(nextRecord, end, dropZM);
+                pending.add(preserveOrder ? executor.submit(task) : completionService.submit(task));
+                inFlight++;
+                nextRecord = end;
+            }
+        }
+
+        @Override
+        public Geometry next() {
+            while (current == null || currentIndex == current.count) {
+                if (inFlight == 0) {
+                    return null;
+                }
+                try {
+                    //the split waited on stays pending until it is done, so an interrupt cancels it too
+                    Future<DecodedSplit> future = preserveOrder ? pending.element() : completionService.take();
+                    current = future.get();
+                    pending.remove(future);
+                    inFlight--;
+                    currentIndex = 0;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    return null;
+                } catch (ExecutionException e) {
+                    cancel();
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    e.printStackTrace();
+                    return null;
+                }
+                fill();
+            }
+
+            recordNumber = current.recordNumbers[currentIndex];
+            Geometry geometry = current.geometries[currentIndex];
+            current.geometries[currentIndex] = null; //release it once handed out
+            currentIndex++;
+            return geometry;
+        }
+
+        private void cancel() {
+            for (Future<DecodedSplit> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+            nextRecord = index.getRecordCount();
+            inFlight = 0;
+            current = null;
+        }
+
+        @Override
+        public int getGeometryID() {
+            return recordNumber;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a channel ahead of its consumer on a background thread, so that the consumer decodes one chunk while the
+ * next chunks are being read. The chunks go round a ring of depth pooled buffers: the reader thread fills the free
+ * buffers in order and the consumer hands each buffer back once it has copied it out, so no buffer is allocated
+ * after the constructor.
+ * <p>
+ * The reader thread stops at the end of the source, on an error, which is thrown by the next {@link #read} once
+ * the chunks before it are consumed, or on {@link #close()}.
+ */
+final class ReadAheadChannel implements ReadableByteChannel {
+
+    static final int DEFAULT_DEPTH = 4;
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20; //1MB
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final ReadableByteChannel source;
+    private final BlockingQueue<ByteBuffer> free;
+    private final BlockingQueue<ByteBuffer> filled; //in the order of the source, then END
+    private final Thread reader;
+    private volatile IOException error;
+    private volatile boolean closed;
+
+    private ByteBuffer current; //the chunk being consumed, or END
+
+    /**
+     * @param depth     the number of buffers in the ring, at least 2: one being consumed, the others being filled
+     * @param chunkSize the size of each buffer
+     */
+    ReadAheadChannel(ReadableByteChannel source, int depth, int chunkSize) {
+        if (depth < 2 || chunkSize < 1) {
+            throw new IllegalArgumentException("depth " + depth + ", chunk size " + chunkSize);
+        }
+        this.source = source;
+        free = new ArrayBlockingQueue<ByteBuffer>(depth);
+        filled = new ArrayBlockingQueue<ByteBuffer>(depth + 1);
+        for (int i = 0; i < depth; i++) {
+            free.add(ByteBuffer.allocate(chunkSize));
+        }
+
+        reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readAhead();
+            }
+        }, "ShapefileReadAhead");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readAhead() {
+        try {
+            while (!closed) {
+                ByteBuffer chunk = free.take();
+                chunk.clear();
+                boolean end = false;
+                while (chunk.hasRemaining()) {
+                    if (source.read(chunk) < 0) {
+                        end = true;
+                        break;
+                    }
+                }
+                chunk.flip();
+                if (chunk.hasRemaining()) {
+                    filled.put(chunk);
+                }
+                if (end) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            return; //closed
+        } catch (IOException e) {
+            if (closed) {
+                return;
+            }
+            error = e;
+        }
+        filled.offer(END); //there is always room for it, as the ring holds only depth buffers
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (current == null || !current.hasRemaining()) {
+            if (current == END) {
+                return end();
+            }
+            if (current != null) {
+                free.add(current);
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (current == END) {
+                return end();
+            }
+        }
+
+        int n = Math.min(dst.remaining(), current.remaining());
+        int limit = current.limit();
+        current.limit(current.position() + n);
+        dst.put(current);
+        current.limit(limit);
+        return n;
+    }
+
+    private int end() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Stops the reader thread and closes the source.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.interrupt();
+        source.close();
+    }
+}
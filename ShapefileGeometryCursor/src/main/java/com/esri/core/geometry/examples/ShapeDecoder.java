@@ -0,0 +1,207 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes record content into geometries. On top of {@link OperatorImportFromESRIShape} this handles
+ * what differs between shapefiles and the ESRI shape buffers the operator expects:
+ * <ul>
+ * <li>M values are optional in the Z types of a shapefile, whereas the operator reads ZM shapes</li>
+ * <li>MultiPatch records, which are returned as polygons with one ring per triangle or ring</li>
+ * <li>Dropping Z and M, so that 2D pipelines only decode x and y</li>
+ * </ul>
+ * Buffers are little-endian and indexed from the shape type. Not thread safe.
+ */
+final class ShapeDecoder {
+
+    //ESRI shape types for Z without M, which have no shapefile equivalent
+    private static final int SHAPE_POINT_Z = 9;
+    private static final int SHAPE_POLYLINE_Z = 10;
+    private static final int SHAPE_POLYGON_Z = 19;
+    private static final int SHAPE_MULTIPOINT_Z = 20;
+
+    private final OperatorImportFromESRIShape importFromESRIShape = OperatorImportFromESRIShape.local();
+    private final Geometry.Type geomType;
+    private boolean dropZM;
+
+    private ByteBuffer scratch = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+    ShapeDecoder(Geometry.Type geomType) {
+        this.geomType = geomType;
+    }
+
+    Geometry.Type getGeometryType() {
+        return geomType;
+    }
+
+    void setDropZM(boolean dropZM) {
+        this.dropZM = dropZM;
+    }
+
+    /**
+     * @param shape the record content, from the shape type up to the limit
+     * @return the geometry, or null for a null shape
+     */
+    Geometry decode(ByteBuffer shape) {
+        int shpType = ShapeRecords.shapeType(shape);
+        if (shpType == ShapeRecords.MULTIPATCH) {
+            return decodeMultiPatch(shape);
+        }
+
+        int esriType = shpType;
+        int length = shape.limit();
+        if (dropZM) {
+            //the importer stops after x and y for the 2D types, so only that much is copied
+            esriType = ShapeRecords.baseType(shpType);
+            if (esriType != ShapeRecords.NULL) {
+                length = ShapeRecords.xyLength(shape);
+            }
+        } else if (ShapeRecords.hasZ(shpType) && ShapeRecords.mOffset(shape) < 0) {
+            esriType = zOnlyType(shpType);
+        }
+        if (esriType == shpType) {
+            return importFromESRIShape.execute(0, geomType, shape);
+        }
+        return importFromESRIShape.execute(0, geomType, retype(shape, esriType, length));
+    }
+
+    /**
+     * Copies the first length bytes of the shape into the scratch buffer, replacing the shape type.
+     */
+    private ByteBuffer retype(ByteBuffer shape, int esriType, int length) {
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, 2 * scratch.capacity())).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer source = shape.duplicate();
+        source.limit(length);
+        source.position(0);
+        scratch.clear();
+        scratch.put(source);
+        scratch.flip();
+        scratch.putInt(0, esriType);
+        return scratch;
+    }
+
+    private static int zOnlyType(int shpType) {
+        switch (ShapeRecords.baseType(shpType)) {
+            case ShapeRecords.POINT:
+                return SHAPE_POINT_Z;
+            case ShapeRecords.POLYLINE:
+                return SHAPE_POLYLINE_Z;
+            case ShapeRecords.POLYGON:
+                return SHAPE_POLYGON_Z;
+            case ShapeRecords.MULTIPOINT:
+                return SHAPE_MULTIPOINT_Z;
+            default:
+                return shpType;
+        }
+    }
+
+    /**
+     * A MultiPatch is a set of surface parts: triangle strips and fans are split into one ring per triangle,
+     * and rings are added as they are. The result is not simplified, as the parts generally overlap in 2D.
+     */
+    private Polygon decodeMultiPatch(ByteBuffer shape) {
+        /*
+        Byte 0 Shape Type 31 Integer Little
+        Byte 4 Box Box Double[4] Little
+        Byte X NumParts NumParts Integer Little
+        Byte X+4 NumPoints NumPoints Integer Little
+        Byte X+8 Parts Parts Integer[NumParts] Little
+        Byte W PartTypes PartTypes Integer[NumParts] Little
+        Byte Z Points Points Point[NumPoints] Little
+        followed by the z range and values, then optionally the m range and values
+         */
+        int partCount = ShapeRecords.partCount(shape);
+        int pointCount = ShapeRecords.pointCount(shape);
+        int zOffset = dropZM ? -1 : ShapeRecords.zOffset(shape);
+        int mOffset = dropZM ? -1 : ShapeRecords.mOffset(shape);
+
+        //the vertex is copied into the polygon, along with its Z and M
+        Point vertex = new Point();
+        Polygon polygon = new Polygon();
+        if (zOffset >= 0) {
+            vertex.addAttribute(VertexDescription.Semantics.Z);
+            polygon.addAttribute(VertexDescription.Semantics.Z);
+        }
+        if (mOffset >= 0) {
+            vertex.addAttribute(VertexDescription.Semantics.M);
+            polygon.addAttribute(VertexDescription.Semantics.M);
+        }
+
+        for (int part = 0; part < partCount; part++) {
+            int start = shape.getInt(44 + 4 * part);
+            int end = part + 1 < partCount ? shape.getInt(44 + 4 * (part + 1)) : pointCount;
+            int partType = shape.getInt(44 + 4 * partCount + 4 * part);
+            switch (partType) {
+                case 0: //triangle strip
+                    for (int i = start; i + 2 < end; i++) {
+                        addTriangle(polygon, vertex, shape, i, i + 1, i + 2, zOffset, mOffset);
+                    }
+                    break;
+                case 1: //triangle fan
+                    for (int i = start + 1; i + 1 < end; i++) {
+                        addTriangle(polygon, vertex, shape, start, i, i + 1, zOffset, mOffset);
+                    }
+                    break;
+                default: //outer, inner, first and plain rings, stored closed
+                    if (end - start > 1 && getX(shape, start) == getX(shape, end - 1)
+                            && getY(shape, start) == getY(shape, end - 1)) {
+                        end--;
+                    }
+                    for (int i = start; i < end; i++) {
+                        addVertex(polygon, vertex, shape, i, i == start, zOffset, mOffset);
+                    }
+                    break;
+            }
+        }
+        return polygon;
+    }
+
+    private static void addTriangle(Polygon polygon, Point vertex, ByteBuffer shape, int a, int b, int c,
+                                    int zOffset, int mOffset) {
+        addVertex(polygon, vertex, shape, a, true, zOffset, mOffset);
+        addVertex(polygon, vertex, shape, b, false, zOffset, mOffset);
+        addVertex(polygon, vertex, shape, c, false, zOffset, mOffset);
+    }
+
+    private static void addVertex(Polygon polygon, Point vertex, ByteBuffer shape, int point, boolean startPath,
+                                  int zOffset, int mOffset) {
+        vertex.setXY(getX(shape, point), getY(shape, point));
+        if (zOffset >= 0) {
+            vertex.setZ(ShapeRecords.ordinate(shape, zOffset + 8 * point));
+        }
+        if (mOffset >= 0) {
+            vertex.setM(ShapeRecords.ordinate(shape, mOffset + 8 * point));
+        }
+        if (startPath) {
+            polygon.startPath(vertex);
+        } else {
+            polygon.lineTo(vertex);
+        }
+    }
+
+    private static double getX(ByteBuffer shape, int point) {
+        return shape.getDouble(ShapeRecords.pointsOffset(shape) + 16 * point);
+    }
+
+    private static double getY(ByteBuffer shape, int point) {
+        return shape.getDouble(ShapeRecords.pointsOffset(shape) + 16 * point + 8);
+    }
+}
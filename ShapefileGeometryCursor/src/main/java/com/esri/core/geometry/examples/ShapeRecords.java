@@ -0,0 +1,193 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.Envelope2D;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads fields of a record's content without decoding its geometry.
+ * Buffers are little-endian and indexed from the start of the record content, i.e. the shape type.
+ */
+final class ShapeRecords {
+
+    /**
+     * Shape type, plus the bounding box that follows it in all but point records
+     */
+    static final int BOUNDS_PREFIX_LENGTH = 4 + 4 * 8;
+
+    static final int NULL = 0;
+    static final int POINT = 1;
+    static final int POLYLINE = 3;
+    static final int POLYGON = 5;
+    static final int MULTIPOINT = 8;
+    static final int MULTIPATCH = 31;
+
+    /**
+     * Values below this are "no data" in the shapefile spec
+     */
+    private static final double NO_DATA = -1e38;
+
+    private ShapeRecords() {
+    }
+
+    static int shapeType(ByteBuffer shape) {
+        return shape.getInt(0);
+    }
+
+    /**
+     * @return the 2D shape type of a shapefile shape type, e.g. 3 for PolyLine, PolyLineZ and PolyLineM,
+     * or 31 for MultiPatch, which has no 2D form
+     */
+    static int baseType(int shpType) {
+        return shpType == MULTIPATCH ? MULTIPATCH : shpType % 10;
+    }
+
+    static boolean hasZ(int shpType) {
+        return (shpType > 10 && shpType < 20) || shpType == MULTIPATCH;
+    }
+
+    /**
+     * @return true if records of the type may carry M values: mandatory for the M types, optional for the Z types
+     */
+    static boolean mayHaveM(int shpType) {
+        return shpType > 10;
+    }
+
+    static int partCount(ByteBuffer shape) {
+        switch (baseType(shapeType(shape))) {
+            case NULL:
+                return 0;
+            case POINT:
+            case MULTIPOINT:
+                return 1;
+            default:
+                return shape.getInt(36);
+        }
+    }
+
+    static int pointCount(ByteBuffer shape) {
+        switch (baseType(shapeType(shape))) {
+            case NULL:
+                return 0;
+            case POINT:
+                return 1;
+            case MULTIPOINT:
+                return shape.getInt(36);
+            default:
+                return shape.getInt(40);
+        }
+    }
+
+    /**
+     * @return the offset of the first x
+     */
+    static int pointsOffset(ByteBuffer shape) {
+        switch (baseType(shapeType(shape))) {
+            case NULL:
+            case POINT:
+                return 4;
+            case MULTIPOINT: //box, point count
+                return 40;
+            case MULTIPATCH: //box, part count, point count, parts, part types
+                return 44 + 8 * shape.getInt(36);
+            default: //box, part count, point count, parts
+                return 44 + 4 * shape.getInt(36);
+        }
+    }
+
+    /**
+     * @return the length of the record up to the end of the x and y values, i.e. without Z and M
+     */
+    static int xyLength(ByteBuffer shape) {
+        return pointsOffset(shape) + 16 * pointCount(shape);
+    }
+
+    /**
+     * @return the offset of the first z, or -1 if the record has none
+     */
+    static int zOffset(ByteBuffer shape) {
+        int shpType = shapeType(shape);
+        if (!hasZ(shpType)) {
+            return -1;
+        }
+        //all but points have a z range before the values
+        return baseType(shpType) == POINT ? 20 : xyLength(shape) + 16;
+    }
+
+    /**
+     * @return the offset of the first m, or -1 if the record has none, as may be the case for the Z types
+     */
+    static int mOffset(ByteBuffer shape) {
+        int shpType = shapeType(shape);
+        if (!mayHaveM(shpType)) {
+            return -1;
+        }
+        int pointCount = pointCount(shape);
+        int offset = xyLength(shape);
+        if (hasZ(shpType)) {
+            offset += 8 * pointCount;
+        }
+        if (baseType(shpType) != POINT) {
+            //z range, then m range
+            offset += hasZ(shpType) ? 32 : 16;
+        }
+        return offset + 8 * pointCount <= shape.limit() ? offset : -1;
+    }
+
+    /**
+     * @return the value, or NaN for the "no data" values of the shapefile spec
+     */
+    static double ordinate(ByteBuffer shape, int index) {
+        double value = shape.getDouble(index);
+        return value < NO_DATA ? Double.NaN : value;
+    }
+
+    /**
+     * Sets envelope to the bounds of the record: the stored bounding box, or the point itself.
+     * Only the first {@link #BOUNDS_PREFIX_LENGTH} bytes of the record are read.
+     *
+     * @return false for a null shape, leaving envelope empty
+     */
+    static boolean queryEnvelope(ByteBuffer shape, Envelope2D envelope) {
+        int shpType = baseType(shapeType(shape));
+        if (shpType == NULL) {
+            envelope.setEmpty();
+            return false;
+        }
+        if (shpType == POINT) { //Point, PointZ, PointM
+            double x = shape.getDouble(4);
+            double y = shape.getDouble(12);
+            envelope.setCoords(x, y, x, y);
+        } else {
+            /*
+            Byte 4 Box Xmin Double Little
+            Byte 12 Box Ymin Double Little
+            Byte 20 Box Xmax Double Little
+            Byte 28 Box Ymax Double Little
+             */
+            envelope.setCoords(shape.getDouble(4), shape.getDouble(12), shape.getDouble(20), shape.getDouble(28));
+        }
+        return true;
+    }
+
+    /**
+     * @param scratch overwritten with the record bounds
+     * @return true if the record bounds intersect the query, false for null shapes
+     */
+    static boolean intersects(ByteBuffer shape, Envelope2D query, Envelope2D scratch) {
+        return queryEnvelope(shape, scratch) && query.isIntersecting(scratch);
+    }
+}
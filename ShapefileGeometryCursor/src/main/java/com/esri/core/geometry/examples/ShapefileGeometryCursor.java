@@ -20,6 +20,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
 
 /**
  *
@@ -28,40 +30,97 @@ import java.nio.ByteBuffer;
  */
 public class ShapefileGeometryCursor extends GeometryCursor {
 
-    private final MixedEndianDataInputStream inputStream;
+    private final ShapefileInput input;
+    private final ShapefileHeader header;
     private final Envelope2D envelope2D;
 
-    private OperatorImportFromESRIShape importFromESRIShape = OperatorImportFromESRIShape.local();
-    private final int fileLengthBytes;
-    private int position = 0; //keeps track of where inputstream is
+    private final ShapeDecoder decoder;
+    private final long fileLengthBytes;
+    private long position = 0; //keeps track of where inputstream is
     private int recordNumber; //the record number according to shapefile
 
     private final Geometry.Type geomType;
 
+    private final Envelope2D queryEnvelope;
+    private final Envelope2D recordEnvelope = new Envelope2D();
+
+    private byte[] recordBytes = new byte[256];
+    private ByteBuffer recordBuffer = ByteBuffer.wrap(recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Null shapes are skipped, so they show up as gaps in the record numbers returned by {@link #getGeometryID()}.
+     */
     @Override
     public Geometry next() {
-        if (! hasNext()) {
-            return null;
+        try {
+            while (readRecord()) {
+                Geometry geometry = decoder.decode(recordBuffer);
+                if (geometry != null) {
+                    return geometry;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        return null;
+    }
+
+    /**
+     * Flyweight alternative to {@link #next()}: points record at the next record in the cursor's read buffer,
+     * which is reused from one record to the next, rather than decoding a new Geometry.
+     *
+     * @return false when there are no more records
+     */
+    public boolean nextRecord(ShapefileRecord record) {
         try {
+            if (readRecord()) {
+                record.set(recordNumber, geomType, recordBuffer, 0, recordBuffer.limit());
+                return true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
 
-            recordNumber = inputStream.readInt();//1 based
-            int recLength = inputStream.readInt();
+    /**
+     * Reads the next record matching the query envelope, if any, into recordBuffer.
+     * The buffer only grows, so in steady state no allocation takes place.
+     *
+     * @return false when there are no more records
+     */
+    private boolean readRecord() throws IOException {
+        while (hasNext()) {
+
+            recordNumber = input.readBigEndianInt();//1 based
+            int recLength = input.readBigEndianInt();
             position += 8;
 
             int recordSizeBytes = (recLength * 2);
-            byte[] bytes = new byte[recordSizeBytes];
-            int read = inputStream.read(bytes);
-
-            Geometry polyline = importFromESRIShape.execute(0, geomType, ByteBuffer.wrap(bytes));
             position += recordSizeBytes;
 
-            return polyline;
-
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (recordBytes.length < recordSizeBytes) {
+                recordBytes = new byte[Math.max(recordSizeBytes, 2 * recordBytes.length)];
+                //the importer reads the shape type before switching to little-endian itself
+                recordBuffer = ByteBuffer.wrap(recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            recordBuffer.clear();
+            recordBuffer.limit(recordSizeBytes);
+
+            int prefixLength = 0;
+            if (queryEnvelope != null) {
+                //read only the shape type and bounding box, then skip the record if it cannot intersect
+                prefixLength = Math.min(recordSizeBytes, ShapeRecords.BOUNDS_PREFIX_LENGTH);
+                input.readFully(recordBytes, 0, prefixLength);
+                if (!ShapeRecords.intersects(recordBuffer, queryEnvelope, recordEnvelope)) {
+                    input.skipFully(recordSizeBytes - prefixLength);
+                    continue;
+                }
+            }
+            input.readFully(recordBytes, prefixLength, recordSizeBytes - prefixLength);
+            return true;
         }
-        return null;
+        return false;
     }
 
     @Override
@@ -73,110 +132,96 @@ public class ShapefileGeometryCursor extends GeometryCursor {
         return envelope2D;
     }
 
-    public ShapefileGeometryCursor(File inFile) throws IOException {
-        this(new FileInputStream(inFile));
+    /**
+     * @return the bounding box of the file including the z range, which is empty for files without Z
+     */
+    public Envelope3D getEnvelope3D() {
+        return header.getEnvelope3D();
     }
 
-    public ShapefileGeometryCursor(InputStream in) throws IOException {
-
-        this.inputStream = new MixedEndianDataInputStream(in);
+    /**
+     * @return the m range of the file, which is empty for files without M
+     */
+    public Envelope1D getMRange() {
+        return header.getMRange();
+    }
 
-        /*
-        Byte 0 File Code 9994 Integer Big
-         */
-        int fileCode = inputStream.readInt();
-        if (fileCode != 9994) {
-            throw new IOException("file code " + fileCode + " is not supported.");
-        }
+    public boolean hasZ() {
+        return header.hasZ();
+    }
 
-        /*
-        Byte 4 Unused 0 Integer Big
-        Byte 8 Unused 0 Integer Big
-        Byte 12 Unused 0 Integer Big
-        Byte 16 Unused 0 Integer Big
-        Byte 20 Unused 0 Integer Big
-         */
-        inputStream.skipBytes(20);
+    /**
+     * M values are optional in the Z types, so this can be true although the records carry no M values
+     */
+    public boolean hasM() {
+        return header.hasM();
+    }
 
-        fileLengthBytes = inputStream.readInt() * 2;
+    /**
+     * When set, {@link #next()} decodes x and y only and returns 2D geometries, even from Z or M files.
+     */
+    public void setDropZM(boolean dropZM) {
+        decoder.setDropZM(dropZM);
+    }
 
-        int v = this.inputStream.readLittleEndianInt();
+    public ShapefileGeometryCursor(File inFile) throws IOException {
+        this(inFile, null);
+    }
 
-        if (v != 1000) {
-            throw new IOException("version " + v + " is not supported.");
-        }
+    /**
+     * Returns only records whose bounding box intersects queryEnvelope.
+     * Other records are skipped after reading their bounding box, without decoding their geometry.
+     */
+    public ShapefileGeometryCursor(File inFile, Envelope2D queryEnvelope) throws IOException {
+        this(new ShapefileInput(new FileInputStream(inFile).getChannel()), queryEnvelope);
+    }
 
-        int shpTypeId = this.inputStream.readLittleEndianInt();
-        geomType = geometryTypeFromShpType(shpTypeId);
-
-        /*
-        Byte 24 File Length File Length Integer Big
-        Byte 28 Version 1000 Integer Little
-        Byte 32 Shape Type Shape Type Integer Little
-        Byte 36 Bounding Box Xmin Double Little
-        Byte 44 Bounding Box Ymin Double Little
-        Byte 52 Bounding Box Xmax Double Little
-        Byte 60 Bounding Box Ymax Double Little
-        Byte 68* Bounding Box Zmin Double Little
-        Byte 76* Bounding Box Zmax Double Little
-        Byte 84* Bounding Box Mmin Double Little
-        Byte 92* Bounding Box Mmax Double Little
-        */
-        double xmin = this.inputStream.readLittleEndianDouble();
-        double ymin = this.inputStream.readLittleEndianDouble();
-        double xmax = this.inputStream.readLittleEndianDouble();
-        double ymax = this.inputStream.readLittleEndianDouble();
-        double zmin = this.inputStream.readLittleEndianDouble();
-        double zmax = this.inputStream.readLittleEndianDouble();
-        double mmin = this.inputStream.readLittleEndianDouble();
-        double mmax = this.inputStream.readLittleEndianDouble();
-
-        envelope2D = new Envelope2D(xmin, ymin, xmax, ymax);
-//        envelope3D = new Envelope3D(xmin, ymin, zmin, xmax, ymax, zmax);
-
-        position = 2 * 50; //header is always 50 words long
+    /**
+     * Reads the file ahead of the decoding on a background thread, which fills a ring of readAheadDepth buffers of
+     * chunkSize bytes while the records of the current buffer are decoded. This pays off on network storage, where
+     * the reads would otherwise stall the decoding. Call {@link #close()} to stop the thread before the end of the file.
+     *
+     * @param queryEnvelope if not null, only records whose bounding box intersects it are returned
+     * @param readAheadDepth the number of buffers, at least 2
+     * @param chunkSize the size of the buffers, and of the reads
+     */
+    public ShapefileGeometryCursor(File inFile, Envelope2D queryEnvelope, int readAheadDepth, int chunkSize)
+            throws IOException {
+        this(new ShapefileInput(new ReadAheadChannel(new FileInputStream(inFile).getChannel(), readAheadDepth,
+                chunkSize)), queryEnvelope);
+    }
 
+    public ShapefileGeometryCursor(InputStream in) throws IOException {
+        this(in, null);
     }
 
     /**
-     from esri spec:
-     0 Null Shape
-     1 Point
-     3 PolyLine
-     5 Polygon
-     8 MultiPoint
-     11 PointZ
-     13 PolyLineZ
-     15 PolygonZ
-     18 MultiPointZ
-     21 PointM
-     23 PolyLineM
-     25 PolygonM
-     28 MultiPointM
-     31 MultiPatch
-     therefore final digit suffices to determine type (PolyLine, PolyLineM, PolylineZ are 1, 13 and 23 respectively).
+     * The stream is read in large blocks, so it does not need to be buffered.
      *
-     * @param shpTypeId shape type id from shapfile
-     * @return the geom type
+     * @param queryEnvelope if not null, only records whose bounding box intersects it are returned
      */
-    private Geometry.Type geometryTypeFromShpType(int shpTypeId) {
-        int shpType = shpTypeId % 10;
-
-        switch (shpType) {
-            case 1: //Point
-                return Geometry.Type.Point;
-            case 3: //Polyline
-                return Geometry.Type.Polyline;
-            case 5: //Polygon
-                return Geometry.Type.Polygon;
-            case 8: //Multipoint
-                return Geometry.Type.MultiPoint;
-            default:
-                return Geometry.Type.Unknown;
-        }
+    public ShapefileGeometryCursor(InputStream in, Envelope2D queryEnvelope) throws IOException {
+        this(new ShapefileInput(Channels.newChannel(in)), queryEnvelope);
     }
 
+    ShapefileGeometryCursor(ShapefileInput input, Envelope2D queryEnvelope) throws IOException {
+
+        this.input = input;
+        this.queryEnvelope = queryEnvelope;
+
+        header = ShapefileHeader.read(input);
+        fileLengthBytes = header.fileLengthBytes;
+        geomType = header.geomType;
+        envelope2D = header.getEnvelope2D();
+        decoder = new ShapeDecoder(geomType);
+
+        position = ShapefileHeader.LENGTH;
 
+    }
+
+    /**
+     * With a query envelope, this can be true even though no further records match, in which case next() returns null
+     */
     public boolean hasNext() {
         return position < fileLengthBytes;
     }
@@ -184,4 +229,11 @@ public class ShapefileGeometryCursor extends GeometryCursor {
     public Geometry.Type getGeometryType() {
         return geomType;
     }
+
+    /**
+     * Closes the file or stream, and stops the read-ahead thread if any.
+     */
+    public void close() throws IOException {
+        input.close();
+    }
 }
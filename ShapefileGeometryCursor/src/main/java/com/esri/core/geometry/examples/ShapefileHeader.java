@@ -0,0 +1,246 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.Envelope1D;
+import com.esri.core.geometry.Envelope2D;
+import com.esri.core.geometry.Envelope3D;
+import com.esri.core.geometry.Geometry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The 100 byte header shared by .shp and .shx files.
+ */
+final class ShapefileHeader {
+
+    static final int LENGTH = 2 * 50; //header is always 50 words long
+
+    private static final int FILE_CODE = 9994;
+    private static final int VERSION = 1000;
+
+    final long fileLengthBytes;
+    final int shpTypeId;
+    final Geometry.Type geomType;
+    final double xmin;
+    final double ymin;
+    final double xmax;
+    final double ymax;
+    final double zmin;
+    final double zmax;
+    final double mmin;
+    final double mmax;
+
+    /**
+     * Reads the header from the start of a stream.
+     */
+    static ShapefileHeader read(ShapefileInput input) throws IOException {
+        byte[] bytes = new byte[LENGTH];
+        input.readFully(bytes);
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads the header from the first 100 bytes of the buffer, using absolute indices.
+     */
+    static ShapefileHeader read(ByteBuffer buffer) throws IOException {
+        return new ShapefileHeader(buffer.duplicate());
+    }
+
+    private ShapefileHeader(ByteBuffer buffer) throws IOException {
+        /*
+        Byte 0 File Code 9994 Integer Big
+         */
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int fileCode = buffer.getInt(0);
+        if (fileCode != FILE_CODE) {
+            throw new IOException("file code " + fileCode + " is not supported.");
+        }
+
+        /*
+        Byte 4 Unused 0 Integer Big
+        Byte 8 Unused 0 Integer Big
+        Byte 12 Unused 0 Integer Big
+        Byte 16 Unused 0 Integer Big
+        Byte 20 Unused 0 Integer Big
+        Byte 24 File Length File Length Integer Big
+         */
+        fileLengthBytes = (buffer.getInt(24) & 0xffffffffL) * 2;
+
+        /*
+        Byte 28 Version 1000 Integer Little
+        Byte 32 Shape Type Shape Type Integer Little
+        Byte 36 Bounding Box Xmin Double Little
+        Byte 44 Bounding Box Ymin Double Little
+        Byte 52 Bounding Box Xmax Double Little
+        Byte 60 Bounding Box Ymax Double Little
+        Byte 68* Bounding Box Zmin Double Little
+        Byte 76* Bounding Box Zmax Double Little
+        Byte 84* Bounding Box Mmin Double Little
+        Byte 92* Bounding Box Mmax Double Little
+        */
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int v = buffer.getInt(28);
+        if (v != VERSION) {
+            throw new IOException("version " + v + " is not supported.");
+        }
+
+        shpTypeId = buffer.getInt(32);
+        geomType = geometryTypeFromShpType(shpTypeId);
+
+        xmin = buffer.getDouble(36);
+        ymin = buffer.getDouble(44);
+        xmax = buffer.getDouble(52);
+        ymax = buffer.getDouble(60);
+        zmin = buffer.getDouble(68);
+        zmax = buffer.getDouble(76);
+        mmin = buffer.getDouble(84);
+        mmax = buffer.getDouble(92);
+    }
+
+    /**
+     * Writes a header to the first 100 bytes of the buffer, using absolute indices.
+     * Empty ranges are written as zero, as the spec requires for unused ranges.
+     *
+     * @param fileLengthBytes the length of the whole .shp or .shx file, including the header
+     */
+    static void write(ByteBuffer buffer, long fileLengthBytes, int shpTypeId, Envelope2D xy, Envelope1D z,
+                      Envelope1D m) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(0, FILE_CODE);
+        for (int i = 4; i < 24; i += 4) {
+            buffer.putInt(i, 0);
+        }
+        buffer.putInt(24, (int) (fileLengthBytes / 2));
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(28, VERSION);
+        buffer.putInt(32, shpTypeId);
+        boolean emptyXY = xy.isEmpty();
+        buffer.putDouble(36, emptyXY ? 0 : xy.xmin);
+        buffer.putDouble(44, emptyXY ? 0 : xy.ymin);
+        buffer.putDouble(52, emptyXY ? 0 : xy.xmax);
+        buffer.putDouble(60, emptyXY ? 0 : xy.ymax);
+        buffer.putDouble(68, z.isEmpty() ? 0 : z.vmin);
+        buffer.putDouble(76, z.isEmpty() ? 0 : z.vmax);
+        buffer.putDouble(84, m.isEmpty() ? 0 : m.vmin);
+        buffer.putDouble(92, m.isEmpty() ? 0 : m.vmax);
+    }
+
+    Envelope2D getEnvelope2D() {
+        return new Envelope2D(xmin, ymin, xmax, ymax);
+    }
+
+    /**
+     * @return the bounding box including the z range, which is empty for files without Z
+     */
+    Envelope3D getEnvelope3D() {
+        Envelope3D envelope = new Envelope3D();
+        envelope.setCoords(xmin, ymin, zmin, xmax, ymax, zmax);
+        if (!hasZ()) {
+            envelope.setEmptyZ();
+        }
+        return envelope;
+    }
+
+    /**
+     * @return the m range, which is empty for files without M or where every m is "no data"
+     */
+    Envelope1D getMRange() {
+        Envelope1D range = new Envelope1D();
+        if (hasM() && mmin <= mmax && mmin > -1e38) {
+            range.setCoords(mmin, mmax);
+        } else {
+            range.setEmpty();
+        }
+        return range;
+    }
+
+    boolean hasZ() {
+        return ShapeRecords.hasZ(shpTypeId);
+    }
+
+    /**
+     * M values are optional in the Z types, so this can be true while records carry no M values
+     */
+    boolean hasM() {
+        return ShapeRecords.mayHaveM(shpTypeId);
+    }
+
+    /**
+     * @return the shapefile shape type for geometries of the type, e.g. 15 for PolygonZ
+     */
+    static int shpTypeFromGeometryType(Geometry.Type geomType, boolean hasZ, boolean hasM) {
+        int shpType;
+        switch (geomType) {
+            case Point:
+                shpType = ShapeRecords.POINT;
+                break;
+            case MultiPoint:
+                shpType = ShapeRecords.MULTIPOINT;
+                break;
+            case Polyline:
+                shpType = ShapeRecords.POLYLINE;
+                break;
+            case Envelope:
+            case Polygon:
+                shpType = ShapeRecords.POLYGON;
+                break;
+            default:
+                throw new IllegalArgumentException("geometry type " + geomType + " cannot be written to a shapefile.");
+        }
+        //Z types carry optional M values, M types carry no Z values
+        return hasZ ? shpType + 10 : hasM ? shpType + 20 : shpType;
+    }
+
+    /**
+     from esri spec:
+     0 Null Shape
+     1 Point
+     3 PolyLine
+     5 Polygon
+     8 MultiPoint
+     11 PointZ
+     13 PolyLineZ
+     15 PolygonZ
+     18 MultiPointZ
+     21 PointM
+     23 PolyLineM
+     25 PolygonM
+     28 MultiPointM
+     31 MultiPatch
+     therefore the final digit determines the type (PolyLine, PolyLineZ and PolyLineM are 3, 13 and 23 respectively),
+     apart from MultiPatch, which is read as polygons.
+     *
+     * @param shpTypeId shape type id from shapfile
+     * @return the geom type
+     */
+    static Geometry.Type geometryTypeFromShpType(int shpTypeId) {
+        switch (ShapeRecords.baseType(shpTypeId)) {
+            case ShapeRecords.POINT:
+                return Geometry.Type.Point;
+            case ShapeRecords.POLYLINE:
+                return Geometry.Type.Polyline;
+            case ShapeRecords.POLYGON:
+            case ShapeRecords.MULTIPATCH:
+                return Geometry.Type.Polygon;
+            case ShapeRecords.MULTIPOINT:
+                return Geometry.Type.MultiPoint;
+            default:
+                return Geometry.Type.Unknown;
+        }
+    }
+}
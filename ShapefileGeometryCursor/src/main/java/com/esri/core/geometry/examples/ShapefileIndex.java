@@ -0,0 +1,101 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * The contents of a .shx file: the offset and content length of every record in the companion .shp.
+ * Both are held in primitive arrays, in 16-bit words as stored in the file.
+ */
+public final class ShapefileIndex {
+
+    private static final int RECORD_LENGTH = 8;
+
+    private final int[] offsetWords;
+    private final int[] lengthWords;
+
+    private ShapefileIndex(int[] offsetWords, int[] lengthWords) {
+        this.offsetWords = offsetWords;
+        this.lengthWords = lengthWords;
+    }
+
+    /**
+     * Reads an index through a memory mapping of the .shx file.
+     */
+    public static ShapefileIndex read(File shxFile) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(shxFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ShapefileHeader header = ShapefileHeader.read(buffer);
+
+            long fileLength = Math.min(header.fileLengthBytes, buffer.capacity());
+            int recordCount = (int) ((fileLength - ShapefileHeader.LENGTH) / RECORD_LENGTH);
+            int[] offsetWords = new int[recordCount];
+            int[] lengthWords = new int[recordCount];
+
+            /*
+            Byte 0 Offset Integer Big
+            Byte 4 Content Length Integer Big
+             */
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            int index = ShapefileHeader.LENGTH;
+            for (int i = 0; i < recordCount; i++) {
+                offsetWords[i] = buffer.getInt(index);
+                lengthWords[i] = buffer.getInt(index + 4);
+                index += RECORD_LENGTH;
+            }
+            return new ShapefileIndex(offsetWords, lengthWords);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return the file with the given extension alongside a .shp file, matching the case of its extension
+     */
+    static File companionFile(File shpFile, String extension) {
+        String name = shpFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        boolean upperCase = dot >= 0 && name.substring(dot + 1).equals("SHP");
+        return new File(shpFile.getParentFile(), base + "." + (upperCase ? extension.toUpperCase() : extension));
+    }
+
+    public int getRecordCount() {
+        return offsetWords.length;
+    }
+
+    /**
+     * @param index zero based, i.e. the record number minus one
+     * @return the file offset of the record header in the .shp
+     */
+    public long getOffset(int index) {
+        return (offsetWords[index] & 0xffffffffL) * 2;
+    }
+
+    /**
+     * @param index zero based, i.e. the record number minus one
+     * @return the length in bytes of the record content, excluding the 8 byte record header
+     */
+    public int getContentLength(int index) {
+        return lengthWords[index] * 2;
+    }
+}
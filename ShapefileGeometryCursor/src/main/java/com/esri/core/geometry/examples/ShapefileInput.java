@@ -0,0 +1,152 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads the mixed-endian values of a shapefile through one large, reusable buffer, filled from a channel in bulk.
+ * Values are decoded from the buffer with a big-endian and a little-endian view of it, rather than byte by byte.
+ * Short reads, as returned by pipes and network streams, are retried until the requested bytes are in the buffer,
+ * and the end of the stream before that is an {@link EOFException}.
+ */
+final class ShapefileInput implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20; //1MB
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer bigEndian; //the bytes between position and limit have not been read yet
+    private final ByteBuffer littleEndian; //same content, read with absolute indices, with its limit at the capacity
+
+    ShapefileInput(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize at least 8 bytes, the size of the largest value
+     */
+    ShapefileInput(ReadableByteChannel channel, int bufferSize) {
+        if (bufferSize < 8) {
+            throw new IllegalArgumentException("buffer size " + bufferSize);
+        }
+        this.channel = channel;
+        bigEndian = ByteBuffer.allocate(bufferSize);
+        bigEndian.flip();
+        littleEndian = bigEndian.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        littleEndian.clear();
+    }
+
+    int readBigEndianInt() throws IOException {
+        require(4);
+        return bigEndian.getInt();
+    }
+
+    int readLittleEndianInt() throws IOException {
+        require(4);
+        int value = littleEndian.getInt(bigEndian.position());
+        bigEndian.position(bigEndian.position() + 4);
+        return value;
+    }
+
+    double readLittleEndianDouble() throws IOException {
+        require(8);
+        double value = littleEndian.getDouble(bigEndian.position());
+        bigEndian.position(bigEndian.position() + 8);
+        return value;
+    }
+
+    /**
+     * Decodes count little-endian doubles, such as a run of coordinates, into values.
+     */
+    void readLittleEndianDoubles(double[] values, int offset, int count) throws IOException {
+        while (count > 0) {
+            require(8);
+            int n = Math.min(count, bigEndian.remaining() / 8);
+            littleEndian.limit(bigEndian.limit());
+            littleEndian.position(bigEndian.position());
+            littleEndian.asDoubleBuffer().get(values, offset, n);
+            littleEndian.clear();
+            bigEndian.position(bigEndian.position() + 8 * n);
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Copies the next length bytes into bytes. A length larger than the buffer is read straight from the channel.
+     */
+    void readFully(byte[] bytes, int offset, int length) throws IOException {
+        int buffered = Math.min(length, bigEndian.remaining());
+        bigEndian.get(bytes, offset, buffered);
+        offset += buffered;
+        length -= buffered;
+
+        if (length > bigEndian.capacity()) {
+            ByteBuffer target = ByteBuffer.wrap(bytes, offset, length);
+            while (target.hasRemaining()) {
+                if (channel.read(target) < 0) {
+                    throw new EOFException();
+                }
+            }
+        } else if (length > 0) {
+            require(length);
+            bigEndian.get(bytes, offset, length);
+        }
+    }
+
+    void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    void skipFully(long n) throws IOException {
+        while (n > 0) {
+            if (!bigEndian.hasRemaining()) {
+                require(1);
+            }
+            int skipped = (int) Math.min(n, bigEndian.remaining());
+            bigEndian.position(bigEndian.position() + skipped);
+            n -= skipped;
+        }
+    }
+
+    /**
+     * Makes sure that at least n bytes, no more than the buffer size, are in the buffer.
+     */
+    private void require(int n) throws IOException {
+        if (bigEndian.remaining() >= n) {
+            return;
+        }
+
+        bigEndian.compact();
+        try {
+            while (bigEndian.position() < n) {
+                if (channel.read(bigEndian) < 0) {
+                    throw new EOFException();
+                }
+            }
+        } finally {
+            bigEndian.flip();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A packed R-tree over record envelopes, read from a sidecar file written by {@link ShapefileRTreeBuilder}.
+ * The file is memory mapped and searched in place, so opening and querying it uses almost no heap.
+ * {@link ShapefileRTreeBuilder#build()} gives the same tree in memory, without a file.
+ * <p>
+ * All nodes are stored in one array, level by level from the leaf entries up to the root. An entry holds the
+ * record envelope and number; a node holds the envelope of its children and the position of the first one.
+ * <pre>
+ * Byte 0 Magic "SRTR" Integer Little
+ * Byte 4 Version 1 Integer Little
+ * Byte 8 Node capacity Integer Little
+ * Byte 12 Entry count Integer Little
+ * Byte 16 Level count Integer Little
+ * Byte 20 Level ends Integer[level count] Little, padded to a multiple of 8 bytes
+ * Boxes xmin, ymin, xmax, ymax Double[4 * node count] Little
+ * Indices Integer[node count] Little
+ * </pre>
+ */
+public final class ShapefileRTree {
+
+    static final int MAGIC = 0x52545253; //"SRTR" when read as little-endian bytes
+    static final int VERSION = 1;
+
+    private final ByteBuffer buffer;
+    private final int nodeCapacity;
+    private final int count;
+    private final int[] levelEnds;
+    private final int boxesOffset;
+    private final int indicesOffset;
+
+    private ShapefileRTree(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("not an r-tree sidecar file.");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("version " + version + " is not supported.");
+        }
+        nodeCapacity = buffer.getInt(8);
+        count = buffer.getInt(12);
+        int levelCount = buffer.getInt(16);
+        if (levelCount < 1 || levelCount > 32) {
+            throw new IOException("level count " + levelCount + " is not supported.");
+        }
+        levelEnds = new int[levelCount];
+        for (int level = 0; level < levelEnds.length; level++) {
+            levelEnds[level] = buffer.getInt(20 + 4 * level);
+        }
+        int nodeCount = levelEnds[levelEnds.length - 1];
+        boxesOffset = headerLength(levelEnds.length);
+        indicesOffset = boxesOffset + 32 * nodeCount;
+        if (buffer.capacity() < indicesOffset + 4 * nodeCount) {
+            throw new IOException("r-tree sidecar file is truncated.");
+        }
+    }
+
+    static int headerLength(int levelCount) {
+        int length = 20 + 4 * levelCount;
+        return (length + 7) & ~7;
+    }
+
+    /**
+     * Maps a sidecar file. The mapping remains valid after the file is closed.
+     */
+    public static ShapefileRTree open(File sidecar) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(sidecar, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return new ShapefileRTree(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads a tree from the start of buffer, as written by {@link ShapefileRTreeBuilder#build()}.
+     */
+    static ShapefileRTree wrap(ByteBuffer buffer) throws IOException {
+        return new ShapefileRTree(buffer);
+    }
+
+    /**
+     * @return the number of indexed records
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return ids of the records whose envelope intersects the query, in ascending order
+     */
+    public int[] search(Envelope2D query) {
+        if (count == 0) {
+            return new int[0];
+        }
+        int[] results = new int[16];
+        int resultCount = 0;
+
+        int[] stack = new int[16];
+        int stackSize = 0;
+        int nodeCount = levelEnds[levelEnds.length - 1];
+        int node = nodeCount - 1; //start by testing the root on its own
+
+        while (true) {
+            int end = Math.min(node + nodeCapacity, levelEnd(node));
+            for (int pos = node; pos < end; pos++) {
+                if (!intersects(pos, query)) {
+                    continue;
+                }
+                int index = buffer.getInt(indicesOffset + 4 * pos);
+                if (pos < count) {
+                    if (resultCount == results.length) {
+                        results = Arrays.copyOf(results, 2 * resultCount);
+                    }
+                    results[resultCount++] = index;
+                } else {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stackSize);
+                    }
+                    stack[stackSize++] = index;
+                }
+            }
+            if (stackSize == 0) {
+                break;
+            }
+            node = stack[--stackSize];
+        }
+
+        results = Arrays.copyOf(results, resultCount);
+        Arrays.sort(results); //read the shapefile front to back
+        return results;
+    }
+
+    /**
+     * @return a cursor over the records of the reader whose envelope intersects the query
+     */
+    public GeometryCursor query(IndexedShapefileReader reader, Envelope2D query) {
+        return reader.cursor(search(query));
+    }
+
+    private int levelEnd(int pos) {
+        for (int levelEnd : levelEnds) {
+            if (pos < levelEnd) {
+                return levelEnd;
+            }
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    private boolean intersects(int pos, Envelope2D query) {
+        int offset = boxesOffset + 32 * pos;
+        return buffer.getDouble(offset) <= query.xmax
+                && buffer.getDouble(offset + 8) <= query.ymax
+                && buffer.getDouble(offset + 16) >= query.xmin
+                && buffer.getDouble(offset + 24) >= query.ymin;
+    }
+}
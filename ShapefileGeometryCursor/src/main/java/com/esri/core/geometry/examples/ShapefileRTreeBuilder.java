@@ -0,0 +1,299 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Builds a {@link ShapefileRTree} sidecar file in a single pass over a cursor.
+ * The envelope of every geometry is collected, the envelopes are sorted along a Hilbert curve and then packed
+ * bottom up into full nodes, so the tree has no empty slots and needs no balancing.
+ */
+public final class ShapefileRTreeBuilder {
+
+    static final int DEFAULT_NODE_CAPACITY = 16;
+
+    static final int HILBERT_MAX = (1 << 16) - 1;
+
+    private final int nodeCapacity;
+    private int count;
+    private double[] boxes = new double[4 * 1024];
+    private int[] ids = new int[1024];
+    private final Envelope2D extent = new Envelope2D();
+
+    public ShapefileRTreeBuilder() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+
+    public ShapefileRTreeBuilder(int nodeCapacity) {
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("node capacity " + nodeCapacity + " is less than 2.");
+        }
+        this.nodeCapacity = nodeCapacity;
+        extent.setEmpty();
+    }
+
+    /**
+     * Reads every geometry from the cursor and writes the index of their envelopes.
+     * Geometries are identified by {@link GeometryCursor#getGeometryID()}; empty geometries are not indexed.
+     */
+    public static void build(GeometryCursor cursor, File sidecar) throws IOException {
+        ShapefileRTreeBuilder builder = new ShapefileRTreeBuilder();
+        builder.addAll(cursor);
+        builder.write(sidecar);
+    }
+
+    public void addAll(GeometryCursor cursor) {
+        Envelope2D envelope = new Envelope2D();
+        Geometry geometry;
+        while ((geometry = cursor.next()) != null) {
+            geometry.queryEnvelope2D(envelope);
+            add(cursor.getGeometryID(), envelope);
+        }
+    }
+
+    public void add(int id, Envelope2D envelope) {
+        if (envelope.isEmpty()) {
+            return;
+        }
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * count);
+            boxes = Arrays.copyOf(boxes, 8 * count);
+        }
+        boxes[4 * count] = envelope.xmin;
+        boxes[4 * count + 1] = envelope.ymin;
+        boxes[4 * count + 2] = envelope.xmax;
+        boxes[4 * count + 3] = envelope.ymax;
+        ids[count] = id;
+        count++;
+        extent.merge(envelope);
+    }
+
+    /**
+     * Packs the envelopes added so far and writes them to the sidecar file.
+     */
+    public void write(File sidecar) throws IOException {
+        //the number of nodes in each level, from the leaf entries up to the root
+        int[] levelEnds = levelEnds(count, nodeCapacity);
+        int nodeCount = levelEnds[levelEnds.length - 1];
+
+        double[] nodeBoxes = new double[4 * nodeCount];
+        int[] nodeIndices = new int[nodeCount];
+        pack(levelEnds, nodeBoxes, nodeIndices);
+
+        FileOutputStream out = new FileOutputStream(sidecar);
+        try {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            put(buffer, channel, levelEnds, nodeBoxes, nodeIndices);
+            flush(channel, buffer);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Packs the envelopes added so far into a tree held in memory, in the layout of the sidecar file.
+     * The tree is read only, so it can be searched by several threads.
+     */
+    public ShapefileRTree build() {
+        int[] levelEnds = levelEnds(count, nodeCapacity);
+        int nodeCount = levelEnds[levelEnds.length - 1];
+
+        double[] nodeBoxes = new double[4 * nodeCount];
+        int[] nodeIndices = new int[nodeCount];
+        pack(levelEnds, nodeBoxes, nodeIndices);
+
+        ByteBuffer buffer = ByteBuffer.allocate(ShapefileRTree.headerLength(levelEnds.length) + 36 * nodeCount)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            put(buffer, null, levelEnds, nodeBoxes, nodeIndices);
+            return ShapefileRTree.wrap(buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); //the buffer is sized for the tree
+        }
+    }
+
+    private void pack(int[] levelEnds, double[] nodeBoxes, int[] nodeIndices) {
+        //leaf entries in Hilbert order; each key holds the Hilbert value above the entry index
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            double cx = (boxes[4 * i] + boxes[4 * i + 2]) / 2;
+            double cy = (boxes[4 * i + 1] + boxes[4 * i + 3]) / 2;
+            keys[i] = hilbertKey(cx, cy, extent, i);
+        }
+        Arrays.sort(keys);
+        for (int pos = 0; pos < count; pos++) {
+            int i = (int) keys[pos];
+            System.arraycopy(boxes, 4 * i, nodeBoxes, 4 * pos, 4);
+            nodeIndices[pos] = ids[i];
+        }
+
+        //each node covers the next nodeCapacity entries of the level below
+        int pos = count;
+        int levelStart = 0;
+        for (int level = 1; level < levelEnds.length; level++) {
+            int levelEnd = levelEnds[level - 1];
+            for (int child = levelStart; child < levelEnd; child += nodeCapacity) {
+                int end = Math.min(child + nodeCapacity, levelEnd);
+                double xmin = Double.POSITIVE_INFINITY;
+                double ymin = Double.POSITIVE_INFINITY;
+                double xmax = Double.NEGATIVE_INFINITY;
+                double ymax = Double.NEGATIVE_INFINITY;
+                for (int c = child; c < end; c++) {
+                    xmin = Math.min(xmin, nodeBoxes[4 * c]);
+                    ymin = Math.min(ymin, nodeBoxes[4 * c + 1]);
+                    xmax = Math.max(xmax, nodeBoxes[4 * c + 2]);
+                    ymax = Math.max(ymax, nodeBoxes[4 * c + 3]);
+                }
+                nodeBoxes[4 * pos] = xmin;
+                nodeBoxes[4 * pos + 1] = ymin;
+                nodeBoxes[4 * pos + 2] = xmax;
+                nodeBoxes[4 * pos + 3] = ymax;
+                nodeIndices[pos] = child;
+                pos++;
+            }
+            levelStart = levelEnd;
+        }
+
+    }
+
+    /**
+     * Puts the tree into buffer, flushing it to channel when it is full. Without a channel, the buffer must hold
+     * the whole tree.
+     */
+    private void put(ByteBuffer buffer, FileChannel channel, int[] levelEnds, double[] nodeBoxes, int[] nodeIndices)
+            throws IOException {
+        buffer.putInt(ShapefileRTree.MAGIC);
+        buffer.putInt(ShapefileRTree.VERSION);
+        buffer.putInt(nodeCapacity);
+        buffer.putInt(count);
+        buffer.putInt(levelEnds.length);
+        for (int levelEnd : levelEnds) {
+            buffer.putInt(levelEnd);
+        }
+        while (buffer.position() < ShapefileRTree.headerLength(levelEnds.length)) {
+            buffer.put((byte) 0);
+        }
+
+        for (double value : nodeBoxes) {
+            if (buffer.remaining() < 8) {
+                flush(channel, buffer);
+            }
+            buffer.putDouble(value);
+        }
+        for (int index : nodeIndices) {
+            if (buffer.remaining() < 4) {
+                flush(channel, buffer);
+            }
+            buffer.putInt(index);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return cumulative node counts for each level: level 0 holds the entries, the last level the root
+     */
+    static int[] levelEnds(int count, int nodeCapacity) {
+        int levels = 1;
+        for (int n = count; n > 1; n = (n + nodeCapacity - 1) / nodeCapacity) {
+            levels++;
+        }
+        int[] levelEnds = new int[levels];
+        int n = count;
+        int total = count;
+        levelEnds[0] = total;
+        for (int level = 1; level < levels; level++) {
+            n = (n + nodeCapacity - 1) / nodeCapacity;
+            total += n;
+            levelEnds[level] = total;
+        }
+        return levelEnds;
+    }
+
+    /**
+     * Returns a sort key holding the Hilbert value of (x, y), scaled to the extent, above the index, so sorted keys
+     * give the indices in Hilbert order.
+     */
+    static long hilbertKey(double x, double y, Envelope2D extent, int index) {
+        double width = extent.getWidth() > 0 ? extent.getWidth() : 1;
+        double height = extent.getHeight() > 0 ? extent.getHeight() : 1;
+        int hx = (int) (HILBERT_MAX * (x - extent.xmin) / width);
+        int hy = (int) (HILBERT_MAX * (y - extent.ymin) / height);
+        return ((hilbert(hx, hy) & 0xffffffffL) << 32) | index;
+    }
+
+    /**
+     * Distance along a Hilbert curve of order 16 to (x, y), using the branch-free algorithm published
+     * at http://threadlocalmutex.com/ (public domain).
+     */
+    static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >>> 1);
+        int B = (a >>> 1) ^ a;
+        int C = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+        int D = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+        a = A; b = B; c = C; d = D;
+        A = ((a & (a >>> 2)) ^ (b & (b >>> 2)));
+        B = ((a & (b >>> 2)) ^ (b & ((a ^ b) >>> 2)));
+        C ^= ((a & (c >>> 2)) ^ (b & (d >>> 2)));
+        D ^= ((b & (c >>> 2)) ^ ((a ^ b) & (d >>> 2)));
+
+        a = A; b = B; c = C; d = D;
+        A = ((a & (a >>> 4)) ^ (b & (b >>> 4)));
+        B = ((a & (b >>> 4)) ^ (b & ((a ^ b) >>> 4)));
+        C ^= ((a & (c >>> 4)) ^ (b & (d >>> 4)));
+        D ^= ((b & (c >>> 4)) ^ ((a ^ b) & (d >>> 4)));
+
+        a = A; b = B; c = C; d = D;
+        C ^= ((a & (c >>> 8)) ^ (b & (d >>> 8)));
+        D ^= ((b & (c >>> 8)) ^ ((a ^ b) & (d >>> 8)));
+
+        a = C ^ (C >>> 1);
+        b = D ^ (D >>> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        return (interleave(i1) << 1) | interleave(i0);
+    }
+
+    private static int interleave(int x) {
+        x = (x | (x << 8)) & 0x00FF00FF;
+        x = (x | (x << 4)) & 0x0F0F0F0F;
+        x = (x | (x << 2)) & 0x33333333;
+        x = (x | (x << 1)) & 0x55555555;
+        return x;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable, read-only view of one shapefile record, refilled by
+ * {@link ShapefileGeometryCursor#nextRecord(ShapefileRecord)} and
+ * {@link MappedShapefileGeometryCursor#nextRecord(ShapefileRecord)}.
+ * Coordinates are read straight from the cursor's buffer, so streaming aggregations such as area sums,
+ * envelope unions and point counts run without creating a Geometry per record.
+ * The view is only valid until the cursor is advanced.
+ * <p>
+ * The geometry API releases or shrinks the vertex storage of a Polygon or Polyline when it is emptied,
+ * so those cannot be refilled in place; use {@link #toGeometry()} for the records that need one.
+ */
+public final class ShapefileRecord {
+
+    private static final int MULTIPATH_PARTS_OFFSET = 44;
+
+    private ByteBuffer buffer; //little-endian
+    private int base; //index of the record content within buffer
+    private int length;
+    private int recordNumber;
+    private Geometry.Type geomType;
+
+    //decoded once per record, as every coordinate access depends on them
+    private int shapeType;
+    private int partCount;
+    private int pointCount;
+    private int pointsIndex; //index of the first x within buffer
+    private int zIndex; //index of the first z within buffer, or -1
+    private int mIndex; //index of the first m within buffer, or -1
+
+    private ShapeDecoder decoder;
+    private final Point2D scratch = new Point2D();
+
+    void set(int recordNumber, Geometry.Type geomType, ByteBuffer buffer, int base, int length) {
+        this.recordNumber = recordNumber;
+        this.geomType = geomType;
+        this.buffer = buffer;
+        this.base = base;
+        this.length = length;
+
+        shapeType = buffer.getInt(base);
+        switch (ShapeRecords.baseType(shapeType)) {
+            case ShapeRecords.NULL:
+                partCount = 0;
+                pointCount = 0;
+                pointsIndex = base + 4;
+                break;
+            case ShapeRecords.POINT:
+                partCount = 1;
+                pointCount = 1;
+                pointsIndex = base + 4;
+                break;
+            case ShapeRecords.MULTIPOINT: //box, point count, points
+                partCount = 1;
+                pointCount = buffer.getInt(base + 36);
+                pointsIndex = base + 40;
+                break;
+            case ShapeRecords.MULTIPATCH: //box, part count, point count, parts, part types, points
+                partCount = buffer.getInt(base + 36);
+                pointCount = buffer.getInt(base + 40);
+                pointsIndex = base + MULTIPATH_PARTS_OFFSET + 8 * partCount;
+                break;
+            default: //PolyLine, Polygon: box, part count, point count, parts, points
+                partCount = buffer.getInt(base + 36);
+                pointCount = buffer.getInt(base + 40);
+                pointsIndex = base + MULTIPATH_PARTS_OFFSET + 4 * partCount;
+                break;
+        }
+
+        //Z values, then M values, each preceded by their range in all but point records
+        boolean point = isPoint();
+        int index = pointsIndex + 16 * pointCount;
+        zIndex = -1;
+        if (ShapeRecords.hasZ(shapeType)) {
+            zIndex = point ? index : index + 16;
+            index = zIndex + 8 * pointCount;
+        }
+        mIndex = -1;
+        if (ShapeRecords.mayHaveM(shapeType)) {
+            int m = point ? index : index + 16;
+            if (m + 8 * pointCount <= base + length) { //optional in the Z types
+                mIndex = m;
+            }
+        }
+    }
+
+    /**
+     * @return the 1 based record number
+     */
+    public int getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return the shape type of the record, as in the shapefile spec
+     */
+    public int getShapeType() {
+        return shapeType;
+    }
+
+    public boolean isNull() {
+        return shapeType == 0;
+    }
+
+    /**
+     * Sets envelope to the stored bounding box of the record, or empties it for a null shape.
+     */
+    public void queryEnvelope2D(Envelope2D envelope) {
+        if (isNull()) {
+            envelope.setEmpty();
+        } else if (isPoint()) {
+            envelope.setCoords(getX(0), getY(0), getX(0), getY(0));
+        } else {
+            envelope.setCoords(buffer.getDouble(base + 4), buffer.getDouble(base + 12),
+                    buffer.getDouble(base + 20), buffer.getDouble(base + 28));
+        }
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * @return the number of points as stored, where each polygon ring repeats its first point at the end
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @return the index of the first point of the part
+     */
+    public int getPartStart(int part) {
+        if (part < 0 || part >= partCount) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (isPoint() || isMultiPoint()) {
+            return 0;
+        }
+        return buffer.getInt(base + MULTIPATH_PARTS_OFFSET + 4 * part);
+    }
+
+    /**
+     * @return the index after the last point of the part
+     */
+    public int getPartEnd(int part) {
+        return part + 1 < partCount ? getPartStart(part + 1) : pointCount;
+    }
+
+    public double getX(int point) {
+        return buffer.getDouble(pointOffset(point));
+    }
+
+    public double getY(int point) {
+        return buffer.getDouble(pointOffset(point) + 8);
+    }
+
+    /**
+     * Decodes the interleaved x and y of points start to end - 1 into xy, from index offset, in one bulk copy.
+     *
+     * @return the number of values written, 2 * (end - start)
+     */
+    public int queryXY(int start, int end, double[] xy, int offset) {
+        if (start < 0 || end > pointCount || start > end) {
+            throw new IndexOutOfBoundsException();
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.limit(pointsIndex + 16 * end);
+        view.position(pointsIndex + 16 * start);
+        int count = 2 * (end - start);
+        view.slice().order(buffer.order()).asDoubleBuffer().get(xy, offset, count);
+        return count;
+    }
+
+    public boolean hasZ() {
+        return zIndex >= 0;
+    }
+
+    /**
+     * @return true if the record carries M values, which are optional in the Z types
+     */
+    public boolean hasM() {
+        return mIndex >= 0;
+    }
+
+    /**
+     * @return the z of the point, or NaN if the record has no Z values
+     */
+    public double getZ(int point) {
+        pointOffset(point);
+        return zIndex < 0 ? Double.NaN : buffer.getDouble(zIndex + 8 * point);
+    }
+
+    /**
+     * @return the m of the point, or NaN if the record has no M values or the value is "no data"
+     */
+    public double getM(int point) {
+        pointOffset(point);
+        return mIndex < 0 ? Double.NaN : ShapeRecords.ordinate(buffer, mIndex + 8 * point);
+    }
+
+    /**
+     * @return the area of a polygon record, positive for clockwise outer rings as in
+     * {@link Polygon#calculateArea2D()}, or 0 for other shape types
+     */
+    public double calculateArea2D() {
+        if (ShapeRecords.baseType(shapeType) != ShapeRecords.POLYGON) {
+            return 0;
+        }
+        double area = 0;
+        for (int part = 0; part < partCount; part++) {
+            int start = getPartStart(part);
+            int end = getPartEnd(part);
+            for (int i = start; i < end - 1; i++) {
+                area += getX(i + 1) * getY(i) - getX(i) * getY(i + 1);
+            }
+            //rings are stored closed, but be lenient if the last point is missing
+            area += getX(start) * getY(end - 1) - getX(end - 1) * getY(start);
+        }
+        return area / 2;
+    }
+
+    /**
+     * @return the length of a polyline or the perimeter of a polygon, or 0 for point and multipatch records
+     */
+    public double calculateLength2D() {
+        int shpType = ShapeRecords.baseType(shapeType);
+        if (shpType != ShapeRecords.POLYLINE && shpType != ShapeRecords.POLYGON) {
+            return 0;
+        }
+        double length = 0;
+        for (int part = 0; part < partCount; part++) {
+            for (int i = getPartStart(part) + 1, end = getPartEnd(part); i < end; i++) {
+                double dx = getX(i) - getX(i - 1);
+                double dy = getY(i) - getY(i - 1);
+                length += Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Copies the coordinates of a point record into an existing point, without allocating.
+     */
+    public void copyTo(Point point) {
+        if (isNull()) {
+            point.setEmpty();
+        } else {
+            point.setXY(getX(0), getY(0));
+        }
+    }
+
+    /**
+     * Copies the coordinates of a point or multipoint record into an existing multipoint, reusing its storage
+     * while the point count does not shrink by more than a quarter.
+     */
+    public void copyTo(MultiPoint multiPoint) {
+        multiPoint.resize(pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            scratch.setCoords(getX(i), getY(i));
+            multiPoint.setXY(i, scratch);
+        }
+    }
+
+    /**
+     * Decodes the record into a new geometry.
+     *
+     * @return the geometry, or null for a null shape
+     */
+    public Geometry toGeometry() {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(base + length);
+        view.position(base);
+        if (decoder == null || decoder.getGeometryType() != geomType) {
+            decoder = new ShapeDecoder(geomType);
+        }
+        return decoder.decode(view.slice().order(buffer.order()));
+    }
+
+    private boolean isPoint() {
+        return ShapeRecords.baseType(shapeType) == ShapeRecords.POINT;
+    }
+
+    private boolean isMultiPoint() {
+        return ShapeRecords.baseType(shapeType) == ShapeRecords.MULTIPOINT;
+    }
+
+    private int pointOffset(int point) {
+        if (point < 0 || point >= pointCount) {
+            throw new IndexOutOfBoundsException();
+        }
+        return pointsIndex + 16 * point;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes geometries to a .shp file and its .shx index in a single pass.
+ * <p>
+ * Records are exported with {@link OperatorExportToESRIShape} straight into a small pool of direct buffers,
+ * and the pool is written with one gathering write whenever it fills up, so memory use does not depend on
+ * the number of records. The file length and bounding box in the headers are only known at the end,
+ * so they are written by {@link #close()}.
+ * <p>
+ * All records share the shape type of the file. Null shapes may be written to keep the records aligned with
+ * an attribute table. Not thread safe.
+ */
+public class ShapefileWriter implements Closeable {
+
+    static final int BUFFER_SIZE = 1 << 18; //256KB
+    static final int BUFFER_COUNT = 4;
+
+    private static final int RECORD_HEADER_LENGTH = 8;
+
+    private final FileChannel shpChannel;
+    private final FileChannel shxChannel;
+    private final int shpTypeId;
+    private final int baseType;
+    private final boolean hasZ;
+    private final boolean hasM;
+    private final int exportFlags;
+
+    private final OperatorExportToESRIShape exportToESRIShape = OperatorExportToESRIShape.local();
+    private final ByteBuffer[] shpBuffers = new ByteBuffer[BUFFER_COUNT];
+    private int currentBuffer;
+    private final ByteBuffer shxBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+
+    private long position = ShapefileHeader.LENGTH; //length of the .shp written so far
+    private int recordNumber;
+
+    private final Envelope2D extent = new Envelope2D();
+    private final Envelope2D recordEnvelope = new Envelope2D();
+    private final Envelope1D zRange = new Envelope1D();
+    private final Envelope1D mRange = new Envelope1D();
+
+    private boolean closed;
+
+    /**
+     * Creates a 2D shapefile and its .shx index in the same directory.
+     *
+     * @param geomType Point, MultiPoint, Polyline or Polygon
+     */
+    public ShapefileWriter(File shpFile, Geometry.Type geomType) throws IOException {
+        this(shpFile, geomType, false, false);
+    }
+
+    /**
+     * @param hasZ if true, a Z type is written, such as PolygonZ, with M values if hasM is also set
+     * @param hasM if true and hasZ is not, an M type is written, such as PolygonM
+     */
+    public ShapefileWriter(File shpFile, Geometry.Type geomType, boolean hasZ, boolean hasM) throws IOException {
+        shpTypeId = ShapefileHeader.shpTypeFromGeometryType(geomType, hasZ, hasM);
+        baseType = ShapeRecords.baseType(shpTypeId);
+        this.hasZ = hasZ;
+        this.hasM = hasM;
+        exportFlags = ShapeExportFlags.ShapeExportStripIDs
+                | (hasZ ? 0 : ShapeExportFlags.ShapeExportStripZs)
+                | (hasM ? 0 : ShapeExportFlags.ShapeExportStripMs);
+
+        shpChannel = open(shpFile);
+        try {
+            shxChannel = open(ShapefileIndex.companionFile(shpFile, "shx"));
+        } catch (IOException e) {
+            shpChannel.close();
+            throw e;
+        }
+        //the headers are written on close
+        shpChannel.position(ShapefileHeader.LENGTH);
+        shxChannel.position(ShapefileHeader.LENGTH);
+
+        for (int i = 0; i < shpBuffers.length; i++) {
+            shpBuffers[i] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        extent.setEmpty();
+        zRange.setEmpty();
+        mRange.setEmpty();
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        return raf.getChannel();
+    }
+
+    /**
+     * Writes every geometry from the cursor.
+     *
+     * @return the number of records written
+     */
+    public int writeAll(GeometryCursor cursor) throws IOException {
+        int count = 0;
+        Geometry geometry;
+        while ((geometry = cursor.next()) != null) {
+            write(geometry);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Appends a record. Z and M values are written if the file has them; geometries lacking them
+     * get the default values.
+     *
+     * @param geometry the geometry, or null for a null shape
+     * @return the 1 based record number
+     */
+    public int write(Geometry geometry) throws IOException {
+        if (closed) {
+            throw new IOException("writer is closed.");
+        }
+        if (geometry != null) {
+            geometry = prepare(geometry);
+        }
+
+        int contentLength = geometry == null ? 4 : exportSize(geometry, hasZ, hasM);
+        int recordLength = RECORD_HEADER_LENGTH + contentLength;
+        if ((position + recordLength) / 2 > Integer.MAX_VALUE) {
+            throw new IOException("shapefile would exceed the maximum file length.");
+        }
+
+        ByteBuffer buffer = reserve(recordLength);
+        int start = buffer.position();
+        //the content is exported behind the header first; the buffer position and the record number only move once
+        //it has succeeded, so a failed export leaves no partial record and the writer can go on
+        buffer.position(start + RECORD_HEADER_LENGTH);
+        ByteBuffer content = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(start);
+        if (geometry == null) {
+            content.putInt(0, ShapeRecords.NULL);
+        } else {
+            int exported = exportToESRIShape.execute(exportFlags, geometry, content);
+            if (exported != contentLength) {
+                throw new GeometryException("exported " + exported + " bytes rather than " + contentLength);
+            }
+            //a Z file without M is exported with an ESRI type that shapefiles lack, the layout is the same
+            content.putInt(0, shpTypeId);
+        }
+
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(++recordNumber);
+        buffer.putInt(contentLength / 2);
+        buffer.position(start + recordLength);
+        if (geometry != null) {
+            merge(geometry);
+        }
+
+        if (shxBuffer.remaining() < RECORD_HEADER_LENGTH) {
+            flush(shxChannel, shxBuffer);
+        }
+        shxBuffer.putInt((int) (position / 2));
+        shxBuffer.putInt(contentLength / 2);
+
+        position += recordLength;
+        return recordNumber;
+    }
+
+    /**
+     * @return the geometry, or a copy with the attributes the file requires
+     */
+    private Geometry prepare(Geometry geometry) {
+        Geometry.Type type = geometry.getType();
+        if (ShapeRecords.baseType(ShapefileHeader.shpTypeFromGeometryType(type, false, false)) != baseType) {
+            throw new IllegalArgumentException("geometry type " + type + " does not match the shape type " + shpTypeId);
+        }
+        boolean addZ = hasZ && !geometry.hasAttribute(VertexDescription.Semantics.Z);
+        boolean addM = hasM && !geometry.hasAttribute(VertexDescription.Semantics.M);
+        if (!addZ && !addM) {
+            return geometry;
+        }
+        Geometry copy = geometry.copy();
+        if (addZ) {
+            copy.addAttribute(VertexDescription.Semantics.Z);
+        }
+        if (addM) {
+            copy.addAttribute(VertexDescription.Semantics.M);
+        }
+        return copy;
+    }
+
+    /**
+     * Computes the number of bytes the exporter writes for the geometry, which must have Z and M values if the file
+     * has them. The exporter offers no way to size a shape without writing it, so this follows the layout of each shape
+     * type; write checks the count the exporter returns against it.
+     */
+    static int exportSize(Geometry geometry, boolean hasZ, boolean hasM) {
+        int ordinates = 2 + (hasZ ? 1 : 0) + (hasM ? 1 : 0);
+        int ranges = (hasZ ? 16 : 0) + (hasM ? 16 : 0);
+        switch (geometry.getType()) {
+            case Point:
+                return 4 + 8 * ordinates;
+            case MultiPoint:
+                return 4 + 32 + 4 + ranges + 8 * ordinates * ((MultiPoint) geometry).getPointCount();
+            case Envelope: {
+                boolean empty = geometry.isEmpty();
+                return 4 + 32 + 8 + (empty ? 0 : 4) + ranges + (empty ? 0 : 5 * 8 * ordinates);
+            }
+            default: {
+                MultiPath multiPath = (MultiPath) geometry;
+                int partCount = multiPath.getPathCount();
+                //rings are stored closed, as are closed paths of polylines
+                int pointCount = multiPath.getPointCount();
+                if (geometry.getType() == Geometry.Type.Polygon) {
+                    pointCount += partCount;
+                } else {
+                    for (int part = 0; part < partCount; part++) {
+                        if (multiPath.isClosedPath(part)) {
+                            pointCount++;
+                        }
+                    }
+                }
+                return 4 + 32 + 8 + 4 * partCount + ranges + 8 * ordinates * pointCount;
+            }
+        }
+    }
+
+    private void merge(Geometry geometry) {
+        if (geometry.isEmpty()) {
+            return;
+        }
+        geometry.queryEnvelope2D(recordEnvelope);
+        extent.merge(recordEnvelope);
+        if (hasZ) {
+            merge(zRange, geometry.queryInterval(VertexDescription.Semantics.Z, 0));
+        }
+        if (hasM) {
+            merge(mRange, geometry.queryInterval(VertexDescription.Semantics.M, 0));
+        }
+    }
+
+    private static void merge(Envelope1D range, Envelope1D interval) {
+        //NaN values, such as default Ms, are not part of the range
+        if (!interval.isEmpty() && !Double.isNaN(interval.vmin) && !Double.isNaN(interval.vmax)) {
+            range.merge(interval);
+        }
+    }
+
+    /**
+     * @return a buffer of the pool with at least length bytes remaining, flushing the pool when it is full
+     */
+    private ByteBuffer reserve(int length) throws IOException {
+        if (length > BUFFER_SIZE) {
+            //a record larger than a pooled buffer is written on its own
+            flushShp();
+            shpBuffers[currentBuffer] = ByteBuffer.allocateDirect(length);
+            return shpBuffers[currentBuffer];
+        }
+        if (shpBuffers[currentBuffer].remaining() < length) {
+            if (currentBuffer + 1 == shpBuffers.length) {
+                flushShp();
+            } else {
+                currentBuffer++;
+            }
+        }
+        return shpBuffers[currentBuffer];
+    }
+
+    private void flushShp() throws IOException {
+        for (int i = 0; i <= currentBuffer; i++) {
+            shpBuffers[i].flip();
+        }
+        long remaining = 0;
+        for (int i = 0; i <= currentBuffer; i++) {
+            remaining += shpBuffers[i].remaining();
+        }
+        while (remaining > 0) {
+            remaining -= shpChannel.write(shpBuffers, 0, currentBuffer + 1);
+        }
+        for (int i = 0; i <= currentBuffer; i++) {
+            if (shpBuffers[i].capacity() != BUFFER_SIZE) {
+                shpBuffers[i] = ByteBuffer.allocateDirect(BUFFER_SIZE); //return the pool to its usual size
+            }
+            shpBuffers[i].clear();
+        }
+        currentBuffer = 0;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public int getRecordCount() {
+        return recordNumber;
+    }
+
+    /**
+     * Writes any buffered records, then the headers of both files, and closes them.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushShp();
+            flush(shxChannel, shxBuffer);
+
+            ByteBuffer header = ByteBuffer.allocate(ShapefileHeader.LENGTH);
+            ShapefileHeader.write(header, position, shpTypeId, extent, zRange, mRange);
+            writeHeader(shpChannel, header);
+            long shxLength = ShapefileHeader.LENGTH + (long) RECORD_HEADER_LENGTH * recordNumber;
+            ShapefileHeader.write(header, shxLength, shpTypeId, extent, zRange, mRange);
+            writeHeader(shxChannel, header);
+        } finally {
+            try {
+                shpChannel.close();
+            } finally {
+                shxChannel.close();
+            }
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, ByteBuffer header) throws IOException {
+        header.clear();
+        long offset = 0;
+        while (header.hasRemaining()) {
+            offset += channel.write(header, offset);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Joins the geometries of two cursors, such as points in polygons, without comparing every pair.
+ * <p>
+ * The left cursor is read into memory and its envelopes are packed into an in-memory {@link ShapefileRTree}.
+ * The right cursor is then streamed in batches, which are probed on the threads of the supplied executor: the
+ * envelope of each right geometry is searched in the tree, and the predicate is tested only on the left geometries
+ * whose envelope it meets.
+ * <p>
+ * A left geometry is accelerated for the relational operator once it has been tested a number of times, as the
+ * acceleration costs as much as tens to hundreds of tests: the first thread to reach that number accelerates a copy
+ * of the geometry and publishes it for the following tests.
+ * <p>
+ * The result holds a (left id, right id) pair, by {@link GeometryCursor#getGeometryID()}, for every pair for which
+ * the predicate holds, ordered by the right cursor and then by the left cursor, whatever the number of threads.
+ */
+public final class SpatialJoin {
+
+    public enum Predicate {
+        /**
+         * The left geometry intersects the right geometry.
+         */
+        INTERSECTS,
+        /**
+         * The left geometry contains the right geometry, as a polygon contains a point.
+         */
+        CONTAINS
+    }
+
+    static final int DEFAULT_BATCH_SIZE = 1024;
+    static final int DEFAULT_TESTS_BEFORE_ACCELERATION = 64;
+
+    private final ExecutorService executor;
+    private final SpatialReference spatialReference;
+    private final OperatorSimpleRelation operator;
+    private Geometry.GeometryAccelerationDegree accelerationDegree = Geometry.GeometryAccelerationDegree.enumMedium;
+    private int testsBeforeAcceleration = DEFAULT_TESTS_BEFORE_ACCELERATION;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxBatchesInFlight = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param spatialReference gives the tolerance, or null to derive it from the bounds of each pair of geometries
+     */
+    public SpatialJoin(ExecutorService executor, SpatialReference spatialReference, Predicate predicate) {
+        this.executor = executor;
+        this.spatialReference = spatialReference;
+        operator = predicate == Predicate.CONTAINS ? OperatorContains.local() : OperatorIntersects.local();
+    }
+
+    /**
+     * @param accelerationDegree      the acceleration of the left geometries, {@link
+     *                                Geometry.GeometryAccelerationDegree#enumMedium} by default, or null not to
+     *                                accelerate them
+     * @param testsBeforeAcceleration the number of tests of a left geometry after which it is accelerated, 64 by
+     *                                default, or 0 to accelerate every left geometry as it is read
+     */
+    public void setAcceleration(Geometry.GeometryAccelerationDegree accelerationDegree, int testsBeforeAcceleration) {
+        if (testsBeforeAcceleration < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.accelerationDegree = accelerationDegree;
+        this.testsBeforeAcceleration = testsBeforeAcceleration;
+    }
+
+    /**
+     * @param batchSize          the number of right geometries probed by one task
+     * @param maxBatchesInFlight the maximum number of batches submitted but not yet collected
+     */
+    public void setBatchSize(int batchSize, int maxBatchesInFlight) {
+        if (batchSize < 1 || maxBatchesInFlight < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+    }
+
+    /**
+     * Reads both cursors to the end and returns the pairs of ids for which the predicate holds.
+     * Exceptions of the relational operator are rethrown.
+     */
+    public IntPairBuffer execute(GeometryCursor left, GeometryCursor right) {
+        final Index index = new Index(left);
+        IntPairBuffer result = new IntPairBuffer();
+        Queue<Future<IntPairBuffer>> inFlight = new ArrayDeque<Future<IntPairBuffer>>();
+        try {
+            Geometry geometry = right.next();
+            while (geometry != null) {
+                final Geometry[] batch = new Geometry[batchSize];
+                final int[] ids = new int[batchSize];
+                int count = 0;
+                while (geometry != null && count < batchSize) {
+                    batch[count] = geometry;
+                    ids[count++] = right.getGeometryID();
+                    geometry = right.next();
+                }
+
+                final int batchCount = count;
+                if (inFlight.size() == maxBatchesInFlight) {
+                    result.addAll(get(inFlight.remove()));
+                }
+                inFlight.add(executor.submit(new Callable<IntPairBuffer>() {
+                    @Override
+                    public IntPairBuffer call() {
+                        return index.probe(batch, ids, batchCount);
+                    }
+                }));
+            }
+            while (!inFlight.isEmpty()) {
+                result.addAll(get(inFlight.remove()));
+            }
+        } finally {
+            for (Future<IntPairBuffer> future : inFlight) {
+                future.cancel(false);
+            }
+        }
+        return result;
+    }
+
+    private static IntPairBuffer get(Future<IntPairBuffer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * The left geometries and the tree of their envelopes, keyed by their position. Only the geometries change once
+     * built, when they are replaced by their accelerated copy.
+     */
+    private final class Index {
+        private final AtomicReferenceArray<Geometry> geometries;
+        private final AtomicIntegerArray testCounts; //null when the geometries are not accelerated on the way
+        private final int[] ids;
+        private final ShapefileRTree tree;
+        private final double tolerance;
+
+        Index(GeometryCursor cursor) {
+            List<Geometry> geometryList = new ArrayList<Geometry>();
+            int[] idList = new int[1024];
+            ShapefileRTreeBuilder builder = new ShapefileRTreeBuilder();
+            Envelope2D envelope = new Envelope2D();
+            Geometry geometry;
+            while ((geometry = cursor.next()) != null) {
+                int position = geometryList.size();
+                if (position == idList.length) {
+                    idList = Arrays.copyOf(idList, 2 * position);
+                }
+                idList[position] = cursor.getGeometryID();
+                geometry.queryEnvelope2D(envelope);
+                builder.add(position, envelope); //empty geometries are not indexed, and match nothing
+
+                //a copy, as the lazy acceleration does, so the geometries of the caller are left as they were
+                if (accelerationDegree != null && testsBeforeAcceleration == 0
+                        && operator.canAccelerateGeometry(geometry)) {
+                    geometry = geometry.copy();
+                    operator.accelerateGeometry(geometry, spatialReference, accelerationDegree);
+                }
+                geometryList.add(geometry);
+            }
+            geometries = new AtomicReferenceArray<Geometry>(geometryList.toArray(new Geometry[geometryList.size()]));
+            testCounts = accelerationDegree != null && testsBeforeAcceleration > 0
+                    ? new AtomicIntegerArray(geometryList.size()) : null;
+            ids = idList;
+            tree = builder.build();
+            tolerance = spatialReference != null ? spatialReference.getTolerance() : 0;
+        }
+
+        IntPairBuffer probe(Geometry[] batch, int[] batchIds, int count) {
+            IntPairBuffer pairs = new IntPairBuffer();
+            Envelope2D envelope = new Envelope2D();
+            for (int i = 0; i < count; i++) {
+                batch[i].queryEnvelope2D(envelope);
+                if (envelope.isEmpty()) {
+                    continue;
+                }
+                envelope.inflate(tolerance, tolerance);
+                for (int position : tree.search(envelope)) {
+                    if (operator.execute(geometryToTest(position), batch[i], spatialReference, null)) {
+                        pairs.add(ids[position], batchIds[i]);
+                    }
+                }
+            }
+            return pairs;
+        }
+
+        private Geometry geometryToTest(int position) {
+            Geometry geometry = geometries.get(position);
+            if (testCounts == null || testCounts.get(position) >= testsBeforeAcceleration) {
+                return geometry;
+            }
+            if (testCounts.incrementAndGet(position) == testsBeforeAcceleration
+                    && operator.canAccelerateGeometry(geometry)) {
+                Geometry accelerated = geometry.copy();
+                operator.accelerateGeometry(accelerated, spatialReference, accelerationDegree);
+                geometries.set(position, accelerated);
+                return accelerated;
+            }
+            return geometry;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarGeometryStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String[] SHAPEFILES = {"points", "multipoints", "polylines", "polygons", "pointz",
+            "polygonz", "multipatch"};
+
+    /**
+     * The store must give the records and the geometries of the cursor.
+     */
+    @Test
+    public void matchesShapefileCursor() throws IOException {
+        for (String name : SHAPEFILES) {
+            File file = new File("src/test/resources/" + name + ".shp");
+            ColumnarGeometryStore store = ColumnarGeometryStore.load(new ShapefileGeometryCursor(file));
+
+            ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(file);
+            ShapefileRecord record = new ShapefileRecord();
+            Envelope2D expected = new Envelope2D();
+            Envelope2D actual = new Envelope2D();
+            long pointCount = 0;
+            int feature = 0;
+            while (cursor.nextRecord(record)) {
+                assertEquals(name, record.getRecordNumber(), store.getID(feature));
+                Geometry geometry = record.toGeometry();
+                Geometry stored = store.getGeometry(feature);
+                if (geometry == null) {
+                    assertNull(stored);
+                } else {
+                    assertTrue(name + " " + feature, OperatorEquals.local().execute(geometry, stored, null, null));
+                    geometry.queryEnvelope2D(expected);
+                    store.queryEnvelope2D(feature, actual);
+                    assertEquals(expected, actual);
+                }
+                if (ShapeRecords.baseType(record.getShapeType()) != ShapeRecords.MULTIPATCH) {
+                    assertEquals(record.getPartCount(), store.getPartCount(feature));
+                    assertEquals(record.getPointCount(), store.getPointCount(feature));
+                    for (int part = 0; part < record.getPartCount(); part++) {
+                        assertEquals(record.getPartStart(part), store.getPartStart(feature, part));
+                        assertEquals(record.getPartEnd(part), store.getPartEnd(feature, part));
+                    }
+                    for (int point = 0; point < record.getPointCount(); point++) {
+                        assertEquals(record.getX(point), store.getX(feature, point), 0);
+                        assertEquals(record.getY(point), store.getY(feature, point), 0);
+                    }
+                }
+                pointCount += store.getPointCount(feature);
+                feature++;
+            }
+            assertEquals(name, feature, store.getFeatureCount());
+            assertEquals(pointCount, store.getPointCount());
+        }
+    }
+
+    /**
+     * With buffers of 8 values, points span buffers and the last buffer grows; the geometries must come back equal.
+     */
+    @Test
+    public void storesGeometriesAcrossBuffers() {
+        Random random = new Random(3);
+        ColumnarGeometryStore store = new ColumnarGeometryStore(Geometry.Type.Polygon, 3);
+        List<Polygon> polygons = new ArrayList<Polygon>();
+        for (int i = 0; i < 100; i++) {
+            Polygon polygon = new Polygon();
+            double x = 100 * random.nextDouble();
+            double y = 100 * random.nextDouble();
+            for (int ring = 0; ring < 1 + random.nextInt(3); ring++) {
+                double size = 1 + ring;
+                polygon.startPath(x + 10 * ring, y);
+                polygon.lineTo(x + 10 * ring, y + size);
+                polygon.lineTo(x + 10 * ring + size, y + size);
+                polygon.lineTo(x + 10 * ring + size, y);
+            }
+            polygons.add(polygon);
+            store.add(i, polygon);
+        }
+        store.add(100, null);
+
+        assertEquals(101, store.getFeatureCount());
+        for (int i = 0; i < polygons.size(); i++) {
+            assertTrue(OperatorEquals.local().execute(polygons.get(i), store.getGeometry(i), null, null));
+            assertEquals(polygons.get(i).getPointCount() + polygons.get(i).getPathCount(), store.getPointCount(i));
+        }
+        assertNull(store.getGeometry(100));
+
+        int count = 0;
+        GeometryCursor cursor = store.cursor();
+        while (cursor.next() != null) {
+            assertEquals(count++, cursor.getGeometryID());
+        }
+        assertEquals(100, count);
+    }
+
+    /**
+     * A closed polyline path is written with its closing vertex, so adding the geometry must store
+     * the same parts and points as adding its record.
+     */
+    @Test
+    public void closedPolylinePathsMatchTheirRecords() throws IOException {
+        Polyline polyline = new Polyline();
+        polyline.startPath(0, 0);
+        polyline.lineTo(0, 5);
+        polyline.lineTo(5, 5);
+        polyline.closePathWithLine();
+        polyline.startPath(10, 0);
+        polyline.lineTo(12, 3);
+        assertTrue(polyline.isClosedPath(0));
+
+        File file = folder.newFile("closed.shp");
+        ShapefileWriter writer = new ShapefileWriter(file, Geometry.Type.Polyline);
+        try {
+            writer.write(polyline);
+        } finally {
+            writer.close();
+        }
+        ColumnarGeometryStore fromRecord = ColumnarGeometryStore.load(new ShapefileGeometryCursor(file));
+        ColumnarGeometryStore fromGeometry = new ColumnarGeometryStore(Geometry.Type.Polyline);
+        fromGeometry.add(1, polyline);
+
+        assertEquals(6, fromRecord.getPointCount(0));
+        assertEquals(fromRecord.getPointCount(0), fromGeometry.getPointCount(0));
+        for (int part = 0; part < 2; part++) {
+            assertEquals(fromRecord.getPartStart(0, part), fromGeometry.getPartStart(0, part));
+            assertEquals(fromRecord.getPartEnd(0, part), fromGeometry.getPartEnd(0, part));
+        }
+        for (int point = 0; point < 6; point++) {
+            assertEquals(fromRecord.getX(0, point), fromGeometry.getX(0, point), 0);
+            assertEquals(fromRecord.getY(0, point), fromGeometry.getY(0, point), 0);
+        }
+        assertTrue(OperatorEquals.local().execute(polyline, fromGeometry.getGeometry(0), null, null));
+    }
+
+    /**
+     * Readers share the store, so each geometry must get the envelope of its own feature.
+     */
+    @Test
+    public void readsFromSeveralThreads() throws Exception {
+        final ColumnarGeometryStore store = new ColumnarGeometryStore(Geometry.Type.Polygon);
+        for (int i = 0; i < 2000; i++) {
+            Polygon polygon = new Polygon();
+            polygon.startPath(i, 0);
+            polygon.lineTo(i, 1 + i % 7);
+            polygon.lineTo(i + 1 + i % 5, 1 + i % 7);
+            store.add(i, polygon);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        Envelope2D expected = new Envelope2D();
+                        Envelope2D actual = new Envelope2D();
+                        for (int round = 0; round < 5; round++) {
+                            for (int i = 0; i < store.getFeatureCount(); i++) {
+                                store.queryEnvelope2D(i, expected);
+                                store.getGeometry(i).queryEnvelope2D(actual);
+                                assertEquals(expected, actual);
+                            }
+                        }
+                        return store.getFeatureCount();
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(2000, (int) future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void searchMatchesEnvelopeScan() throws IOException {
+        File file = new File("src/test/resources/polygons.shp");
+        ColumnarGeometryStore store = ColumnarGeometryStore.load(new ShapefileGeometryCursor(file));
+        Envelope2D extent = new Envelope2D();
+        extent.setEmpty();
+        Envelope2D envelope = new Envelope2D();
+        for (int i = 0; i < store.getFeatureCount(); i++) {
+            store.queryEnvelope2D(i, envelope);
+            extent.merge(envelope);
+        }
+
+        Random random = new Random(5);
+        for (int q = 0; q < 50; q++) {
+            double x = extent.xmin + extent.getWidth() * random.nextDouble();
+            double y = extent.ymin + extent.getHeight() * random.nextDouble();
+            Envelope2D query = new Envelope2D(x, y, x + extent.getWidth() / 4, y + extent.getHeight() / 4);
+
+            List<Integer> expected = new ArrayList<Integer>();
+            long points = 0;
+            for (int i = 0; i < store.getFeatureCount(); i++) {
+                store.queryEnvelope2D(i, envelope);
+                if (!envelope.isEmpty() && envelope.isIntersecting(query)) {
+                    expected.add(i);
+                    points += store.getPointCount(i);
+                }
+            }
+            int[] expectedArray = new int[expected.size()];
+            for (int i = 0; i < expectedArray.length; i++) {
+                expectedArray[i] = expected.get(i);
+            }
+            assertArrayEquals(expectedArray, store.search(query));
+            assertEquals(points, store.getPointCount(query));
+        }
+        assertEquals(store.getFeatureCount(), store.search(extent).length);
+        assertEquals(store.getPointCount(), store.getPointCount(extent));
+    }
+}
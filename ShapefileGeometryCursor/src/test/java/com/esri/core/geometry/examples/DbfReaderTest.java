@@ -0,0 +1,179 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.Geometry;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DbfReaderTest {
+
+    @Test
+    public void readsAllColumns() throws IOException {
+        DbfReader dbf = new DbfReader(getTestFile("polygons.dbf"));
+        assertEquals(3, dbf.getRecordCount());
+        assertEquals(4, dbf.getColumnCount());
+        assertEquals("AREA", dbf.getColumnName(1));
+        assertEquals('N', dbf.getColumnType(1));
+        assertEquals(3, dbf.getColumnDecimalCount(1));
+
+        assertTrue(dbf.next());
+        assertEquals(1, dbf.getRecordNumber());
+        assertFalse(dbf.isDeleted());
+        assertEquals("small", dbf.getString(0));
+        assertEquals(1.092, dbf.getDouble(1), 0);
+        assertEquals(7, dbf.getInt(2));
+        assertTrue(dbf.getBoolean(3));
+
+        assertTrue(dbf.next());
+        assertEquals(14.742, dbf.getDouble(1), 0);
+        assertEquals(-42, dbf.getInt(2));
+        assertFalse(dbf.getBoolean(3));
+
+        assertTrue(dbf.next());
+        assertEquals("medium", dbf.getString(0));
+        assertTrue(dbf.isNull(2));
+        assertTrue(Double.isNaN(dbf.getDouble(2)));
+        assertTrue(dbf.isNull(3));
+
+        assertFalse(dbf.next());
+        dbf.close();
+    }
+
+    @Test
+    public void projectionSelectsColumns() throws IOException {
+        DbfReader dbf = new DbfReader(getTestFile("polygons.dbf"), "code", "NAME");
+        assertEquals(2, dbf.getColumnCount());
+        assertEquals(0, dbf.getColumnIndex("CODE"));
+        assertEquals(-1, dbf.getColumnIndex("AREA"));
+
+        assertTrue(dbf.seek(2));
+        assertEquals(-42, dbf.getLong(0));
+        assertEquals("large", dbf.getString(1));
+        assertFalse(dbf.seek(4));
+        dbf.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownColumnIsRejected() throws IOException {
+        new DbfReader(getTestFile("polygons.dbf"), "POPULATION");
+    }
+
+    /**
+     * Attributes are tested before the geometry is decoded, and line up with the geometry by record number
+     */
+    @Test
+    public void filterOnAttributesBeforeDecoding() throws IOException {
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(getTestFile("polygons.shp"));
+        DbfReader dbf = new DbfReader(getTestFile("polygons.dbf"), "AREA");
+        ShapefileRecord record = new ShapefileRecord();
+
+        int matches = 0;
+        while (cursor.nextRecord(record)) {
+            assertTrue(dbf.seek(record.getRecordNumber()));
+            if (dbf.getDouble(0) > 2) {
+                Geometry geometry = record.toGeometry();
+                assertEquals(dbf.getDouble(0), geometry.calculateArea2D(), 1e-3);
+                matches++;
+            }
+        }
+        assertEquals(2, matches);
+        dbf.close();
+    }
+
+    /**
+     * Binary fields holding zero, or 32 whose first byte is a blank, are values and not nulls; '?' is null only in a
+     * logical field
+     */
+    @Test
+    public void binaryZerosAreNotNull() throws IOException {
+        File file = File.createTempFile("binary", ".dbf");
+        file.deleteOnExit();
+        ByteBuffer record = ByteBuffer.allocate(1 + 4 + 8 + 1 + 3).order(ByteOrder.LITTLE_ENDIAN);
+        List<byte[]> records = new ArrayList<byte[]>();
+        int[] ints = {0, 32, 0};
+        double[] doubles = {0.0, 2.5, 0.0};
+        String[] logicals = {"?", "T", " "};
+        String[] texts = {"?  ", "   ", "abc"};
+        for (int i = 0; i < ints.length; i++) {
+            record.clear();
+            record.put((byte) ' ').putInt(ints[i]).putDouble(doubles[i]);
+            record.put(logicals[i].getBytes("US-ASCII")).put(texts[i].getBytes("US-ASCII"));
+            records.add(Arrays.copyOf(record.array(), record.capacity()));
+        }
+        writeDbf(file, new String[]{"COUNT", "RATIO", "FLAG", "NOTE"}, new char[]{'I', 'O', 'L', 'C'},
+                new int[]{4, 8, 1, 3}, records);
+
+        DbfReader dbf = new DbfReader(file);
+        try {
+            for (int i = 0; i < ints.length; i++) {
+                assertTrue(dbf.next());
+                assertFalse(dbf.isNull(0));
+                assertEquals(ints[i], dbf.getInt(0));
+                assertFalse(dbf.isNull(1));
+                assertEquals(doubles[i], dbf.getDouble(1), 0);
+            }
+            dbf.seek(1);
+            assertTrue(dbf.isNull(2));
+            assertFalse(dbf.isNull(3)); //'?' is text in a character field
+            dbf.seek(2);
+            assertFalse(dbf.isNull(2));
+            assertTrue(dbf.isNull(3));
+            dbf.seek(3);
+            assertTrue(dbf.isNull(2));
+        } finally {
+            dbf.close();
+        }
+    }
+
+    private static void writeDbf(File file, String[] names, char[] types, int[] lengths, List<byte[]> records)
+            throws IOException {
+        int recordLength = 1;
+        for (int length : lengths) {
+            recordLength += length;
+        }
+        int headerLength = 32 + 32 * names.length + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(headerLength + recordLength * records.size() + 1)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(0, (byte) 3);
+        buffer.putInt(4, records.size());
+        buffer.putShort(8, (short) headerLength);
+        buffer.putShort(10, (short) recordLength);
+        for (int i = 0; i < names.length; i++) {
+            int d = 32 + 32 * i;
+            byte[] name = names[i].getBytes("US-ASCII");
+            for (int b = 0; b < name.length; b++) {
+                buffer.put(d + b, name[b]);
+            }
+            buffer.put(d + 11, (byte) types[i]);
+            buffer.put(d + 16, (byte) lengths[i]);
+        }
+        buffer.put(headerLength - 1, (byte) 0x0D);
+        buffer.position(headerLength);
+        for (byte[] record : records) {
+            buffer.put(record);
+        }
+        buffer.put((byte) 0x1A);
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(buffer.array());
+        } finally {
+            out.close();
+        }
+    }
+
+    private File getTestFile(String name) {
+        return new File("src/test/resources/" + name);
+    }
+}
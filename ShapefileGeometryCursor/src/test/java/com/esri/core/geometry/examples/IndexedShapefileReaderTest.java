@@ -0,0 +1,84 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IndexedShapefileReaderTest {
+
+    /**
+     * Every record read through the index must match the same record read sequentially
+     */
+    @Test
+    public void getMatchesSequentialRead() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            ShapefileGeometryCursor sequentialCursor = new ShapefileGeometryCursor(file);
+            IndexedShapefileReader reader = new IndexedShapefileReader(file);
+            try {
+                assertEquals(sequentialCursor.getGeometryType(), reader.getGeometryType());
+
+                int count = 0;
+                Geometry geom;
+                while ((geom = sequentialCursor.next()) != null) {
+                    assertEquals(geom, reader.get(sequentialCursor.getGeometryID()));
+                    count++;
+                }
+                assertEquals(count, reader.getRecordCount());
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * A cursor over selected records returns them in the order requested, identified by record number
+     */
+    @Test
+    public void cursorOverSelectedRecords() throws IOException {
+
+        File file = getTestShapefile("points");
+        IndexedShapefileReader reader = new IndexedShapefileReader(file);
+        try {
+            int[] recordNumbers = {7, 2, 5};
+            GeometryCursor cursor = reader.cursor(recordNumbers);
+
+            List<Integer> ids = new ArrayList<Integer>();
+            Geometry geom;
+            while ((geom = cursor.next()) != null) {
+                assertEquals(reader.get(cursor.getGeometryID()), geom);
+                ids.add(cursor.getGeometryID());
+            }
+            assertEquals(3, ids.size());
+            assertEquals(7, ids.get(0).intValue());
+            assertEquals(2, ids.get(1).intValue());
+            assertEquals(5, ids.get(2).intValue());
+            assertNull(cursor.next());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void recordNumberOutOfRange() throws IOException {
+        IndexedShapefileReader reader = new IndexedShapefileReader(getTestShapefile("polygons"));
+        try {
+            reader.get(4);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private File getTestShapefile(String name) {
+        return new File("src/test/resources/" + name + ".shp");
+    }
+}
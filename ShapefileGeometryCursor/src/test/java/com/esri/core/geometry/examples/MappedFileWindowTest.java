@@ -0,0 +1,93 @@
+package com.esri.core.geometry.examples;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedFileWindowTest {
+
+    private static final int FILE_LENGTH = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Ranges read in random order, including ranges across the end of a window, must give the bytes of the file
+     */
+    @Test
+    public void randomRangesMatchTheFile() throws IOException {
+        FileChannel channel = open();
+        try {
+            MappedFileWindow window = new MappedFileWindow(channel, FILE_LENGTH, 64, 3);
+            Random random = new Random(7);
+            for (int i = 0; i < 2000; i++) {
+                int length = 1 + random.nextInt(100);
+                long offset = random.nextInt(FILE_LENGTH - length + 1);
+                ByteBuffer slice = window.slice(offset, length);
+                assertEquals(length, slice.remaining());
+                for (int b = 0; b < length; b++) {
+                    assertEquals((offset + b) % 251, slice.get(b) & 0xff);
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Jumping back and forth between parts of the file reuses the windows kept mapped; only the least recently used
+     * window is dropped
+     */
+    @Test
+    public void recentWindowsStayMapped() throws IOException {
+        FileChannel channel = open();
+        try {
+            MappedFileWindow window = new MappedFileWindow(channel, FILE_LENGTH, 64, 2);
+            window.slice(10, 4);
+            window.slice(200, 4);
+            window.slice(20, 4);
+            window.slice(210, 4);
+            window.slice(0, 64);
+            assertEquals(2, window.getMapCount());
+
+            window.slice(500, 4); //drops the window of 200, read before the one of 0
+            window.slice(30, 4);
+            assertEquals(3, window.getMapCount());
+            window.slice(250, 4);
+            assertEquals(4, window.getMapCount());
+
+            //a range across the end of its aligned window is mapped with it, and later reads of either part use it
+            window.slice(60, 10);
+            window.slice(0, 4);
+            window.slice(64, 6);
+            assertEquals(5, window.getMapCount());
+        } finally {
+            channel.close();
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        File file = folder.newFile("window.bin");
+        byte[] bytes = new byte[FILE_LENGTH];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return new RandomAccessFile(file, "r").getChannel();
+    }
+}
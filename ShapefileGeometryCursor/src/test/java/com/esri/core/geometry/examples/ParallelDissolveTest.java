@@ -0,0 +1,115 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelDissolveTest {
+
+    @Test
+    public void matchesSequentialUnionOfShapefile() throws IOException {
+        File file = new File("src/test/resources/polygons.shp");
+        Geometry expected = OperatorUnion.local().execute(new ShapefileGeometryCursor(file), null, null).next();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int partitionSize : new int[]{1, 2, ParallelDissolve.DEFAULT_PARTITION_SIZE}) {
+                ParallelDissolve dissolve = new ParallelDissolve(executor, null, partitionSize);
+                Polygon dissolved = (Polygon) dissolve.execute(new ShapefileGeometryCursor(file));
+                assertEquals(4, dissolved.getExteriorRingCount());
+                assertTrue(OperatorEquals.local().execute(expected, dissolved, null, null));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Overlapping squares in random order, dissolved into a few blobs with holes.
+     */
+    @Test
+    public void matchesSequentialUnionOfOverlappingSquares() {
+        Random random = new Random(42);
+        List<Geometry> squares = new ArrayList<Geometry>();
+        for (int i = 0; i < 600; i++) {
+            double x = 100 * random.nextDouble();
+            double y = 100 * random.nextDouble();
+            double size = 1 + 4 * random.nextDouble();
+            squares.add(new Envelope(x, y, x + size, y + size));
+        }
+        SpatialReference spatialReference = SpatialReference.create(4326);
+        Geometry expected = OperatorUnion.local().execute(new SimpleGeometryCursor(squares), spatialReference,
+                null).next();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int partitionSize : new int[]{1, 7, 64, 1000}) {
+                ParallelDissolve dissolve = new ParallelDissolve(executor, spatialReference, partitionSize);
+                Geometry dissolved = dissolve.execute(new SimpleGeometryCursor(squares));
+                assertTrue(OperatorEquals.local().execute(expected, dissolved, spatialReference, null));
+                assertEquals(((Polygon) expected).calculateArea2D(), ((Polygon) dissolved).calculateArea2D(), 1e-6);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void emptyCursorGivesNull() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ParallelDissolve dissolve = new ParallelDissolve(executor, null);
+            assertNull(dissolve.execute(new SimpleGeometryCursor(new ArrayList<Geometry>())));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void hilbertOrderKeepsNeighboursTogether() {
+        List<Geometry> points = new ArrayList<Geometry>();
+        for (int i = 0; i < 4; i++) {
+            points.add(new Point(i % 2 == 0 ? 0 : 100, i < 2 ? 0 : 100)); //corners, in row order
+            points.add(new Point(i % 2 == 0 ? 1 : 99, i < 2 ? 1 : 99));
+        }
+        Envelope2D extent = new Envelope2D();
+        Geometry[] sorted = ParallelDissolve.hilbertOrder(new SimpleGeometryCursor(points), extent);
+        assertEquals(8, sorted.length);
+        assertEquals(new Envelope2D(0, 0, 100, 100), extent);
+        for (int i = 0; i < 8; i += 2) {
+            //each point is next to the point near the same corner
+            Point a = (Point) sorted[i];
+            Point b = (Point) sorted[i + 1];
+            assertTrue(Math.abs(a.getX() - b.getX()) <= 1 && Math.abs(a.getY() - b.getY()) <= 1);
+        }
+    }
+
+    /**
+     * The union takes the larger of 1.1 times the tolerance of the spatial reference and 4 times the one it derives
+     * from the envelope of its inputs, so the derived spatial reference must win for any envelope inside the extent.
+     */
+    @Test
+    public void toleranceReferenceCoversEveryEnvelopeInTheExtent() {
+        Envelope2D extent = new Envelope2D(-10, -3, 1000, 5);
+        double tolerance = ParallelDissolve.toleranceReference(extent).getTolerance();
+        Envelope2D[] envelopes = {extent, new Envelope2D(900, 4, 1000, 5), new Envelope2D(-10, -3, -9, -2),
+                new Envelope2D(0, 0, 1, 1)};
+        for (Envelope2D envelope : envelopes) {
+            double derived = 100 * Math.ulp(1.0) * (Math.abs(envelope.xmin) + Math.abs(envelope.xmax)
+                    + Math.abs(envelope.ymin) + Math.abs(envelope.ymax) + 1);
+            assertTrue(envelope.toString(), 1.1 * tolerance > 4 * derived);
+        }
+        assertTrue(tolerance < 1e-9);
+    }
+}
@@ -0,0 +1,185 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelShapefileReaderTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * With one record per split, the ordered cursor must return exactly what the sequential cursor does
+     */
+    @Test
+    public void orderedCursorMatchesSequentialCursor() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            ShapefileGeometryCursor sequentialCursor = new ShapefileGeometryCursor(file);
+            ParallelShapefileReader reader = openWithTinySplits(file);
+            try {
+                GeometryCursor parallelCursor = reader.cursor(true);
+                Geometry geom;
+                while ((geom = sequentialCursor.next()) != null) {
+                    assertEquals(geom, parallelCursor.next());
+                    assertEquals(sequentialCursor.getGeometryID(), parallelCursor.getGeometryID());
+                }
+                assertNull(parallelCursor.next());
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * The unordered cursor returns every record once, identified by its record number
+     */
+    @Test
+    public void unorderedCursorReturnsEveryRecord() throws IOException {
+
+        File file = getTestShapefile("points");
+        Map<Integer, Geometry> expected = new HashMap<Integer, Geometry>();
+        ShapefileGeometryCursor sequentialCursor = new ShapefileGeometryCursor(file);
+        Geometry geom;
+        while ((geom = sequentialCursor.next()) != null) {
+            expected.put(sequentialCursor.getGeometryID(), geom);
+        }
+
+        ParallelShapefileReader reader = openWithTinySplits(file);
+        try {
+            GeometryCursor parallelCursor = reader.cursor(false);
+            while ((geom = parallelCursor.next()) != null) {
+                assertEquals(expected.remove(parallelCursor.getGeometryID()), geom);
+            }
+            assertEquals(0, expected.size());
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * The parallel cursor can be passed to operators as any other cursor
+     */
+    @Test
+    public void unionOfParallelCursor() throws IOException {
+
+        File file = getTestShapefile("polygons");
+        ParallelShapefileReader reader = new ParallelShapefileReader(file, executor);
+        try {
+            GeometryCursor unionCursor = OperatorUnion.local().execute(reader.cursor(false), null, null);
+            Polygon multiPoly = (Polygon) unionCursor.next();
+            assertEquals(4, multiPoly.getExteriorRingCount());
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * A cursor interrupted while it waits must cancel the splits it has submitted, in either order
+     */
+    @Test
+    public void interruptCancelsSubmittedSplits() throws IOException {
+
+        File file = getTestShapefile("points");
+        ShapefileIndex index = ShapefileIndex.read(ShapefileIndex.companionFile(file, "shx"));
+        for (boolean preserveOrder : new boolean[]{true, false}) {
+            HeldExecutor held = new HeldExecutor();
+            ParallelShapefileReader reader = new ParallelShapefileReader(file, index, held, 1, 2);
+            try {
+                GeometryCursor cursor = reader.cursor(preserveOrder);
+                assertEquals(2, held.tasks.size());
+                Thread.currentThread().interrupt();
+                assertNull(cursor.next());
+                assertTrue(Thread.interrupted());
+                for (Future<?> task : held.tasks) {
+                    assertTrue(task.isCancelled());
+                }
+                assertNull(cursor.next());
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Keeps the tasks submitted to it without ever running them
+     */
+    private static final class HeldExecutor extends AbstractExecutorService {
+        final List<RunnableFuture<?>> tasks = new ArrayList<RunnableFuture<?>>();
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+            RunnableFuture<T> task = super.newTaskFor(callable);
+            tasks.add(task);
+            return task;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<Runnable>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+
+    private ParallelShapefileReader openWithTinySplits(File file) throws IOException {
+        ShapefileIndex index = ShapefileIndex.read(ShapefileIndex.companionFile(file, "shx"));
+        return new ParallelShapefileReader(file, index, executor, 1, 2);
+    }
+
+    private File getTestShapefile(String name) {
+        return new File("src/test/resources/" + name + ".shp");
+    }
+}
@@ -8,6 +8,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class ShapefileGeometryCursorTest {
@@ -114,6 +117,313 @@ public class ShapefileGeometryCursorTest {
 
     }
 
+    /**
+     * The memory mapped cursor must return the same records as the stream based one, however small the window
+     */
+    @Test
+    public void mappedCursorMatchesStreamCursor() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            for (long windowSize : new long[]{64, 1 << 20}) {
+                ShapefileGeometryCursor streamCursor = new ShapefileGeometryCursor(file);
+                MappedShapefileGeometryCursor mappedCursor = new MappedShapefileGeometryCursor(file, windowSize);
+                try {
+                    assertEquals(streamCursor.getGeometryType(), mappedCursor.getGeometryType());
+                    assertEquals(streamCursor.getEnvelope2D(), mappedCursor.getEnvelope2D());
+
+                    Geometry geom;
+                    while ((geom = streamCursor.next()) != null) {
+                        assertEquals(geom, mappedCursor.next());
+                        assertEquals(streamCursor.getGeometryID(), mappedCursor.getGeometryID());
+                    }
+                    assertNull(mappedCursor.next());
+                } finally {
+                    mappedCursor.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * With a query envelope, only records whose envelope intersects it are returned
+     */
+    @Test
+    public void queryEnvelopeFiltersRecords() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            Envelope2D fullExtent = new ShapefileGeometryCursor(file).getEnvelope2D();
+            Envelope2D query = new Envelope2D(fullExtent.xmin, fullExtent.ymin,
+                    fullExtent.getCenterX(), fullExtent.getCenterY());
+
+            List<Integer> expected = new ArrayList<Integer>();
+            ShapefileGeometryCursor unfiltered = new ShapefileGeometryCursor(file);
+            Geometry geom;
+            Envelope2D envelope = new Envelope2D();
+            while ((geom = unfiltered.next()) != null) {
+                geom.queryEnvelope2D(envelope);
+                if (envelope.isIntersecting(query)) {
+                    expected.add(unfiltered.getGeometryID());
+                }
+            }
+            assertTrue(expected.size() > 0);
+
+            ShapefileGeometryCursor filtered = new ShapefileGeometryCursor(file, query);
+            List<Integer> actual = new ArrayList<Integer>();
+            while (filtered.next() != null) {
+                actual.add(filtered.getGeometryID());
+            }
+            assertEquals(expected, actual);
+
+            MappedShapefileGeometryCursor mappedFiltered = new MappedShapefileGeometryCursor(file, query);
+            actual.clear();
+            while (mappedFiltered.next() != null) {
+                actual.add(mappedFiltered.getGeometryID());
+            }
+            mappedFiltered.close();
+            assertEquals(expected, actual);
+        }
+
+        Envelope2D outside = new Envelope2D(1000, 1000, 1001, 1001);
+        assertNull(new ShapefileGeometryCursor(getTestShapefile("polygons"), outside).next());
+    }
+
+    /**
+     * A reused record view must report the same coordinates and measures as the decoded geometry
+     */
+    @Test
+    public void flyweightRecordsMatchGeometries() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            ShapefileGeometryCursor geometryCursor = new ShapefileGeometryCursor(file);
+            ShapefileGeometryCursor streamCursor = new ShapefileGeometryCursor(file);
+            MappedShapefileGeometryCursor mappedCursor = new MappedShapefileGeometryCursor(file);
+
+            ShapefileRecord streamRecord = new ShapefileRecord();
+            ShapefileRecord mappedRecord = new ShapefileRecord();
+            Point point = new Point();
+            MultiPoint multiPoint = new MultiPoint();
+            Envelope2D expectedEnvelope = new Envelope2D();
+            Envelope2D envelope = new Envelope2D();
+
+            Geometry geom;
+            while ((geom = geometryCursor.next()) != null) {
+                assertTrue(streamCursor.nextRecord(streamRecord));
+                assertTrue(mappedCursor.nextRecord(mappedRecord));
+
+                for (ShapefileRecord record : new ShapefileRecord[]{streamRecord, mappedRecord}) {
+                    assertEquals(geometryCursor.getGeometryID(), record.getRecordNumber());
+                    assertEquals(geom, record.toGeometry());
+
+                    geom.queryEnvelope2D(expectedEnvelope);
+                    record.queryEnvelope2D(envelope);
+                    assertEquals(expectedEnvelope, envelope);
+
+                    if (geom instanceof Point) {
+                        record.copyTo(point);
+                        assertEquals(geom, point);
+                    } else {
+                        int expectedPointCount = ((MultiVertexGeometry) geom).getPointCount();
+                        if (geom instanceof Polygon) {
+                            expectedPointCount += ((Polygon) geom).getPathCount(); //stored rings repeat the start
+                        }
+                        assertEquals(expectedPointCount, record.getPointCount());
+                        assertEquals(geom.calculateArea2D(), record.calculateArea2D(), 1e-9);
+                        assertEquals(geom.calculateLength2D(), record.calculateLength2D(), 1e-9);
+                    }
+                    if (geom instanceof MultiPoint) {
+                        record.copyTo(multiPoint);
+                        assertEquals(geom, multiPoint);
+                    }
+                }
+            }
+            assertFalse(streamCursor.nextRecord(streamRecord));
+            assertFalse(mappedCursor.nextRecord(mappedRecord));
+            mappedCursor.close();
+        }
+    }
+
+    @Test
+    public void zAndMValuesAreRead() throws IOException {
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(getTestShapefile("pointz"));
+        assertTrue(cursor.hasZ());
+        assertEquals(10, cursor.getEnvelope3D().zmin, 0);
+        assertEquals(30, cursor.getEnvelope3D().zmax, 0);
+        assertEquals(new Envelope1D(100, 200), cursor.getMRange());
+
+        Point point = (Point) cursor.next();
+        assertEquals(new Point(1, 2, 10), new Point(point.getX(), point.getY(), point.getZ()));
+        assertEquals(100, point.getM(), 0);
+        cursor.next();
+        point = (Point) cursor.next();
+        assertEquals(30, point.getZ(), 0);
+        assertTrue(Double.isNaN(point.getM())); //"no data"
+
+        //PolygonZ records without the optional M values
+        MappedShapefileGeometryCursor mappedCursor = new MappedShapefileGeometryCursor(getTestShapefile("polygonz"));
+        Polygon polygon = (Polygon) mappedCursor.next();
+        assertTrue(polygon.hasAttribute(VertexDescription.Semantics.Z));
+        assertFalse(polygon.hasAttribute(VertexDescription.Semantics.M));
+        assertEquals(4, polygon.getPointCount());
+        assertEquals(3, polygon.getAttributeAsDbl(VertexDescription.Semantics.Z, 2, 0), 0);
+        assertEquals(1, polygon.calculateArea2D(), 0);
+        mappedCursor.close();
+
+        ShapefileRecord record = new ShapefileRecord();
+        cursor = new ShapefileGeometryCursor(getTestShapefile("polygonz"));
+        assertTrue(cursor.nextRecord(record));
+        assertTrue(record.hasZ());
+        assertFalse(record.hasM());
+        assertEquals(4, record.getZ(3), 0);
+        assertTrue(Double.isNaN(record.getM(3)));
+    }
+
+    @Test
+    public void dropZMDecodesXYOnly() throws IOException {
+        for (String name : new String[]{"pointz", "polygonz", "multipatch"}) {
+            ShapefileGeometryCursor zmCursor = new ShapefileGeometryCursor(getTestShapefile(name));
+            MappedShapefileGeometryCursor xyCursor = new MappedShapefileGeometryCursor(getTestShapefile(name));
+            xyCursor.setDropZM(true);
+
+            Geometry zmGeom;
+            while ((zmGeom = zmCursor.next()) != null) {
+                Geometry xyGeom = xyCursor.next();
+                assertFalse(xyGeom.getDescription().hasZ());
+                assertFalse(xyGeom.getDescription().hasM());
+                assertTrue(zmGeom.getDescription().hasZ());
+
+                zmGeom.dropAllAttributes();
+                assertEquals(zmGeom, xyGeom);
+            }
+            assertNull(xyCursor.next());
+            xyCursor.close();
+        }
+    }
+
+    @Test
+    public void multiPatchIsReadAsPolygon() throws IOException {
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(getTestShapefile("multipatch"));
+        assertEquals(Geometry.Type.Polygon, cursor.getGeometryType());
+
+        //a triangle strip of 4 points makes 2 triangles, then one ring
+        Polygon polygon = (Polygon) cursor.next();
+        assertEquals(3, polygon.getPathCount());
+        assertEquals(3 + 3 + 4, polygon.getPointCount());
+        assertEquals(2, polygon.getAttributeAsDbl(VertexDescription.Semantics.Z, 2, 0), 0);
+        assertEquals(40, polygon.getAttributeAsDbl(VertexDescription.Semantics.M, 6, 0), 0);
+        assertNull(cursor.next());
+
+        ShapefileRecord record = new ShapefileRecord();
+        cursor = new ShapefileGeometryCursor(getTestShapefile("multipatch"));
+        assertTrue(cursor.nextRecord(record));
+        assertEquals(2, record.getPartCount());
+        assertEquals(4, record.getPartStart(1));
+        assertEquals(2, record.getX(4), 0);
+        assertEquals(8, record.getZ(8), 0);
+        assertEquals(80, record.getM(8), 0);
+        assertEquals(new Envelope2D(0, 0, 3, 1), queryEnvelope(record));
+    }
+
+    @Test
+    public void readAheadCursorMatchesStreamCursor() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines", "polygonz"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            for (int chunkSize : new int[]{1, 64, 1 << 20}) {
+                ShapefileGeometryCursor streamCursor = new ShapefileGeometryCursor(file);
+                ShapefileGeometryCursor readAheadCursor = new ShapefileGeometryCursor(file, null, 2, chunkSize);
+                try {
+                    assertEquals(streamCursor.getEnvelope2D(), readAheadCursor.getEnvelope2D());
+                    Geometry geom;
+                    while ((geom = streamCursor.next()) != null) {
+                        assertEquals(geom, readAheadCursor.next());
+                        assertEquals(streamCursor.getGeometryID(), readAheadCursor.getGeometryID());
+                    }
+                    assertNull(readAheadCursor.next());
+                } finally {
+                    readAheadCursor.close();
+                }
+            }
+        }
+
+        //the cursor is still a plain GeometryCursor for the operators
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(getTestShapefile("polygons"), null, 3, 128);
+        try {
+            Polygon dissolved = (Polygon) OperatorUnion.local().execute(cursor, null, null).next();
+            assertEquals(4, dissolved.getExteriorRingCount());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Closing the cursor before the end of the file stops the read-ahead thread, which is blocked on a full ring.
+     */
+    @Test
+    public void readAheadCursorCanBeClosedEarly() throws IOException, InterruptedException {
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(getTestShapefile("polygons"), null, 2, 16);
+        assertTrue(cursor.next() != null);
+        cursor.close();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (readAheadThreadCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, readAheadThreadCount());
+    }
+
+    /**
+     * A null shape is not the end of the file: both cursors skip it and go on with the following records.
+     */
+    @Test
+    public void nullShapesAreSkipped() throws IOException {
+        File file = File.createTempFile("nullshapes", ".shp");
+        file.deleteOnExit();
+        ShapefileIndex.companionFile(file, "shx").deleteOnExit();
+        ShapefileWriter writer = new ShapefileWriter(file, Geometry.Type.Point);
+        try {
+            writer.write(new Point(1, 1));
+            writer.write(null);
+            writer.write(new Point(3, 3));
+            writer.write(null);
+        } finally {
+            writer.close();
+        }
+
+        GeometryCursor[] cursors = {new ShapefileGeometryCursor(file), new MappedShapefileGeometryCursor(file)};
+        for (GeometryCursor cursor : cursors) {
+            List<Integer> ids = new ArrayList<Integer>();
+            Geometry geometry;
+            while ((geometry = cursor.next()) != null) {
+                assertEquals(cursor.getGeometryID(), ((Point) geometry).getX(), 0);
+                ids.add(cursor.getGeometryID());
+            }
+            assertEquals("[1, 3]", ids.toString());
+        }
+    }
+
+    private static int readAheadThreadCount() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("ShapefileReadAhead") && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Envelope2D queryEnvelope(ShapefileRecord record) {
+        Envelope2D envelope = new Envelope2D();
+        record.queryEnvelope2D(envelope);
+        return envelope;
+    }
+
     private File getTestShapefile(String name) {
         return new File("src/test/resources/" + name + ".shp");
     }
@@ -0,0 +1,138 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.Geometry;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShapefileInputTest {
+
+    @Test
+    public void decodesMixedEndianValuesAcrossRefills() throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(4 + 4 + 8 + 5 * 8 + 3);
+        bytes.putInt(9994);
+        bytes.order(ByteOrder.LITTLE_ENDIAN).putInt(1000).putDouble(-12.5);
+        for (int i = 0; i < 5; i++) {
+            bytes.putDouble(i + 0.25);
+        }
+        bytes.put(new byte[]{1, 2, 3});
+
+        //an 8 byte buffer over a stream returning at most 3 bytes per read
+        ShapefileInput input = new ShapefileInput(Channels.newChannel(trickle(bytes.array(), 3)), 8);
+        assertEquals(9994, input.readBigEndianInt());
+        assertEquals(1000, input.readLittleEndianInt());
+        assertEquals(-12.5, input.readLittleEndianDouble(), 0);
+        double[] values = new double[6];
+        input.readLittleEndianDoubles(values, 1, 5);
+        assertArrayEquals(new double[]{0, 0.25, 1.25, 2.25, 3.25, 4.25}, values, 0);
+        input.skipFully(1);
+        byte[] rest = new byte[2];
+        input.readFully(rest);
+        assertArrayEquals(new byte[]{2, 3}, rest);
+
+        try {
+            input.readBigEndianInt();
+            fail();
+        } catch (EOFException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void readsMoreThanTheBufferSize() throws IOException {
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        ShapefileInput input = new ShapefileInput(Channels.newChannel(trickle(bytes, 7)), 16);
+        input.skipFully(3);
+        byte[] read = new byte[90];
+        input.readFully(read);
+        for (int i = 0; i < read.length; i++) {
+            assertEquals(i + 3, read[i]);
+        }
+
+        try {
+            input.readFully(new byte[8]);
+            fail();
+        } catch (EOFException e) {
+            //expected
+        }
+    }
+
+    /**
+     * A stream returning a few bytes at a time, as a pipe or a socket does, must give the same records as the file.
+     */
+    @Test
+    public void cursorHandlesShortReads() throws IOException {
+        String[] names = {"points", "multipoints", "polygons", "polylines", "polygonz"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            ShapefileGeometryCursor fileCursor = new ShapefileGeometryCursor(file);
+            InputStream in = new FileInputStream(file);
+            try {
+                ShapefileGeometryCursor streamCursor = new ShapefileGeometryCursor(trickle(in, 5));
+                Geometry geom;
+                int count = 0;
+                while ((geom = fileCursor.next()) != null) {
+                    assertEquals(geom, streamCursor.next());
+                    count++;
+                }
+                assertNull(streamCursor.next());
+                assertTrue(count > 0);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    @Test
+    public void queryXYMatchesGetXY() throws IOException {
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(getTestShapefile("polygons"));
+        ShapefileRecord record = new ShapefileRecord();
+        while (cursor.nextRecord(record)) {
+            for (int part = 0; part < record.getPartCount(); part++) {
+                int start = record.getPartStart(part);
+                int end = record.getPartEnd(part);
+                double[] xy = new double[1 + 2 * (end - start)];
+                assertEquals(xy.length - 1, record.queryXY(start, end, xy, 1));
+                for (int i = start; i < end; i++) {
+                    assertEquals(record.getX(i), xy[1 + 2 * (i - start)], 0);
+                    assertEquals(record.getY(i), xy[2 + 2 * (i - start)], 0);
+                }
+            }
+        }
+    }
+
+    private static InputStream trickle(byte[] bytes, int maxRead) {
+        return trickle(new ByteArrayInputStream(bytes), maxRead);
+    }
+
+    private static InputStream trickle(InputStream in, final int maxRead) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, maxRead));
+            }
+        };
+    }
+
+    private File getTestShapefile(String name) {
+        return new File("src/test/resources/" + name + ".shp");
+    }
+}
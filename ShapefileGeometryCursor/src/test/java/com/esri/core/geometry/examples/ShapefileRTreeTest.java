@@ -0,0 +1,118 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ShapefileRTreeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The tree must return exactly the records a full scan of envelopes would, for windows of varying size
+     */
+    @Test
+    public void searchMatchesFullScan() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            File sidecar = folder.newFile(name + ".rtree");
+
+            //a small node capacity gives the points file a tree of several levels
+            ShapefileRTreeBuilder builder = new ShapefileRTreeBuilder(2);
+            builder.addAll(new ShapefileGeometryCursor(file));
+            builder.write(sidecar);
+
+            ShapefileRTree tree = ShapefileRTree.open(sidecar);
+            Envelope2D extent = new ShapefileGeometryCursor(file).getEnvelope2D();
+            for (int i = 0; i <= 4; i++) {
+                Envelope2D query = new Envelope2D(extent.xmin, extent.ymin,
+                        extent.xmin + extent.getWidth() * i / 4, extent.ymin + extent.getHeight() * i / 4);
+                assertArrayEquals(fullScan(file, query), tree.search(query));
+            }
+        }
+    }
+
+    @Test
+    public void treeBuiltInMemoryMatchesFullScan() throws IOException {
+
+        String[] names = {"points", "polygons", "polylines"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            ShapefileRTreeBuilder builder = new ShapefileRTreeBuilder(2);
+            builder.addAll(new ShapefileGeometryCursor(file));
+            ShapefileRTree tree = builder.build();
+
+            Envelope2D extent = new ShapefileGeometryCursor(file).getEnvelope2D();
+            for (int i = 0; i <= 4; i++) {
+                Envelope2D query = new Envelope2D(extent.xmin, extent.ymin,
+                        extent.xmin + extent.getWidth() * i / 4, extent.ymin + extent.getHeight() * i / 4);
+                assertArrayEquals(fullScan(file, query), tree.search(query));
+            }
+        }
+        assertEquals(0, new ShapefileRTreeBuilder().build().search(new Envelope2D(0, 0, 1, 1)).length);
+    }
+
+    @Test
+    public void queryReturnsCursorOverHits() throws IOException {
+
+        File file = getTestShapefile("polygons");
+        File sidecar = folder.newFile("polygons.rtree");
+        ShapefileRTreeBuilder.build(new ShapefileGeometryCursor(file), sidecar);
+
+        ShapefileRTree tree = ShapefileRTree.open(sidecar);
+        assertEquals(3, tree.size());
+
+        IndexedShapefileReader reader = new IndexedShapefileReader(file);
+        try {
+            Envelope2D extent = reader.getEnvelope2D();
+            GeometryCursor cursor = tree.query(reader, extent);
+            int count = 0;
+            Geometry geom;
+            while ((geom = cursor.next()) != null) {
+                assertEquals(reader.get(cursor.getGeometryID()), geom);
+                count++;
+            }
+            assertEquals(3, count);
+
+            Envelope2D outside = new Envelope2D(1000, 1000, 1001, 1001);
+            assertNull(tree.query(reader, outside).next());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private int[] fullScan(File file, Envelope2D query) throws IOException {
+        List<Integer> ids = new ArrayList<Integer>();
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(file);
+        Envelope2D envelope = new Envelope2D();
+        Geometry geom;
+        while ((geom = cursor.next()) != null) {
+            geom.queryEnvelope2D(envelope);
+            if (envelope.isIntersecting(query)) {
+                ids.add(cursor.getGeometryID());
+            }
+        }
+        int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+
+    private File getTestShapefile(String name) {
+        return new File("src/test/resources/" + name + ".shp");
+    }
+}
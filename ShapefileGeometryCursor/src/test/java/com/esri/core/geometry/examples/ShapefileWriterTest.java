@@ -0,0 +1,219 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShapefileWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writing the records of each test file must reproduce the geometries, the index and the header bounds
+     */
+    @Test
+    public void roundTripTestFiles() throws IOException {
+
+        String[] names = {"points", "multipoints", "polygons", "polylines", "pointz", "polygonz"};
+        for (String name : names) {
+            File file = getTestShapefile(name);
+            File copy = new File(folder.getRoot(), name + ".shp");
+
+            ShapefileGeometryCursor source = new ShapefileGeometryCursor(file);
+            ShapefileWriter writer = new ShapefileWriter(copy, source.getGeometryType(), source.hasZ(),
+                    source.hasM() && !name.equals("polygonz"));
+            int count = writer.writeAll(source);
+            writer.close();
+
+            ShapefileGeometryCursor expected = new ShapefileGeometryCursor(file);
+            ShapefileGeometryCursor actual = new ShapefileGeometryCursor(copy);
+            assertEquals(expected.getEnvelope2D(), actual.getEnvelope2D());
+            assertEquals(expected.getEnvelope3D().zmin, actual.getEnvelope3D().zmin, 0);
+            assertEquals(expected.getEnvelope3D().zmax, actual.getEnvelope3D().zmax, 0);
+
+            //compared as shape buffers, as the NaN "no data" Ms of pointz are never equal
+            OperatorExportToESRIShape exporter = OperatorExportToESRIShape.local();
+            Geometry geom;
+            while ((geom = expected.next()) != null) {
+                assertEquals(exporter.execute(0, geom), exporter.execute(0, actual.next()));
+                assertEquals(expected.getGeometryID(), actual.getGeometryID());
+            }
+            assertNull(actual.next());
+
+            ShapefileIndex index = ShapefileIndex.read(ShapefileIndex.companionFile(copy, "shx"));
+            assertEquals(count, index.getRecordCount());
+            assertEquals(copy.length(), index.getOffset(count - 1) + 8 + index.getContentLength(count - 1));
+        }
+    }
+
+    /**
+     * The output of an operator pipeline is written without collecting the geometries first
+     */
+    @Test
+    public void writeBufferedPolylines() throws IOException {
+        File file = getTestShapefile("polylines");
+        File output = new File(folder.getRoot(), "buffered.shp");
+
+        GeometryCursor bufferCursor = OperatorBuffer.local().execute(new ShapefileGeometryCursor(file), null,
+                new double[]{0.5}, false, null);
+        ShapefileWriter writer = new ShapefileWriter(output, Geometry.Type.Polygon);
+        int count = writer.writeAll(bufferCursor);
+        writer.close();
+
+        IndexedShapefileReader reader = new IndexedShapefileReader(output);
+        assertEquals(count, reader.getRecordCount());
+        assertEquals(Geometry.Type.Polygon, reader.getGeometryType());
+        for (int i = 1; i <= count; i++) {
+            assertTrue(reader.get(i).calculateArea2D() > 0);
+        }
+        reader.close();
+    }
+
+    /**
+     * Null shapes keep the records aligned; records larger than a pooled buffer are written on their own
+     */
+    @Test
+    public void nullShapesAndLargeRecords() throws IOException {
+        File output = new File(folder.getRoot(), "large.shp");
+
+        MultiPoint large = new MultiPoint();
+        for (int i = 0; i < ShapefileWriter.BUFFER_SIZE / 16 + 1; i++) {
+            large.add(i, -i);
+        }
+        MultiPoint small = new MultiPoint();
+        small.add(2, 2);
+
+        ShapefileWriter writer = new ShapefileWriter(output, Geometry.Type.MultiPoint);
+        assertEquals(1, writer.write(small));
+        assertEquals(2, writer.write(null));
+        assertEquals(3, writer.write(large));
+        assertEquals(4, writer.write(small));
+        writer.close();
+
+        IndexedShapefileReader reader = new IndexedShapefileReader(output);
+        assertNull(reader.get(2));
+        assertEquals(large, reader.get(3));
+        assertArrayEquals(new int[]{1, 3, 4}, ids(reader.cursor(new int[]{1, 2, 3, 4})));
+        assertEquals(new Envelope2D(0, -large.getPointCount() + 1, large.getPointCount() - 1, 2),
+                reader.getEnvelope2D());
+        reader.close();
+    }
+
+    /**
+     * The record size is computed before the export, so it must match the size of the exporter for every shape type,
+     * with and without Z and M values
+     */
+    @Test
+    public void exportSizeMatchesExporter() {
+        Polyline polyline = new Polyline();
+        polyline.startPath(0, 0);
+        polyline.lineTo(1, 1);
+        polyline.lineTo(2, 0);
+        polyline.startPath(5, 5);
+        polyline.lineTo(6, 6);
+        polyline.lineTo(7, 5);
+        polyline.closePathWithLine(); //closed paths of polylines are stored closed
+        Polygon polygon = new Polygon();
+        polygon.addEnvelope(new Envelope(0, 0, 10, 10), false);
+        polygon.addEnvelope(new Envelope(2, 2, 4, 4), true);
+        MultiPoint multiPoint = new MultiPoint();
+        multiPoint.add(1, 2);
+        multiPoint.add(3, 4);
+
+        Geometry[] geometries = {new Point(1, 2), multiPoint, polyline, polygon, new Envelope(1, 2, 3, 4),
+                new MultiPoint(), new Polyline(), new Polygon(), new Envelope()};
+        OperatorExportToESRIShape exporter = OperatorExportToESRIShape.local();
+        for (boolean hasZ : new boolean[]{false, true}) {
+            for (boolean hasM : new boolean[]{false, true}) {
+                int flags = ShapeExportFlags.ShapeExportStripIDs
+                        | (hasZ ? 0 : ShapeExportFlags.ShapeExportStripZs)
+                        | (hasM ? 0 : ShapeExportFlags.ShapeExportStripMs);
+                for (Geometry geometry : geometries) {
+                    if (geometry.getType() == Geometry.Type.Envelope && geometry.isEmpty() && (hasZ || hasM)) {
+                        continue; //the exporter itself fails on the Z and M range of an empty envelope
+                    }
+                    Geometry copy = geometry.copy();
+                    if (hasZ) {
+                        copy.addAttribute(VertexDescription.Semantics.Z);
+                    }
+                    if (hasM) {
+                        copy.addAttribute(VertexDescription.Semantics.M);
+                    }
+                    String message = geometry.getType() + (geometry.isEmpty() ? " empty" : "") + (hasZ ? " Z" : "")
+                            + (hasM ? " M" : "");
+                    assertEquals(message, exporter.execute(flags, copy).capacity(),
+                            ShapefileWriter.exportSize(copy, hasZ, hasM));
+                }
+            }
+        }
+    }
+
+    /**
+     * A geometry the exporter fails on must leave no record behind: the next record gets the next number and the file
+     * holds only the written records
+     */
+    @Test
+    public void failedExportWritesNoRecord() throws IOException {
+        File output = new File(folder.getRoot(), "failed.shp");
+        Polygon square = new Polygon();
+        square.addEnvelope(new Envelope(0, 0, 1, 1), false);
+
+        ShapefileWriter writer = new ShapefileWriter(output, Geometry.Type.Polygon, true, false);
+        assertEquals(1, writer.write(square));
+        try {
+            writer.write(new Envelope()); //the exporter fails on the Z range of an empty envelope
+            fail();
+        } catch (RuntimeException e) {
+            //expected
+        }
+        assertEquals(1, writer.getRecordCount());
+        assertEquals(2, writer.write(square));
+        writer.close();
+
+        IndexedShapefileReader reader = new IndexedShapefileReader(output);
+        assertArrayEquals(new int[]{1, 2}, ids(reader.cursor(new int[]{1, 2})));
+        assertEquals(new Envelope2D(0, 0, 1, 1), reader.getEnvelope2D());
+        reader.close();
+        ShapefileGeometryCursor cursor = new ShapefileGeometryCursor(output);
+        int count = 0;
+        while (cursor.next() != null) {
+            assertEquals(++count, cursor.getGeometryID());
+        }
+        assertEquals(2, count);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedGeometryIsRejected() throws IOException {
+        ShapefileWriter writer = new ShapefileWriter(new File(folder.getRoot(), "points.shp"), Geometry.Type.Point);
+        try {
+            writer.write(new Polyline());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static int[] ids(GeometryCursor cursor) {
+        int[] ids = new int[0];
+        while (cursor.next() != null) {
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = cursor.getGeometryID();
+        }
+        return ids;
+    }
+
+    private File getTestShapefile(String name) {
+        return new File("src/test/resources/" + name + ".shp");
+    }
+}
@@ -0,0 +1,183 @@
+package com.esri.core.geometry.examples;
+
+import com.esri.core.geometry.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpatialJoinTest {
+
+    /**
+     * The join must give the pairs of a nested loop over both sides, in the same order.
+     */
+    @Test
+    public void matchesNestedLoop() {
+        Random random = new Random(7);
+        List<Geometry> polygons = new ArrayList<Geometry>();
+        for (int i = 0; i < 200; i++) {
+            polygons.add(star(random, 100 * random.nextDouble(), 100 * random.nextDouble(), 1 + 5 * random.nextDouble(),
+                    8 + random.nextInt(100)));
+        }
+        List<Geometry> points = new ArrayList<Geometry>();
+        for (int i = 0; i < 2000; i++) {
+            points.add(new Point(100 * random.nextDouble(), 100 * random.nextDouble()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (SpatialJoin.Predicate predicate : SpatialJoin.Predicate.values()) {
+                OperatorSimpleRelation operator = predicate == SpatialJoin.Predicate.CONTAINS
+                        ? OperatorContains.local() : OperatorIntersects.local();
+                //polygons against points, and polygons against polygons
+                List<List<Geometry>> rights = new ArrayList<List<Geometry>>();
+                rights.add(points);
+                rights.add(polygons);
+                for (List<Geometry> right : rights) {
+                    IntPairBuffer expected = new IntPairBuffer();
+                    for (int r = 0; r < right.size(); r++) {
+                        for (int l = 0; l < polygons.size(); l++) {
+                            if (operator.execute(polygons.get(l), right.get(r), null, null)) {
+                                expected.add(l, r);
+                            }
+                        }
+                    }
+                    assertTrue(expected.size() > 0);
+
+                    //no acceleration (-1), every left geometry accelerated (0), and those tested twice (2)
+                    for (int testsBeforeAcceleration : new int[]{-1, 0, 2}) {
+                        SpatialJoin join = new SpatialJoin(executor, null, predicate);
+                        join.setAcceleration(testsBeforeAcceleration < 0 ? null
+                                : Geometry.GeometryAccelerationDegree.enumMedium, Math.max(testsBeforeAcceleration, 0));
+                        join.setBatchSize(64, 2);
+                        IntPairBuffer pairs = join.execute(new SimpleGeometryCursor(polygons),
+                                new SimpleGeometryCursor(right));
+                        assertArrayEquals(expected.toArray(), pairs.toArray());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void joinsShapefilesByRecordNumber() throws IOException {
+        File polygons = new File("src/test/resources/polygons.shp");
+        File points = new File("src/test/resources/points.shp");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SpatialJoin join = new SpatialJoin(executor, null, SpatialJoin.Predicate.INTERSECTS);
+            IntPairBuffer pairs = join.execute(new ShapefileGeometryCursor(polygons), new ShapefileGeometryCursor(points));
+
+            int count = 0;
+            ShapefileGeometryCursor pointCursor = new ShapefileGeometryCursor(points);
+            Geometry point;
+            while ((point = pointCursor.next()) != null) {
+                ShapefileGeometryCursor polygonCursor = new ShapefileGeometryCursor(polygons);
+                Geometry polygon;
+                while ((polygon = polygonCursor.next()) != null) {
+                    if (OperatorIntersects.local().execute(polygon, point, null, null)) {
+                        assertEquals(polygonCursor.getGeometryID(), pairs.getLeft(count));
+                        assertEquals(pointCursor.getGeometryID(), pairs.getRight(count));
+                        count++;
+                    }
+                }
+            }
+            assertEquals(count, pairs.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Accelerating every left geometry up front must accelerate copies, and leave the geometries of the caller as they
+     * were, as the acceleration after a number of tests does
+     */
+    @Test
+    public void leavesTheCallerGeometriesUnaccelerated() throws Exception {
+        Random random = new Random(9);
+        List<Geometry> polygons = new ArrayList<Geometry>();
+        for (int i = 0; i < 20; i++) {
+            polygons.add(star(random, 10 * i, 0, 4, 64));
+        }
+        List<Geometry> points = new ArrayList<Geometry>();
+        for (int i = 0; i < 20; i++) {
+            points.add(new Point(10 * i, 0));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int testsBeforeAcceleration : new int[]{0, 1}) {
+                SpatialJoin join = new SpatialJoin(executor, null, SpatialJoin.Predicate.CONTAINS);
+                join.setAcceleration(Geometry.GeometryAccelerationDegree.enumMedium, testsBeforeAcceleration);
+                IntPairBuffer pairs = join.execute(new SimpleGeometryCursor(polygons), new SimpleGeometryCursor(points));
+                assertEquals(20, pairs.size());
+                for (Geometry polygon : polygons) {
+                    assertFalse(isAccelerated(polygon));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //the check itself sees an acceleration in place
+        Geometry accelerated = polygons.get(0);
+        OperatorContains.local().accelerateGeometry(accelerated, null, Geometry.GeometryAccelerationDegree.enumMedium);
+        assertTrue(isAccelerated(accelerated));
+    }
+
+    /**
+     * The library keeps the accelerators in the implementation of the geometry, which it does not expose
+     */
+    private static boolean isAccelerated(Geometry geometry) throws Exception {
+        Method getImpl = MultiPath.class.getDeclaredMethod("_getImpl");
+        getImpl.setAccessible(true);
+        Object impl = getImpl.invoke(geometry);
+        Method getAccelerators = impl.getClass().getMethod("_getAccelerators");
+        getAccelerators.setAccessible(true);
+        return getAccelerators.invoke(impl) != null;
+    }
+
+    @Test
+    public void intPairBufferGrows() {
+        IntPairBuffer buffer = new IntPairBuffer(1);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i, -i);
+        }
+        IntPairBuffer all = new IntPairBuffer();
+        all.addAll(buffer);
+        all.addAll(buffer);
+        assertEquals(200, all.size());
+        assertEquals(99, all.getLeft(199));
+        assertEquals(-99, all.getRight(199));
+        all.clear();
+        assertEquals(0, all.toArray().length);
+    }
+
+    private static Polygon star(Random random, double cx, double cy, double radius, int vertices) {
+        Polygon polygon = new Polygon();
+        for (int i = 0; i < vertices; i++) {
+            double angle = -2 * Math.PI * i / vertices;
+            double r = radius * (0.5 + 0.5 * random.nextDouble());
+            if (i == 0) {
+                polygon.startPath(cx + r * Math.cos(angle), cy + r * Math.sin(angle));
+            } else {
+                polygon.lineTo(cx + r * Math.cos(angle), cy + r * Math.sin(angle));
+            }
+        }
+        return polygon;
+    }
+}